@@ -1,3 +1,17 @@
 @echo off
 
-call "./build/install/jmm/bin/jmm.bat" %*
+rem Compiles through a resident compile server (started on first use, and
+rem restarted when the compiler is rebuilt), with the same options and outputs
+rem as the launcher. Batch (-b) and cached (-c) compilations run in the client.
+rem Set JMM_NO_SERVER=1 to run the compiler in a fresh JVM instead.
+rem Stop the server with: jmm --stop-server
+
+if defined JMM_NO_SERVER (
+    call "%~dp0build\install\jmm\bin\jmm.bat" %*
+    exit /b %ERRORLEVEL%
+)
+
+set JAVA_EXE=java
+if defined JAVA_HOME set JAVA_EXE=%JAVA_HOME%\bin\java
+
+"%JAVA_EXE%" -cp "%~dp0build\install\jmm\lib\*" pt.up.fe.comp2024.server.CompileClient %*
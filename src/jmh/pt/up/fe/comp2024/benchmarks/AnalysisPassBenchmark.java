@@ -0,0 +1,56 @@
+package pt.up.fe.comp2024.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp2024.analysis.AnalysisPass;
+import pt.up.fe.comp2024.analysis.passes.InvalidDuplicates;
+import pt.up.fe.comp2024.analysis.passes.InvalidOperations;
+import pt.up.fe.comp2024.analysis.passes.InvalidTypes;
+import pt.up.fe.comp2024.analysis.passes.UndeclaredVariable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each semantic analysis pass on its own, over already built ASTs and symbol tables.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AnalysisPassBenchmark {
+
+    @Param({"corpus", "2000x5", "20x500"})
+    public String programs;
+
+    @Param({"UndeclaredVariable", "InvalidDuplicates", "InvalidOperations", "InvalidTypes"})
+    public String pass;
+
+    private List<JmmSemanticsResult> semanticsResults;
+    private AnalysisPass analysisPass;
+
+    @Setup
+    public void setup() {
+        semanticsResults = BenchmarkPrograms.get(programs).stream()
+                .map(source -> BenchmarkPrograms.analyze(source, false))
+                .toList();
+
+        analysisPass = switch (pass) {
+            case "UndeclaredVariable" -> new UndeclaredVariable();
+            case "InvalidDuplicates" -> new InvalidDuplicates();
+            case "InvalidOperations" -> new InvalidOperations();
+            case "InvalidTypes" -> new InvalidTypes();
+            default -> throw new IllegalArgumentException("Unknown analysis pass '" + pass + "'");
+        };
+    }
+
+    @Benchmark
+    public void analyze(Blackhole blackhole) {
+        for (var semanticsResult : semanticsResults) {
+            blackhole.consume(analysisPass.analyze(semanticsResult.getRootNode(), semanticsResult.getSymbolTable()));
+        }
+    }
+}
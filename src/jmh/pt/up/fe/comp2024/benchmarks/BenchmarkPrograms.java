@@ -0,0 +1,148 @@
+package pt.up.fe.comp2024.benchmarks;
+
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2024.JmmCompiler;
+import pt.up.fe.comp2024.analysis.JmmAnalysisImpl;
+import pt.up.fe.comp2024.optimization.JmmOptimizationImpl;
+import pt.up.fe.comp2024.parser.JmmParserImpl;
+import pt.up.fe.comp2024.utils.ReportUtils;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Programs used as input of the benchmarks, and helpers to take them up to a given stage.
+ * <p>
+ * A program set is either "corpus", every .jmm file of the test folder that compiles without errors, or
+ * "&lt;methods&gt;x&lt;blocks&gt;", a synthetic class with that many methods, each repeating a block of statements
+ * that many times.
+ */
+public class BenchmarkPrograms {
+
+    private static final String CORPUS_PROPERTY = "jmm.corpus";
+    private static final String DEFAULT_CORPUS = "test";
+    private static final String CORPUS = "corpus";
+
+    public static List<String> get(String programs) {
+        if (programs.equals(CORPUS)) {
+            return corpus();
+        }
+
+        var sizes = programs.split("x");
+        if (sizes.length != 2) {
+            throw new IllegalArgumentException("Expected 'corpus' or '<methods>x<blocks>', got '" + programs + "'");
+        }
+
+        return List.of(synthetic(Integer.parseInt(sizes[0]), Integer.parseInt(sizes[1])));
+    }
+
+    public static Map<String, String> config(boolean optimize) {
+        var config = new HashMap<String, String>();
+        config.put("optimize", Boolean.toString(optimize));
+        config.put("registerAllocation", "-1");
+        return config;
+    }
+
+    /**
+     * The .jmm files of the test folder (or the folder given by the property 'jmm.corpus') that go through every
+     * stage without errors.
+     */
+    public static List<String> corpus() {
+        var folder = new File(System.getProperty(CORPUS_PROPERTY, DEFAULT_CORPUS));
+        var compiler = new JmmCompiler();
+
+        var programs = new ArrayList<String>();
+        for (var file : SpecsIo.getFilesRecursive(folder, "jmm")) {
+            var code = SpecsIo.read(file);
+            if (!compiler.compile(code, config(false)).hasErrors()) {
+                programs.add(code);
+            }
+        }
+
+        if (programs.isEmpty()) {
+            throw new RuntimeException("No valid programs found in corpus folder '" + folder.getAbsolutePath() + "'");
+        }
+
+        return programs;
+    }
+
+    /**
+     * A class with the given number of methods, where each method repeats a block of assignments, arithmetic,
+     * array accesses, a loop, a conditional and a call the given number of times.
+     */
+    public static String synthetic(int methods, int blocks) {
+        var code = new StringBuilder();
+        code.append("import io;\n");
+        code.append("class Synthetic {\n");
+        code.append("    int field;\n");
+
+        for (int m = 0; m < methods; m++) {
+            code.append("    public int method").append(m).append("(int a, int b) {\n");
+            code.append("        int x;\n");
+            code.append("        int y;\n");
+            code.append("        int[] values;\n");
+            code.append("        boolean flag;\n");
+            code.append("        x = a + 1;\n");
+            code.append("        y = 0;\n");
+            code.append("        values = new int[10];\n");
+
+            for (int b = 0; b < blocks; b++) {
+                code.append("        y = x * b + 2 - y / 3;\n");
+                code.append("        values[").append(b % 10).append("] = y;\n");
+                code.append("        flag = x < y && y < 100;\n");
+                code.append("        while (x < y) {\n");
+                code.append("            x = x + 1;\n");
+                code.append("        }\n");
+                code.append("        if (flag) {\n");
+                code.append("            y = values[").append(b % 10).append("] + values.length;\n");
+                code.append("        } else {\n");
+                code.append("            y = this.helper(x, y);\n");
+                code.append("        }\n");
+            }
+
+            code.append("        io.println(y);\n");
+            code.append("        return y;\n");
+            code.append("    }\n");
+        }
+
+        code.append("    public int helper(int a, int b) {\n");
+        code.append("        return a - b;\n");
+        code.append("    }\n");
+        code.append("    public static void main(String[] args) {\n");
+        code.append("    }\n");
+        code.append("}\n");
+
+        return code.toString();
+    }
+
+    public static JmmParserResult parse(String code, boolean optimize) {
+        var parserResult = new JmmParserImpl().parse(code, config(optimize));
+        checkNoErrors(parserResult.getReports());
+        return parserResult;
+    }
+
+    public static JmmSemanticsResult analyze(String code, boolean optimize) {
+        var semanticsResult = new JmmAnalysisImpl().semanticAnalysis(parse(code, optimize));
+        checkNoErrors(semanticsResult.getReports());
+        return semanticsResult;
+    }
+
+    public static OllirResult toOllir(String code) {
+        var ollirResult = new JmmOptimizationImpl().toOllir(analyze(code, false));
+        checkNoErrors(ollirResult.getReports());
+        return ollirResult;
+    }
+
+    private static void checkNoErrors(List<Report> reports) {
+        if (ReportUtils.anyError(reports)) {
+            throw new RuntimeException("Benchmark program has errors: " + reports);
+        }
+    }
+}
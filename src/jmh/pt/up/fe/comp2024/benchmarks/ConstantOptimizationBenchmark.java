@@ -0,0 +1,50 @@
+package pt.up.fe.comp2024.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp2024.optimization.JmmOptimizationImpl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The AST-level conditional constant propagation and folding.
+ * <p>
+ * The optimization rewrites the AST, so every invocation works on freshly analysed programs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ConstantOptimizationBenchmark {
+
+    @Param({"corpus", "2000x5", "20x500"})
+    public String programs;
+
+    private List<String> sources;
+    private List<JmmSemanticsResult> semanticsResults;
+    private JmmOptimizationImpl optimization;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        sources = BenchmarkPrograms.get(programs);
+        optimization = new JmmOptimizationImpl();
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        semanticsResults = sources.stream()
+                .map(source -> BenchmarkPrograms.analyze(source, true))
+                .toList();
+    }
+
+    @Benchmark
+    public void optimize(Blackhole blackhole) {
+        for (var semanticsResult : semanticsResults) {
+            blackhole.consume(optimization.optimize(semanticsResult));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package pt.up.fe.comp2024.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2024.backend.JasminGenerator;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation of the Jasmin code from the parsed OLLIR classes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JasminGenerationBenchmark {
+
+    @Param({"corpus", "2000x5", "20x500"})
+    public String programs;
+
+    private List<OllirResult> ollirResults;
+
+    @Setup
+    public void setup() {
+        ollirResults = BenchmarkPrograms.get(programs).stream()
+                .map(BenchmarkPrograms::toOllir)
+                .toList();
+    }
+
+    @Benchmark
+    public void build(Blackhole blackhole) {
+        for (var ollirResult : ollirResults) {
+            blackhole.consume(new JasminGenerator(ollirResult).build());
+        }
+    }
+}
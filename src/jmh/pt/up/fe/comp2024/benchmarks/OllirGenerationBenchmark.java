@@ -0,0 +1,41 @@
+package pt.up.fe.comp2024.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp2024.optimization.OllirGeneratorVisitor;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation of the OLLIR code from the analysed AST.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OllirGenerationBenchmark {
+
+    @Param({"corpus", "2000x5", "20x500"})
+    public String programs;
+
+    private List<JmmSemanticsResult> semanticsResults;
+
+    @Setup
+    public void setup() {
+        semanticsResults = BenchmarkPrograms.get(programs).stream()
+                .map(source -> BenchmarkPrograms.analyze(source, false))
+                .toList();
+    }
+
+    @Benchmark
+    public void generate(Blackhole blackhole) {
+        for (var semanticsResult : semanticsResults) {
+            var visitor = new OllirGeneratorVisitor(semanticsResult.getSymbolTable());
+            blackhole.consume(visitor.visit(semanticsResult.getRootNode()));
+        }
+    }
+}
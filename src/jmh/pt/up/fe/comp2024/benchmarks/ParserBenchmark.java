@@ -0,0 +1,42 @@
+package pt.up.fe.comp2024.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.up.fe.comp2024.parser.JmmParserImpl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the source code into the AST, including the conversion from the ANTLR tree.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParserBenchmark {
+
+    @Param({"corpus", "2000x5", "20x500"})
+    public String programs;
+
+    private List<String> sources;
+    private Map<String, String> config;
+    private JmmParserImpl parser;
+
+    @Setup
+    public void setup() {
+        sources = BenchmarkPrograms.get(programs);
+        config = BenchmarkPrograms.config(false);
+        parser = new JmmParserImpl();
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (var source : sources) {
+            blackhole.consume(parser.parse(source, config));
+        }
+    }
+}
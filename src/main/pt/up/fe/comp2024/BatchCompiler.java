@@ -0,0 +1,195 @@
+package pt.up.fe.comp2024;
+
+import com.google.gson.JsonArray;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.metrics.CompilerMetrics;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compiles many Java-- units in parallel.
+ * <p>
+ * Units are compiled on a bounded pool of worker threads, and each worker reuses the same {@link JmmCompiler} for all
+ * the units it compiles. Results are reported in the order the units were given, independently of the order in which
+ * they finish.
+ * <p>
+ * With an output directory, the outputs of each unit are written under the same path the unit has relative to the
+ * batch input (a directory, or the directory of a list), so units with the same name in different directories do not
+ * overwrite each other.
+ */
+public class BatchCompiler {
+
+    private static final String JMM_EXTENSION = ".jmm";
+
+    private final Map<String, String> config;
+    private final ThreadLocal<JmmCompiler> compilers = ThreadLocal.withInitial(JmmCompiler::new);
+
+    public BatchCompiler(Map<String, String> config) {
+        this.config = config;
+    }
+
+    /**
+     * Collects the units of a batch input. A directory contributes all its .jmm files (sorted by path), any other file
+     * is read as a list with one path per line, relative paths being resolved against the list's directory.
+     */
+    public static List<File> getUnits(File batchInput) {
+        if (batchInput.isDirectory()) {
+            var units = new ArrayList<>(SpecsIo.getFilesRecursive(batchInput, JMM_EXTENSION.substring(1)));
+            units.sort(null);
+            return units;
+        }
+
+        var units = new ArrayList<File>();
+        for (var line : SpecsIo.read(batchInput).split("\\R")) {
+            var path = line.strip();
+            if (path.isEmpty() || path.startsWith("#")) {
+                continue;
+            }
+
+            var unit = new File(path);
+            units.add(unit.isAbsolute() ? unit : new File(batchInput.getAbsoluteFile().getParentFile(), path));
+        }
+
+        return units;
+    }
+
+    /**
+     * Compiles all the given units and prints a summary of their reports.
+     *
+     * @return true if every unit compiled without errors
+     */
+    public boolean compile(List<File> units) {
+        var threads = Math.min(CompilerConfig.getThreads(config), Math.max(1, units.size()));
+        var executor = Executors.newFixedThreadPool(threads);
+
+        var outputNames = getOutputNames(units);
+        var results = new ArrayList<Future<JmmCompiler.Result>>();
+        try {
+            for (int i = 0; i < units.size(); i++) {
+                var unit = units.get(i);
+                var outputName = outputNames.get(i);
+                results.add(executor.submit(() -> compile(unit, outputName)));
+            }
+
+            var failed = 0;
+            var metrics = new JsonArray();
+            for (int i = 0; i < units.size(); i++) {
+                var result = getResult(results.get(i));
+                if (!printSummary(units.get(i), result)) {
+                    failed++;
+                }
+
+                if (result.getMetrics().isEnabled()) {
+                    var unitMetrics = result.getMetrics().toJson();
+                    unitMetrics.addProperty("unit", units.get(i).getPath());
+                    metrics.add(unitMetrics);
+                }
+            }
+
+            System.out.println("Compiled " + units.size() + " units, " + failed + " failed");
+            if (CompilerConfig.getMetrics(config)) {
+                CompilerMetrics.emit(metrics, config);
+            }
+            return failed == 0;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Compiles a unit, any failure being reported as an error of that unit instead of stopping the batch.
+     */
+    private JmmCompiler.Result compile(File unit, String outputName) {
+        try {
+            return compileUnit(unit, outputName);
+        } catch (RuntimeException | StackOverflowError e) {
+            return newFailedResult(e);
+        }
+    }
+
+    private JmmCompiler.Result compileUnit(File unit, String outputName) {
+        var unitConfig = CompilerConfig.forInputFile(config, unit);
+        var code = SpecsIo.read(unit);
+
+        var outputDir = CompilerConfig.getOutputDir(config);
+        if (outputDir.isEmpty()) {
+            return compilers.get().compile(code, unitConfig);
+        }
+
+        if (outputName == null) {
+            var result = compilers.get().compile(code, unitConfig);
+            result.addReport(Report.newError(Stage.OTHER, -1, -1,
+                    "Outputs not written, another unit of the batch has the same output path", null));
+            return result;
+        }
+
+        return compilers.get().compile(code, unitConfig, outputDir.get(), outputName);
+    }
+
+    /**
+     * The path of the outputs of each unit, relative to the output directory and without extension. It is the path of
+     * the unit relative to the batch input, or just its name if the unit is not under it.
+     *
+     * @return the output paths in the order of the units, null for the units whose path is also the path of an earlier
+     * unit
+     */
+    private List<String> getOutputNames(List<File> units) {
+        var root = CompilerConfig.getBatchInput(config)
+                .map(batchInput -> batchInput.isDirectory() ? batchInput : batchInput.getAbsoluteFile().getParentFile())
+                .map(directory -> directory.getAbsoluteFile().toPath().normalize());
+
+        var outputNames = new ArrayList<String>(units.size());
+        Map<String, File> owners = new HashMap<>();
+        for (var unit : units) {
+            var path = unit.getAbsoluteFile().toPath().normalize();
+            var relativePath = root.filter(path::startsWith)
+                    .map(directory -> directory.relativize(path).toString())
+                    .orElse(unit.getName());
+            var outputName = SpecsIo.removeExtension(relativePath);
+
+            outputNames.add(owners.putIfAbsent(outputName, unit) == null ? outputName : null);
+        }
+
+        return outputNames;
+    }
+
+    private static JmmCompiler.Result getResult(Future<JmmCompiler.Result> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for batch compilation", e);
+        } catch (ExecutionException e) {
+            return newFailedResult(e.getCause());
+        }
+    }
+
+    private static JmmCompiler.Result newFailedResult(Throwable e) {
+        var result = new JmmCompiler.Result();
+        result.addReport(JmmCompiler.newFailure("Exception during compilation", e));
+        return result;
+    }
+
+    /**
+     * @return true if the unit compiled without errors
+     */
+    private static boolean printSummary(File unit, JmmCompiler.Result result) {
+        var ok = !result.hasErrors();
+        System.out.println((ok ? "[OK]   " : "[FAIL] ") + unit.getPath());
+
+        for (Report report : result.getReports()) {
+            System.out.println("       " + report);
+        }
+
+        return ok;
+    }
+}
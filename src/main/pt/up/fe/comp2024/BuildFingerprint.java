@@ -0,0 +1,68 @@
+package pt.up.fe.comp2024;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+/**
+ * Identifies the build of the compiler that is running, so that outputs and processes of another build are not
+ * mistaken for its own.
+ * <p>
+ * The fingerprint is the SHA-256 of the classes of the compiler, either of the jar they were loaded from or of every
+ * file of their directory. Any rebuild that changes them changes the fingerprint, without depending on a version that
+ * must be bumped by hand.
+ */
+public class BuildFingerprint {
+
+    private static class Holder {
+        private static final String FINGERPRINT = compute();
+    }
+
+    private BuildFingerprint() {
+    }
+
+    /**
+     * The fingerprint of the running compiler, computed on first use.
+     */
+    public static String get() {
+        return Holder.FINGERPRINT;
+    }
+
+    private static String compute() {
+        var codeSource = BuildFingerprint.class.getProtectionDomain().getCodeSource();
+        if (codeSource == null) {
+            throw new RuntimeException("Could not find the classes of the compiler");
+        }
+
+        try {
+            var location = Path.of(codeSource.getLocation().toURI());
+            var digest = MessageDigest.getInstance("SHA-256");
+
+            if (Files.isDirectory(location)) {
+                // Sorted, so that the fingerprint does not depend on the order files are listed in
+                try (Stream<Path> files = Files.walk(location)) {
+                    for (var file : files.filter(Files::isRegularFile).sorted().toList()) {
+                        digest.update(location.relativize(file).toString().getBytes());
+                        digest.update(Files.readAllBytes(file));
+                    }
+                }
+            } else {
+                digest.update(Files.readAllBytes(location));
+            }
+
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the classes of the compiler", e);
+        } catch (URISyntaxException e) {
+            throw new RuntimeException("Could not find the classes of the compiler", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -10,6 +10,14 @@ public class CompilerConfig {
     private static final String INPUT_FILE = "inputFile";
     private static final String OPTIMIZE = "optimize";
     private static final String REGISTER = "registerAllocation";
+    private static final String BATCH = "batch";
+    private static final String THREADS = "threads";
+    private static final String OUTPUT_DIR = "outputDir";
+    private static final String METRICS = "metrics";
+    private static final String CACHE = "cache";
+    private static final String FUSED_ANALYSIS = "fusedAnalysis";
+    private static final String COMPACT_AST = "compactAst";
+    private static final String DEFAULT_CACHE_DIR = ".jmm-cache";
 
 
     static Map<String, String> shortToLong = new HashMap<>();
@@ -18,6 +26,13 @@ public class CompilerConfig {
         shortToLong.put("i", CompilerConfig.INPUT_FILE);
         shortToLong.put("o", CompilerConfig.OPTIMIZE);
         shortToLong.put("r", CompilerConfig.REGISTER);
+        shortToLong.put("b", CompilerConfig.BATCH);
+        shortToLong.put("t", CompilerConfig.THREADS);
+        shortToLong.put("d", CompilerConfig.OUTPUT_DIR);
+        shortToLong.put("m", CompilerConfig.METRICS);
+        shortToLong.put("c", CompilerConfig.CACHE);
+        shortToLong.put("f", CompilerConfig.FUSED_ANALYSIS);
+        shortToLong.put("a", CompilerConfig.COMPACT_AST);
     }
 
 
@@ -32,6 +47,108 @@ public class CompilerConfig {
         return Optional.of(new File(inputFile));
     }
 
+    /**
+     * The input of batch mode, either a directory with .jmm files or a file listing one path per line.
+     */
+    public static Optional<File> getBatchInput(Map<String, String> config) {
+        var batchInput = config.get(BATCH);
+
+        if (batchInput == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new File(batchInput));
+    }
+
+    public static Optional<File> getOutputDir(Map<String, String> config) {
+        var outputDir = config.get(OUTPUT_DIR);
+
+        if (outputDir == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new File(outputDir));
+    }
+
+    /**
+     * Number of units compiled in parallel in batch mode, defaults to the number of available processors.
+     */
+    public static int getThreads(Map<String, String> config) {
+        var threads = config.get(THREADS);
+
+        if (threads == null) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+
+        return Integer.parseInt(threads);
+    }
+
+    /**
+     * Copy of the given options that compiles the given file.
+     */
+    public static Map<String, String> forInputFile(Map<String, String> config, File inputFile) {
+        var unitConfig = new HashMap<>(config);
+        unitConfig.put(INPUT_FILE, inputFile.getAbsolutePath());
+
+        return unitConfig;
+    }
+
+    /**
+     * Copy of the given options with the input file and the output directory made absolute, for a process that may run
+     * in another directory.
+     */
+    public static Map<String, String> withAbsolutePaths(Map<String, String> config) {
+        var absoluteConfig = new HashMap<>(config);
+        getInputFile(config).ifPresent(inputFile -> absoluteConfig.put(INPUT_FILE, inputFile.getAbsolutePath()));
+        getOutputDir(config).ifPresent(outputDir -> absoluteConfig.put(OUTPUT_DIR, outputDir.getAbsolutePath()));
+
+        return absoluteConfig;
+    }
+
+    /**
+     * True if per-stage metrics should be recorded, with '-m' (printed to the output) or '-m=&lt;file&gt;'.
+     */
+    public static boolean getMetrics(Map<String, String> config) {
+        return config.containsKey(METRICS) && !config.get(METRICS).equals("false");
+    }
+
+    public static Optional<File> getMetricsFile(Map<String, String> config) {
+        var metrics = config.get(METRICS);
+
+        if (metrics == null || metrics.equals("true") || metrics.equals("false")) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new File(metrics));
+    }
+
+    /**
+     * The directory of the compilation cache, enabled with '-c' (in '.jmm-cache') or '-c=&lt;dir&gt;'.
+     */
+    public static Optional<File> getCacheDir(Map<String, String> config) {
+        var cache = config.get(CACHE);
+
+        if (cache == null || cache.equals("false")) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new File(cache.equals("true") ? DEFAULT_CACHE_DIR : cache));
+    }
+
+    /**
+     * True if the analysis visitors share a single walk of the AST, with '-f', see FusedAnalysis.
+     */
+    public static boolean getFusedAnalysis(Map<String, String> config) {
+        return Boolean.parseBoolean(config.getOrDefault(FUSED_ANALYSIS, "false"));
+    }
+
+    /**
+     * True if the parser builds a CompactAst instead of a tree of JmmNodeImpl, with '-a'.
+     */
+    public static boolean getCompactAst(Map<String, String> config) {
+        return Boolean.parseBoolean(config.getOrDefault(COMPACT_AST, "false"));
+    }
+
     public static boolean getOptimize(Map<String, String> config) {
         return Boolean.parseBoolean(config.getOrDefault(OPTIMIZE, "false"));
     }
@@ -89,23 +206,36 @@ public class CompilerConfig {
             config.put(getLongOpt(shortOption), value);
         }
 
-        if (!config.containsKey(INPUT_FILE)) {
+        if (config.containsKey(BATCH)) {
+            // make sure we save the absolute path of the batch input
+            var batchInput = new File(config.get(BATCH));
+            if (!batchInput.exists()) {
+                throw new RuntimeException("Could not find batch input '" + batchInput + "'");
+            }
 
-            throw new RuntimeException("Expected an input file, use '-i=<PATH_TO_FILE>'");
-        }
+            config.put(BATCH, batchInput.getAbsolutePath());
+        } else {
+            if (!config.containsKey(INPUT_FILE)) {
 
-        // make sure we save the absolute path of the input file
-        var inputFile = new File(config.get(INPUT_FILE));
-        if (!inputFile.isFile()) {
-            throw new RuntimeException("Could not find input file '" + inputFile + "'");
-        }
+                throw new RuntimeException("Expected an input file, use '-i=<PATH_TO_FILE>' or '-b=<DIR_OR_LIST>'");
+            }
+
+            // make sure we save the absolute path of the input file
+            var inputFile = new File(config.get(INPUT_FILE));
+            if (!inputFile.isFile()) {
+                throw new RuntimeException("Could not find input file '" + inputFile + "'");
+            }
 
-        var absolutePath = inputFile.getAbsolutePath();
-        config.put(INPUT_FILE, absolutePath);
+            var absolutePath = inputFile.getAbsolutePath();
+            config.put(INPUT_FILE, absolutePath);
+        }
 
         // Verify if values are valid
         getOptimize(config);
         getRegisterAllocation(config);
+        if (getThreads(config) < 1) {
+            throw new RuntimeException("Option '-t' expects a positive number of threads");
+        }
 
         return config;
     }
@@ -0,0 +1,256 @@
+package pt.up.fe.comp2024;
+
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.analysis.JmmAnalysisImpl;
+import pt.up.fe.comp2024.backend.ClassFileGenerator;
+import pt.up.fe.comp2024.backend.JasminBackendImpl;
+import pt.up.fe.comp2024.backend.JasminGenerator;
+import pt.up.fe.comp2024.metrics.CompilerMetrics;
+import pt.up.fe.comp2024.optimization.JmmOptimizationImpl;
+import pt.up.fe.comp2024.optimization.OllirPrinter;
+import pt.up.fe.comp2024.parser.JmmParserImpl;
+import pt.up.fe.comp2024.utils.ReportUtils;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the whole compilation pipeline (parse, semantic analysis, optimization, OLLIR and Jasmin) over a single unit,
+ * recording the metrics of each stage if enabled in the options.
+ * <p>
+ * An instance keeps its stage implementations alive between units, so the same compiler can be reused to compile
+ * many programs without paying the set-up cost again. Instances are not thread-safe, use one per thread.
+ */
+public class JmmCompiler {
+
+    private final JmmParserImpl parser;
+    private final JmmAnalysisImpl analysis;
+    private final JmmOptimizationImpl optimization;
+    private final JasminBackendImpl backend;
+    private final boolean keepParseTree;
+
+    public JmmCompiler() {
+        this(false);
+    }
+
+    /**
+     * @param keepParseTree if the results keep the text of the tree returned by the parser, which the optimizations
+     *                      later change in place
+     */
+    public JmmCompiler(boolean keepParseTree) {
+        this.parser = new JmmParserImpl();
+        this.analysis = new JmmAnalysisImpl();
+        this.optimization = new JmmOptimizationImpl();
+        this.backend = new JasminBackendImpl();
+        this.keepParseTree = keepParseTree;
+    }
+
+    /**
+     * Compiles the given code, stopping at the first stage that reports errors.
+     *
+     * @param code   the Java-- source code
+     * @param config the compiler options
+     * @return the results of every stage that was executed
+     */
+    public Result compile(String code, Map<String, String> config) {
+        var result = new Result();
+
+        try {
+            if (compileToOllir(code, config, result)) {
+                result.jasminResult = result.metrics.measure("jasmin", () -> backend.toJasmin(result.ollirResult));
+                result.setReports(result.jasminResult.getReports());
+            }
+        } catch (RuntimeException | StackOverflowError e) {
+            result.reports.add(newFailure("Exception during compilation", e));
+        }
+
+        return result;
+    }
+
+    /**
+     * Compiles the given code and writes its outputs to the given directory: the OLLIR code, the Jasmin code and the
+     * class file. The Jasmin code is written to its file as it is generated, so the result has no Jasmin result.
+     *
+     * @param outputDir  the directory of the outputs
+     * @param outputName the path of the outputs relative to the directory, without extension
+     * @return the results of every stage that was executed
+     */
+    public Result compile(String code, Map<String, String> config, File outputDir, String outputName) {
+        var result = new Result();
+
+        boolean generateJasmin;
+        try {
+            generateJasmin = compileToOllir(code, config, result);
+        } catch (RuntimeException | StackOverflowError e) {
+            result.reports.add(newFailure("Exception during compilation", e));
+            return result;
+        }
+
+        if (result.ollirResult == null) {
+            return result;
+        }
+
+        // A failure to write is reported apart from the failures of the compilation
+        try {
+            writeOutputs(result, generateJasmin, outputDir, outputName);
+        } catch (RuntimeException | StackOverflowError e) {
+            result.reports.add(newFailure("Could not write the outputs of the unit", e));
+        }
+
+        return result;
+    }
+
+    /**
+     * The error of a failure that stopped the compilation of a unit. A stack overflow, as deeply nested code can cause,
+     * only fails that unit.
+     */
+    static Report newFailure(String message, Throwable e) {
+        var exception = e instanceof Exception cause ? cause : new RuntimeException(e.toString(), e);
+        return Report.newError(Stage.OTHER, -1, -1, message, exception);
+    }
+
+    /**
+     * Runs the stages up to the OLLIR optimizations.
+     *
+     * @return true if none of them reported errors
+     */
+    private boolean compileToOllir(String code, Map<String, String> config, Result result) {
+        var metrics = CompilerMetrics.create(config);
+        result.metrics = metrics;
+        analysis.setMetrics(metrics);
+        optimization.setMetrics(metrics);
+
+        result.parserResult = metrics.measure("parse", () -> parser.parse(code, config));
+        if (keepParseTree && result.parserResult.getRootNode() != null) {
+            result.parseTree = result.parserResult.getRootNode().toTree();
+        }
+        if (result.setReports(result.parserResult.getReports())) {
+            return false;
+        }
+        metrics.countNodes("parse", result.parserResult.getRootNode());
+
+        result.semanticsResult = metrics.measure("analysis", () -> analysis.semanticAnalysis(result.parserResult));
+        if (result.setReports(result.semanticsResult.getReports())) {
+            return false;
+        }
+
+        result.semanticsResult = metrics.measure("optimization", () -> optimization.optimize(result.semanticsResult));
+        metrics.countNodes("optimization", result.semanticsResult.getRootNode());
+
+        result.ollirResult = metrics.measure("ollir", () -> optimization.toOllir(result.semanticsResult));
+        result.ollirResult = metrics.measure("ollirOptimization", () -> optimization.optimize(result.ollirResult));
+        return !result.setReports(result.ollirResult.getReports());
+    }
+
+    private static void writeOutputs(Result result, boolean generateJasmin, File outputDir, String outputName) {
+        var ollirFile = new File(outputDir, outputName + ".ollir");
+        var unitDir = ollirFile.getParentFile();
+        SpecsIo.mkdir(unitDir);
+
+        if (!SpecsIo.write(ollirFile, OllirPrinter.getOllirCode(result.ollirResult))) {
+            throw new RuntimeException("Could not write file '" + ollirFile + "'");
+        }
+
+        if (!generateJasmin) {
+            return;
+        }
+
+        var jasminPath = new File(outputDir, outputName + ".j").toPath();
+        var generator = new JasminGenerator(result.ollirResult);
+        try (var writer = Files.newBufferedWriter(jasminPath)) {
+            result.metrics.measure("jasmin", () -> generator.build(writer));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write Jasmin file '" + jasminPath + "'", e);
+        }
+        result.reports.addAll(generator.getReports());
+
+        // Runnable without assembling the Jasmin code
+        if (!result.hasErrors()) {
+            var classUnit = result.ollirResult.getOllirClass();
+            var classFile = new ClassFileGenerator(result.ollirResult).build();
+            var classPath = new File(unitDir, classUnit.getClassName() + ".class").toPath();
+            try {
+                Files.write(classPath, classFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write class file '" + classPath + "'", e);
+            }
+        }
+    }
+
+    /**
+     * The results of compiling one unit.
+     */
+    public static class Result {
+
+        private List<Report> reports = new ArrayList<>();
+        private JmmParserResult parserResult;
+        private String parseTree;
+        private JmmSemanticsResult semanticsResult;
+        private OllirResult ollirResult;
+        private JasminResult jasminResult;
+        private CompilerMetrics metrics = CompilerMetrics.disabled();
+
+        /**
+         * Stage results already carry the reports of the previous stages, so the reports of the last stage are kept.
+         *
+         * @return true if any of the reports is an error
+         */
+        private boolean setReports(List<Report> stageReports) {
+            reports = new ArrayList<>(stageReports);
+            return ReportUtils.anyError(reports);
+        }
+
+        /**
+         * Adds a report of a step that runs after the pipeline, such as writing the outputs.
+         */
+        void addReport(Report report) {
+            reports.add(report);
+        }
+
+        public List<Report> getReports() {
+            return reports;
+        }
+
+        public boolean hasErrors() {
+            return ReportUtils.anyError(reports);
+        }
+
+        public JmmParserResult getParserResult() {
+            return parserResult;
+        }
+
+        /**
+         * The tree returned by the parser as text, or null if the compiler does not keep it.
+         */
+        public String getParseTree() {
+            return parseTree;
+        }
+
+        public JmmSemanticsResult getSemanticsResult() {
+            return semanticsResult;
+        }
+
+        public OllirResult getOllirResult() {
+            return ollirResult;
+        }
+
+        public JasminResult getJasminResult() {
+            return jasminResult;
+        }
+
+        public CompilerMetrics getMetrics() {
+            return metrics;
+        }
+    }
+}
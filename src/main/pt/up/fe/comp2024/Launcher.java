@@ -8,13 +8,17 @@ import pt.up.fe.comp.jmm.parser.JmmParserResult;
 import pt.up.fe.comp2024.analysis.JmmAnalysisImpl;
 import pt.up.fe.comp2024.ast.Kind;
 import pt.up.fe.comp2024.backend.JasminBackendImpl;
+import pt.up.fe.comp2024.cache.CompilationCache;
+import pt.up.fe.comp2024.metrics.CompilerMetrics;
 import pt.up.fe.comp2024.optimization.JmmOptimizationImpl;
+import pt.up.fe.comp2024.optimization.OllirPrinter;
 import pt.up.fe.comp2024.optimization_jasmin.AstToJasminImpl;
 import pt.up.fe.comp2024.parser.JmmParserImpl;
 import pt.up.fe.specs.util.SpecsIo;
 import pt.up.fe.specs.util.SpecsSystem;
 
 import java.util.Map;
+import java.util.Optional;
 
 public class Launcher {
 
@@ -23,15 +27,42 @@ public class Launcher {
 
         Map<String, String> config = CompilerConfig.parseArgs(args);
 
+        // Batch mode, compiles all the units of a directory or list file
+        var batchInput = CompilerConfig.getBatchInput(config);
+        if (batchInput.isPresent()) {
+            var units = BatchCompiler.getUnits(batchInput.get());
+            if (!new BatchCompiler(config).compile(units)) {
+                System.exit(1);
+            }
+            return;
+        }
+
         var inputFile = CompilerConfig.getInputFile(config).orElseThrow();
         if (!inputFile.isFile()) {
             throw new RuntimeException("Option '-i' expects a path to an existing input file, got '" + args[0] + "'.");
         }
         String code = SpecsIo.read(inputFile);
+        CompilerMetrics metrics = CompilerMetrics.create(config);
+
+        // Unchanged units print the outputs of their last compilation
+        var cache = CompilationCache.create(config);
+        Optional<CompilationCache.Entry> cached = cache.isPresent()
+                ? metrics.measure("cache", () -> cache.get().lookup(inputFile, code, config))
+                : Optional.empty();
+        if (cached.isPresent()) {
+            System.out.println(cached.get().getParseTree().toTree());
+            System.out.println(cached.get().getOptimizedTree().toTree());
+            System.out.println(cached.get().getOllirCode());
+            emitMetrics(metrics, config);
+            return;
+        }
+
         // Parsing stage
         JmmParserImpl parser = new JmmParserImpl();
-        JmmParserResult parserResult = parser.parse(code, config);
+        JmmParserResult parserResult = metrics.measure("parse", () -> parser.parse(code, config));
         TestUtils.noErrors(parserResult.getReports());
+        metrics.countNodes("parse", parserResult.getRootNode());
+        String parseTree = cache.isPresent() ? CompilationCache.serialize(parserResult.getRootNode()) : null;
 
 
 
@@ -40,21 +71,32 @@ public class Launcher {
 
         // Semantic Analysis stage
         JmmAnalysisImpl sema = new JmmAnalysisImpl();
-        JmmSemanticsResult semanticsResult = sema.semanticAnalysis(parserResult);
-        TestUtils.noErrors(semanticsResult.getReports());
+        sema.setMetrics(metrics);
+        JmmSemanticsResult analysedResult = metrics.measure("analysis", () -> sema.semanticAnalysis(parserResult));
+        TestUtils.noErrors(analysedResult.getReports());
 
         // Optimization stage
 
         JmmOptimizationImpl ollirGen = new JmmOptimizationImpl();
+        ollirGen.setMetrics(metrics);
         JmmOptimizationImpl optimizationConst = new JmmOptimizationImpl();
-        semanticsResult = optimizationConst.optimize(semanticsResult);
+        optimizationConst.setMetrics(metrics);
+        JmmSemanticsResult semanticsResult = metrics.measure("optimization", () -> optimizationConst.optimize(analysedResult));
+        metrics.countNodes("optimization", semanticsResult.getRootNode());
         System.out.println(semanticsResult.getRootNode().toTree());
-        OllirResult ollirResult = ollirGen.toOllir(semanticsResult);
+        OllirResult generatedResult = metrics.measure("ollir", () -> ollirGen.toOllir(semanticsResult));
+        OllirResult ollirResult = metrics.measure("ollirOptimization", () -> ollirGen.optimize(generatedResult));
 
         TestUtils.noErrors(ollirResult.getReports());
 
-        // Print OLLIR code
-        System.out.println(ollirResult.getOllirCode());
+        // Print OLLIR code, as the passes left it
+        String ollirCode = OllirPrinter.getOllirCode(ollirResult);
+        System.out.println(ollirCode);
+
+        if (cache.isPresent()) {
+            cache.get().store(inputFile, code, config, parseTree, CompilationCache.serialize(semanticsResult.getRootNode()),
+                    semanticsResult.getSymbolTable(), ollirCode);
+        }
 
         // Code generation stage
             //JasminBackendImpl jasminGen = new JasminBackendImpl();
@@ -63,6 +105,13 @@ public class Launcher {
         // Print Jasmin code
             //System.out.println(jasminResult.getJasminCode());
 
+        emitMetrics(metrics, config);
+    }
+
+    private static void emitMetrics(CompilerMetrics metrics, Map<String, String> config) {
+        if (metrics.isEnabled()) {
+            CompilerMetrics.emit(metrics.toJson(), config);
+        }
     }
 
 }
@@ -20,4 +20,14 @@ public interface AnalysisPass {
      */
     List<Report> analyze(JmmNode root, SymbolTable table);
 
+    /**
+     * The passes that must finish before this one starts. Passes that do not depend on each other run concurrently,
+     * so they must not change the AST or the symbol table.
+     *
+     * @return the classes of the passes this pass depends on
+     */
+    default List<Class<? extends AnalysisPass>> getDependencies() {
+        return List.of();
+    }
+
 }
\ No newline at end of file
@@ -4,20 +4,31 @@ import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.ast.PreorderJmmVisitor;
 import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2024.ast.KindDispatch;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiFunction;
 
 /**
  *
  */
 public abstract class AnalysisVisitor extends PreorderJmmVisitor<SymbolTable, Void> implements AnalysisPass {
 
+    // Visit of the nodes the pass has no handler for
+    private static final BiFunction<JmmNode, SymbolTable, Void> NO_VISIT = (node, table) -> null;
+
+    private final KindDispatch<SymbolTable, Void> dispatch = new KindDispatch<>();
     private List<Report> reports;
 
     public AnalysisVisitor() {
         reports = new ArrayList<>();
-        setDefaultValue(() -> null);
+        setDefaultVisit(NO_VISIT);
+    }
+
+    @Override
+    protected BiFunction<JmmNode, SymbolTable, Void> getVisit(JmmNode node) {
+        return dispatch.getVisit(node, super::getVisit);
     }
 
     protected void addReport(Report report) {
@@ -29,8 +40,25 @@ public abstract class AnalysisVisitor extends PreorderJmmVisitor<SymbolTable, Vo
     }
 
 
+    /**
+     * The handler of this pass for the given node, or null if the pass does nothing for it.
+     */
+    BiFunction<JmmNode, SymbolTable, Void> getHandler(JmmNode node) {
+        var visit = getVisit(node);
+        return visit == NO_VISIT ? null : visit;
+    }
+
+    /**
+     * Passes are reused between units, each analysis starts with no reports.
+     */
+    void startAnalysis() {
+        reports = new ArrayList<>();
+    }
+
     @Override
     public List<Report> analyze(JmmNode root, SymbolTable table) {
+        startAnalysis();
+
         // Visit the node
         visit(root, table);
 
@@ -0,0 +1,95 @@
+package pt.up.fe.comp2024.analysis;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.report.Report;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Runs several analysis visitors in a single walk of the AST, instead of one walk per pass.
+ * <p>
+ * Nodes are visited in preorder, as each visitor does on its own, and the handlers the passes have for each node are
+ * called in the order of the passes. The handlers are looked up once per kind of node. Each pass keeps its own
+ * reports, and a pass that throws is not called again, without affecting the others.
+ */
+public class FusedAnalysis {
+
+    private record Handler(int pass, BiFunction<JmmNode, SymbolTable, Void> visit) {
+    }
+
+    private final List<AnalysisVisitor> passes;
+
+    // Per analysis
+    private final Map<String, List<Handler>> handlers;
+    private final Report[] failures;
+
+    public FusedAnalysis(List<AnalysisVisitor> passes) {
+        this.passes = passes;
+        this.handlers = new HashMap<>();
+        this.failures = new Report[passes.size()];
+    }
+
+    /**
+     * @return the reports of each pass, in the order of the passes
+     */
+    public List<List<Report>> analyze(JmmNode root, SymbolTable table) {
+        handlers.clear();
+        for (int i = 0; i < passes.size(); i++) {
+            passes.get(i).startAnalysis();
+            failures[i] = null;
+        }
+
+        visit(root, table);
+
+        var reports = new ArrayList<List<Report>>();
+        for (int i = 0; i < passes.size(); i++) {
+            reports.add(failures[i] != null ? List.of(failures[i]) : passes.get(i).getReports());
+        }
+        return reports;
+    }
+
+    private void visit(JmmNode node, SymbolTable table) {
+        for (var handler : getHandlers(node)) {
+            if (failures[handler.pass()] != null) {
+                continue;
+            }
+
+            try {
+                handler.visit().apply(node, table);
+            } catch (Exception e) {
+                failures[handler.pass()] = JmmAnalysisImpl.newPassError(passes.get(handler.pass()), e);
+            }
+        }
+
+        for (var child : node.getChildren()) {
+            visit(child, table);
+        }
+    }
+
+    /**
+     * The handlers of the passes for the kind of the given node. Nodes of the same kind have the same hierarchy, which
+     * is what the visitors use to find their handlers.
+     */
+    private List<Handler> getHandlers(JmmNode node) {
+        var kindHandlers = handlers.get(node.getKind());
+        if (kindHandlers != null) {
+            return kindHandlers;
+        }
+
+        kindHandlers = new ArrayList<>();
+        for (int i = 0; i < passes.size(); i++) {
+            var visit = passes.get(i).getHandler(node);
+            if (visit != null) {
+                kindHandlers.add(new Handler(i, visit));
+            }
+        }
+
+        handlers.put(node.getKind(), kindHandlers);
+        return kindHandlers;
+    }
+}
@@ -7,17 +7,25 @@ import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.parser.JmmParserResult;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.CompilerConfig;
 import pt.up.fe.comp2024.analysis.passes.UndeclaredVariable;
+import pt.up.fe.comp2024.ast.TypeUtils;
 import pt.up.fe.comp2024.analysis.passes.InvalidDuplicates;
 import pt.up.fe.comp2024.analysis.passes.InvalidOperations;
 import pt.up.fe.comp2024.analysis.passes.InvalidTypes;
+import pt.up.fe.comp2024.metrics.CompilerMetrics;
 import pt.up.fe.comp2024.symboltable.JmmSymbolTableBuilder;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
 public class JmmAnalysisImpl implements JmmAnalysis {
     private final List<AnalysisPass> analysisPasses;
+    private CompilerMetrics metrics = CompilerMetrics.disabled();
 
     public JmmAnalysisImpl() {
         this.analysisPasses = new ArrayList<>();
@@ -27,29 +35,88 @@ public class JmmAnalysisImpl implements JmmAnalysis {
         this.analysisPasses.add(new InvalidTypes());
     }
 
+    /**
+     * Metrics where the symbol table construction and each pass are recorded.
+     */
+    public void setMetrics(CompilerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @Override
     public JmmSemanticsResult semanticAnalysis(JmmParserResult parserResult) {
 
         JmmNode rootNode = parserResult.getRootNode();
 
-        SymbolTable table = JmmSymbolTableBuilder.build(rootNode);
+        SymbolTable table = metrics.measure("analysis/symbolTable", () -> JmmSymbolTableBuilder.build(rootNode));
+        metrics.measure("analysis/types", () -> TypeUtils.annotateTypes(rootNode, table));
 
-        List<Report> reports = new ArrayList<>();
-        // Visit all nodes in the AST
+        // In fused mode, the visitors that depend on no other pass share a single walk of the AST
+        List<AnalysisVisitor> fusedPasses = new ArrayList<>();
+        if (CompilerConfig.getFusedAnalysis(parserResult.getConfig())) {
+            for (var analysisPass : analysisPasses) {
+                if (analysisPass instanceof AnalysisVisitor visitor && analysisPass.getDependencies().isEmpty()) {
+                    fusedPasses.add(visitor);
+                }
+            }
+        }
+        CompletableFuture<List<List<Report>>> fusedReports = fusedPasses.isEmpty() ? null
+                : CompletableFuture.supplyAsync(() -> metrics.measure("analysis/fused",
+                () -> new FusedAnalysis(fusedPasses).analyze(rootNode, table)), ForkJoinPool.commonPool());
+
+        // Each pass starts as soon as the passes it depends on finish
+        Map<Class<? extends AnalysisPass>, CompletableFuture<List<Report>>> passReports = new LinkedHashMap<>();
         for (var analysisPass : analysisPasses) {
-            try {
-                var passReports = analysisPass.analyze(rootNode, table);
-                reports.addAll(passReports);
-            } catch (Exception e) {
-                reports.add(Report.newError(Stage.SEMANTIC,
-                        -1,
-                        -1,
-                        "Problem while executing analysis pass '" + analysisPass.getClass() + "'",
-                        e)
-                );
+            var fusedIndex = fusedPasses.indexOf(analysisPass);
+            if (fusedIndex >= 0) {
+                passReports.put(analysisPass.getClass(), fusedReports.thenApply(reports -> reports.get(fusedIndex)));
+                continue;
             }
 
+            var dependencies = analysisPass.getDependencies().stream()
+                    .map(dependency -> getPassReports(passReports, analysisPass, dependency))
+                    .toArray(CompletableFuture[]::new);
+
+            passReports.put(analysisPass.getClass(), CompletableFuture.allOf(dependencies)
+                    .thenApplyAsync(unused -> runPass(analysisPass, rootNode, table), ForkJoinPool.commonPool()));
+        }
+
+        // Reports are merged in the order the passes were added, whichever finishes first
+        List<Report> reports = new ArrayList<>();
+        for (var futureReports : passReports.values()) {
+            reports.addAll(futureReports.join());
         }
+
         return new JmmSemanticsResult(parserResult, table, reports);
     }
+
+    private List<Report> runPass(AnalysisPass analysisPass, JmmNode rootNode, SymbolTable table) {
+        try {
+            return metrics.measure("analysis/" + analysisPass.getClass().getSimpleName(),
+                    () -> analysisPass.analyze(rootNode, table));
+        } catch (Exception e) {
+            return List.of(newPassError(analysisPass, e));
+        }
+    }
+
+    static Report newPassError(AnalysisPass analysisPass, Exception e) {
+        return Report.newError(Stage.SEMANTIC,
+                -1,
+                -1,
+                "Problem while executing analysis pass '" + analysisPass.getClass() + "'",
+                e);
+    }
+
+    /**
+     * The reports of a pass another pass depends on, which must have been added before it.
+     */
+    private static CompletableFuture<List<Report>> getPassReports(
+            Map<Class<? extends AnalysisPass>, CompletableFuture<List<Report>>> passReports, AnalysisPass analysisPass,
+            Class<? extends AnalysisPass> dependency) {
+        var dependencyReports = passReports.get(dependency);
+        if (dependencyReports == null) {
+            throw new IllegalStateException("Analysis pass '" + analysisPass.getClass() + "' depends on '" + dependency
+                    + "', which must be added before it");
+        }
+        return dependencyReports;
+    }
 }
@@ -98,8 +98,6 @@ public class InvalidOperations extends AnalysisVisitor {
     private Void visitMethodDecl(JmmNode method, SymbolTable table) {
         currentMethod = method.get("methodName");
         isStatic = NodeUtils.getBooleanAttribute(method, "isStatic", "false");
-        TypeUtils.setCurrentMethod(currentMethod);
-        TypeUtils.setStatic(NodeUtils.getBooleanAttribute(method, "isStatic", "false"));
         return null;
     }
 
@@ -1,5 +1,4 @@
 package pt.up.fe.comp2024.analysis.passes;
-import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
@@ -9,6 +8,7 @@ import pt.up.fe.comp2024.analysis.AnalysisVisitor;
 import pt.up.fe.comp2024.ast.Kind;
 import pt.up.fe.comp2024.ast.NodeUtils;
 import pt.up.fe.comp2024.ast.TypeUtils;
+import pt.up.fe.comp2024.symboltable.JmmSymbolTable;
 import pt.up.fe.specs.util.SpecsCheck;
 import pt.up.fe.comp.TestUtils;
 
@@ -83,8 +83,6 @@ public class InvalidTypes extends AnalysisVisitor {
             addReport(Report.newError(Stage.SEMANTIC, 0, 0, "Method " + currentMethod + " declared static.",null));
             return null;
         }
-        TypeUtils.setCurrentMethod(currentMethod);
-        TypeUtils.setStatic(NodeUtils.getBooleanAttribute(method, "isStatic", "false"));
         return null;
     }
 
@@ -231,34 +229,8 @@ public class InvalidTypes extends AnalysisVisitor {
         }
         if (isStatic) {
             //check if the value that is being assigned is a static field as we dont have static types we only need to check if the variable that it is accessing is in the fields, otherwise it is in the params or in the locals
-            List<Symbol> fields = table.getFields();
-            List<String> fieldNames = fields.stream().map(Symbol::getName).toList();
-            var optionalLocals = table.getLocalVariablesTry(currentMethod);
-            var optionalParams = table.getParametersTry(currentMethod);
-            //check in the locals
-            if(optionalLocals.isPresent())
-            {
-                var locals = optionalLocals.get();
-                for(Symbol s: locals)
-                {
-                    if(s.getName().equals(varAssigned))
-                    {
-                        return null; //it is in the locals
-                    }
-                }
-            }
-            if(optionalParams.isPresent())
-            {
-                var params = optionalParams.get();
-                for(Symbol s: params)
-                {
-                    if(s.getName().equals(varAssigned))
-                    {
-                        return null; //it is in the params
-                    }
-                }
-            }
-            if (fieldNames.contains(varAssigned)) {
+            var resolution = ((JmmSymbolTable) table).resolve(currentMethod, varAssigned);
+            if (resolution.isPresent() && resolution.get().origin() == JmmSymbolTable.Origin.FIELD) {
                 addReport(Report.newError(Stage.SEMANTIC, 0, 0, "Cannot assign a value to a non static field in a static method", null));
                 return null;
             }
@@ -58,10 +58,6 @@ public class UndeclaredVariable extends AnalysisVisitor {
 
         isStatic = NodeUtils.getBooleanAttribute(method, "isStatic", "false");
 
-        TypeUtils.setCurrentMethod(currentMethod);
-
-        TypeUtils.setStatic(NodeUtils.getBooleanAttribute(method, "isStatic", "false"));
-
         return null;
     }
     private Void visitVarRef(JmmNode expr, SymbolTable table)
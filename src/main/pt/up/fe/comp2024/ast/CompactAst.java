@@ -0,0 +1,366 @@
+package pt.up.fe.comp2024.ast;
+
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.NodePosition;
+import pt.up.fe.specs.util.exceptions.NotImplementedException;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An AST kept in arrays indexed by node instead of a tree of JmmNodeImpl, for inputs too large for one object (and
+ * one attribute map) per node.
+ * <p>
+ * It is built directly from the parse tree, with the same kinds, hierarchies and attributes AntlrParser gives the
+ * nodes. Nodes are numbered in preorder, the children of a node are a range of {@link #children} and its attributes
+ * a range of {@link #attributeNames} and {@link #attributeValues}, with the values interned. Positions are kept as
+ * ints. The nodes are used through {@link CompactNode} views, created the first time each node is reached.
+ */
+public class CompactAst {
+
+    private static final int NO_PARENT = -1;
+
+    /**
+     * What all the nodes of a parse tree class have in common.
+     */
+    private record Shape(String kind, List<String> hierarchy, List<Field> fields) {
+    }
+
+    /**
+     * A node of the parse tree still to be numbered, with its parent and the slot of its index in the children.
+     */
+    private record Pending(ParserRuleContext node, int parent, int slot) {
+    }
+
+    private static final Map<Class<?>, Shape> SHAPES = new ConcurrentHashMap<>();
+
+    private Shape[] shapes;
+
+    // Per node
+    private int size;
+    private int[] kinds;
+    private int[] parents;
+    private int[] childStart;
+    private int[] childCount;
+    private int[] lineStart;
+    private int[] colStart;
+    private int[] lineEnd;
+    private int[] colEnd;
+    private int[] attributeStart;
+
+    private int[] children;
+    private String[] attributeNames;
+    private Object[] attributeValues;
+    private int numAttributes;
+
+    private AtomicReferenceArray<CompactNode> views;
+
+    private CompactAst(int capacity) {
+        this.kinds = new int[capacity];
+        this.parents = new int[capacity];
+        this.childStart = new int[capacity];
+        this.childCount = new int[capacity];
+        this.lineStart = new int[capacity];
+        this.colStart = new int[capacity];
+        this.lineEnd = new int[capacity];
+        this.colEnd = new int[capacity];
+        this.attributeStart = new int[capacity + 1];
+        this.children = new int[capacity];
+        this.attributeNames = new String[capacity];
+        this.attributeValues = new Object[capacity];
+    }
+
+    /**
+     * Converts the parse tree returned by the given parser.
+     */
+    public static CompactAst build(ParseTree root, Parser parser) {
+        var ast = new CompactAst(Math.max(16, parser.getTokenStream().size()));
+        ast.convert(root, parser);
+        return ast;
+    }
+
+    public JmmNode getRoot() {
+        return getNode(0);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * The view of the given node, which is the same object every time.
+     */
+    CompactNode getNode(int index) {
+        var node = views.get(index);
+        if (node != null) {
+            return node;
+        }
+
+        // Views may be requested concurrently, only one of them is kept so that nodes compare by identity
+        views.compareAndSet(index, null, new CompactNode(this, index));
+        return views.get(index);
+    }
+
+    CompactNode getParent(int index) {
+        var parent = parents[index];
+        return parent == NO_PARENT ? null : getNode(parent);
+    }
+
+    int getNumChildren(int index) {
+        return childCount[index];
+    }
+
+    CompactNode getChild(int index, int child) {
+        if (child < 0 || child >= childCount[index]) {
+            throw new IndexOutOfBoundsException("Index " + child + " out of bounds for length " + childCount[index]);
+        }
+
+        return getNode(children[childStart[index] + child]);
+    }
+
+    String getKind(int index) {
+        return shapes[kinds[index]].kind();
+    }
+
+    List<String> getHierarchy(int index) {
+        return shapes[kinds[index]].hierarchy();
+    }
+
+    boolean hasAttribute(int index, String attribute) {
+        return getPosition(index, attribute) != null || findAttribute(index, attribute) >= 0;
+    }
+
+    /**
+     * @return the value of the attribute, or null if the node does not have it
+     */
+    Object getAttribute(int index, String attribute) {
+        var position = getPosition(index, attribute);
+        if (position != null) {
+            return position;
+        }
+
+        var attributeIndex = findAttribute(index, attribute);
+        return attributeIndex < 0 ? null : attributeValues[attributeIndex];
+    }
+
+    /**
+     * The attributes of the node as a new map, in the order AntlrToJmmNodeConverter adds them to a JmmNodeImpl so
+     * that they are listed in the same order.
+     */
+    Map<String, Object> getAttributes(int index) {
+        var attributes = new HashMap<String, Object>();
+        attributes.put(NodePosition.LINE_START.getKey(), Integer.toString(lineStart[index]));
+        attributes.put(NodePosition.COL_START.getKey(), Integer.toString(colStart[index]));
+        attributes.put(NodePosition.LINE_END.getKey(), Integer.toString(lineEnd[index]));
+        attributes.put(NodePosition.COL_END.getKey(), Integer.toString(colEnd[index]));
+
+        for (int i = attributeStart[index]; i < attributeStart[index + 1]; i++) {
+            attributes.put(attributeNames[i], attributeValues[i]);
+        }
+
+        return attributes;
+    }
+
+    private String getPosition(int index, String attribute) {
+        return switch (attribute) {
+            case "lineStart" -> Integer.toString(lineStart[index]);
+            case "colStart" -> Integer.toString(colStart[index]);
+            case "lineEnd" -> Integer.toString(lineEnd[index]);
+            case "colEnd" -> Integer.toString(colEnd[index]);
+            default -> null;
+        };
+    }
+
+    private int findAttribute(int index, String attribute) {
+        for (int i = attributeStart[index]; i < attributeStart[index + 1]; i++) {
+            if (attributeNames[i].equals(attribute)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Numbers the nodes in preorder with an explicit stack, since the parse trees of large inputs can be deeper than
+     * the call stack allows.
+     */
+    private void convert(ParseTree root, Parser parser) {
+        var shapeIds = new IdentityHashMap<Shape, Integer>();
+        var shapeList = new ArrayList<Shape>();
+        var interned = new HashMap<String, String>();
+
+        var pending = new ArrayDeque<Pending>();
+        pending.push(new Pending((ParserRuleContext) root, NO_PARENT, -1));
+        var numChildren = 0;
+
+        while (!pending.isEmpty()) {
+            var entry = pending.pop();
+            var node = entry.node();
+            var index = size++;
+            ensureNodeCapacity(size);
+
+            parents[index] = entry.parent();
+            if (entry.parent() != NO_PARENT) {
+                children[entry.slot()] = index;
+            }
+
+            var shape = SHAPES.computeIfAbsent(node.getClass(), CompactAst::newShape);
+            kinds[index] = shapeIds.computeIfAbsent(shape, s -> {
+                shapeList.add(s);
+                return shapeList.size() - 1;
+            });
+
+            var start = parser.getTokenStream().get(node.getSourceInterval().a);
+            var end = parser.getTokenStream().get(node.getSourceInterval().b);
+            lineStart[index] = start.getLine();
+            colStart[index] = start.getCharPositionInLine();
+            lineEnd[index] = end.getLine();
+            colEnd[index] = end.getCharPositionInLine();
+
+            addAttributes(index, node, shape, interned);
+
+            // Terminals are not nodes of the AST
+            var nodeChildren = new ArrayList<ParserRuleContext>();
+            for (int i = 0; i < node.getChildCount(); i++) {
+                if (!(node.getChild(i) instanceof TerminalNode)) {
+                    nodeChildren.add((ParserRuleContext) node.getChild(i));
+                }
+            }
+
+            childStart[index] = numChildren;
+            childCount[index] = nodeChildren.size();
+            numChildren += nodeChildren.size();
+            if (numChildren > children.length) {
+                children = Arrays.copyOf(children, Math.max(numChildren, children.length * 2));
+            }
+
+            for (int i = nodeChildren.size() - 1; i >= 0; i--) {
+                pending.push(new Pending(nodeChildren.get(i), index, childStart[index] + i));
+            }
+        }
+
+        shapes = shapeList.toArray(new Shape[0]);
+        kinds = Arrays.copyOf(kinds, size);
+        parents = Arrays.copyOf(parents, size);
+        childStart = Arrays.copyOf(childStart, size);
+        childCount = Arrays.copyOf(childCount, size);
+        lineStart = Arrays.copyOf(lineStart, size);
+        colStart = Arrays.copyOf(colStart, size);
+        lineEnd = Arrays.copyOf(lineEnd, size);
+        colEnd = Arrays.copyOf(colEnd, size);
+        attributeStart = Arrays.copyOf(attributeStart, size + 1);
+        children = Arrays.copyOf(children, numChildren);
+        attributeNames = Arrays.copyOf(attributeNames, numAttributes);
+        attributeValues = Arrays.copyOf(attributeValues, numAttributes);
+        views = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * Adds the public fields of the node as attributes, as AntlrToJmmNodeConverter does.
+     */
+    private void addAttributes(int index, ParserRuleContext node, Shape shape, Map<String, String> interned) {
+        attributeStart[index] = numAttributes;
+
+        for (var field : shape.fields()) {
+            Object value;
+            try {
+                value = field.get(node);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Could not access field '" + field.getName() + "' from node " + node);
+            }
+
+            // Tokens that did not match are not attributes
+            if (value == null && field.getType().isAssignableFrom(Token.class)) {
+                continue;
+            }
+
+            if (numAttributes == attributeNames.length) {
+                attributeNames = Arrays.copyOf(attributeNames, numAttributes * 2);
+                attributeValues = Arrays.copyOf(attributeValues, numAttributes * 2);
+            }
+
+            attributeNames[numAttributes] = field.getName();
+            attributeValues[numAttributes] = toAttributeValue(value, interned);
+            numAttributes++;
+        }
+
+        attributeStart[index + 1] = numAttributes;
+    }
+
+    private static Object toAttributeValue(Object value, Map<String, String> interned) {
+        if (value instanceof Token token) {
+            return interned.computeIfAbsent(token.getText(), text -> text);
+        }
+
+        if (value instanceof List<?> list) {
+            var values = new ArrayList<>(list.size());
+            for (var element : list) {
+                values.add(toAttributeValue(element, interned));
+            }
+            return values;
+        }
+
+        if (value instanceof ParseTree) {
+            throw new NotImplementedException("Attributes that are nodes of the parse tree");
+        }
+
+        return value;
+    }
+
+    private void ensureNodeCapacity(int capacity) {
+        if (capacity <= kinds.length) {
+            return;
+        }
+
+        var newCapacity = Math.max(capacity, kinds.length * 2);
+        kinds = Arrays.copyOf(kinds, newCapacity);
+        parents = Arrays.copyOf(parents, newCapacity);
+        childStart = Arrays.copyOf(childStart, newCapacity);
+        childCount = Arrays.copyOf(childCount, newCapacity);
+        lineStart = Arrays.copyOf(lineStart, newCapacity);
+        colStart = Arrays.copyOf(colStart, newCapacity);
+        lineEnd = Arrays.copyOf(lineEnd, newCapacity);
+        colEnd = Arrays.copyOf(colEnd, newCapacity);
+        attributeStart = Arrays.copyOf(attributeStart, newCapacity + 1);
+    }
+
+    /**
+     * The kind, hierarchy and public fields of a parse tree class, taken from the class and its superclasses up to
+     * ParserRuleContext, most specific first.
+     */
+    private static Shape newShape(Class<?> nodeClass) {
+        var hierarchy = new ArrayList<String>();
+        var fields = new ArrayList<Field>();
+
+        for (var current = nodeClass; !current.equals(ParserRuleContext.class); current = current.getSuperclass()) {
+            var className = current.getSimpleName();
+            if (!className.endsWith("Context")) {
+                throw new RuntimeException("Expected classname to end with 'Context' " + className);
+            }
+            hierarchy.add(className.substring(0, className.length() - "Context".length()));
+
+            for (var field : current.getDeclaredFields()) {
+                if (Modifier.isPublic(field.getModifiers())) {
+                    fields.add(field);
+                }
+            }
+        }
+
+        return new Shape(hierarchy.get(0), List.copyOf(hierarchy), List.copyOf(fields));
+    }
+}
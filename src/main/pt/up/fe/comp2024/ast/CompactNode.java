@@ -0,0 +1,261 @@
+package pt.up.fe.comp2024.ast;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp.jmm.ast.NodePosition;
+import pt.up.fe.specs.util.SpecsCheck;
+import pt.up.fe.specs.util.SpecsEnums;
+import pt.up.fe.specs.util.SpecsSystem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A node of a {@link CompactAst}.
+ * <p>
+ * Reads go to the arrays of the AST. The first time the attributes, the children or the parent of the node are
+ * changed, they are copied to the view and changed there, so the AST itself is never modified. Nodes created
+ * elsewhere (e.g. by the optimizations) can be children of these nodes, and copies of these nodes are JmmNodeImpl.
+ */
+public class CompactNode implements JmmNode {
+
+    private static final Set<String> ATTR_IGNORE = new HashSet<>(SpecsEnums.getKeys(NodePosition.class));
+
+    // Gson builds a reflective adapter for the class of each node even if JmmSerializer writes it, and it cannot
+    // reflect on the arrays of the AST
+    private final transient CompactAst ast;
+    private final int index;
+
+    // Null until changed
+    private Map<String, Object> attributes;
+    private List<JmmNode> children;
+
+    private JmmNode parent;
+    private boolean parentChanged;
+
+    CompactNode(CompactAst ast, int index) {
+        this.ast = ast;
+        this.index = index;
+    }
+
+    @Override
+    public String getKind() {
+        return ast.getKind(index);
+    }
+
+    @Override
+    public Collection<String> getHierarchy() {
+        return ast.getHierarchy(index);
+    }
+
+    @Override
+    public Collection<String> getAttributes() {
+        return attributes != null ? attributes.keySet() : ast.getAttributes(index).keySet();
+    }
+
+    @Override
+    public boolean hasAttribute(String attribute) {
+        return attributes != null ? attributes.containsKey(attribute) : ast.hasAttribute(index, attribute);
+    }
+
+    @Override
+    public Object getObject(String attribute) {
+        var value = attributes != null ? attributes.get(attribute) : ast.getAttribute(index, attribute);
+
+        SpecsCheck.checkNotNull(value, () -> "Node " + getKind() + " does not contain attribute '" + attribute + "'");
+
+        return value;
+    }
+
+    @Override
+    public Object putObject(String attribute, Object value) {
+        if (attributes == null) {
+            attributes = ast.getAttributes(index);
+        }
+
+        return attributes.put(attribute, value);
+    }
+
+    @Deprecated
+    @Override
+    public JmmNode getJmmParent() {
+        return parentChanged ? parent : ast.getParent(index);
+    }
+
+    @Override
+    public void setParent(JmmNode parent) {
+        this.parent = parent;
+        this.parentChanged = true;
+    }
+
+    @Override
+    public void removeParent() {
+        setParent(null);
+    }
+
+    @Override
+    public List<JmmNode> getChildren() {
+        if (children != null) {
+            return new ArrayList<>(children);
+        }
+
+        var numChildren = ast.getNumChildren(index);
+        var copy = new ArrayList<JmmNode>(numChildren);
+        for (int i = 0; i < numChildren; i++) {
+            copy.add(ast.getChild(index, i));
+        }
+        return copy;
+    }
+
+    @Override
+    public int getNumChildren() {
+        return children != null ? children.size() : ast.getNumChildren(index);
+    }
+
+    @Override
+    public JmmNode getChild(int index) {
+        return children != null ? children.get(index) : ast.getChild(this.index, index);
+    }
+
+    @Override
+    public JmmNode getJmmChild(int index) {
+        return getChild(index);
+    }
+
+    @Override
+    public int getIndexOfSelf() {
+        var parent = getParent();
+        if (parent == null) {
+            return -1;
+        }
+
+        for (int i = 0; i < parent.getNumChildren(); i++) {
+            if (parent.getChild(i) == this) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private List<JmmNode> getMutableChildren() {
+        if (children == null) {
+            children = getChildren();
+        }
+
+        return children;
+    }
+
+    @Override
+    public void add(JmmNode child, int index) {
+        getMutableChildren().add(index, child);
+        child.setParent(this);
+    }
+
+    @Override
+    public void setChild(JmmNode newNode, int index) {
+        var children = getMutableChildren();
+        var currentChild = children.get(index);
+        var newNodeParent = newNode.getParent();
+
+        // If the new node is in a tree, the current child takes its place, as in JmmNodeImpl
+        if (newNodeParent == this) {
+            children.set(children.indexOf(newNode), currentChild);
+            children.set(index, newNode);
+            return;
+        }
+
+        var newNodeIndex = -1;
+        if (newNodeParent != null) {
+            newNodeIndex = newNode.getIndexOfSelf();
+            newNodeParent.removeJmmChild(newNodeIndex);
+        }
+
+        children.set(index, newNode);
+        newNode.setParent(this);
+        currentChild.removeParent();
+
+        if (newNodeParent != null) {
+            newNodeParent.add(currentChild, newNodeIndex);
+        }
+    }
+
+    @Override
+    public JmmNode removeJmmChild(int index) {
+        var children = getMutableChildren();
+        if (index >= children.size()) {
+            System.out.println("[WARNING] Tried to remove child at index " + index + ", but node only has "
+                    + children.size() + " children");
+            return null;
+        }
+
+        var removedChild = children.remove(index);
+        removedChild.removeParent();
+        return removedChild;
+    }
+
+    @Deprecated
+    @Override
+    public int removeJmmChild(JmmNode node) {
+        for (int i = 0; i < getNumChildren(); i++) {
+            if (getChild(i) == node) {
+                removeJmmChild(i);
+                return i;
+            }
+        }
+
+        System.out.println("[WARNING] Tried to remove child from node, but could not find it.\nChild:" + node
+                + "\nParent:" + this);
+        return -1;
+    }
+
+    @Override
+    public JmmNode detach() {
+        var parent = getParent();
+        if (parent == null) {
+            System.out.println("[WARNING] Tried to remove itself from the tree, but node has no parent");
+            return this;
+        }
+
+        parent.removeChild(this);
+        return this;
+    }
+
+    @Override
+    public JmmNode copyNode() {
+        var copy = new JmmNodeImpl(getKind(), this);
+        copy.setHierarchy(getHierarchy());
+        return copy;
+    }
+
+    /**
+     * The same as the toString of JmmNodeImpl, so that both trees print the same.
+     */
+    @Override
+    public String toString() {
+        var string = new StringBuilder(getKind());
+
+        var attrs = getAttributes().stream()
+                .filter(attr -> !ATTR_IGNORE.contains(attr))
+                .collect(Collectors.toList());
+
+        if (!attrs.isEmpty()) {
+            string.append(attrs.stream()
+                    .map(attr -> attr + ": " + get(attr))
+                    .collect(Collectors.joining(", ", " (", ")")));
+        }
+
+        if (SpecsSystem.isDebug()) {
+            string.append(" ").append(get(NodePosition.LINE_START.getKey())).append(":")
+                    .append(get(NodePosition.COL_START.getKey())).append("->")
+                    .append(get(NodePosition.LINE_END.getKey())).append(":")
+                    .append(get(NodePosition.COL_END.getKey()));
+        }
+
+        return string.toString();
+    }
+}
@@ -4,6 +4,8 @@ import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.specs.util.SpecsStrings;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 public enum Kind {
@@ -47,12 +49,24 @@ public enum Kind {
 
     CLASS_TYPE,
     STRING_TYPE,
+    ARRAY_TYPE,
+    VAR_ARGS_TYPE,
+    VOID_TYPE,
     VAR_REF, IMPORT_DECL(), EXPR_STMT(), VAR_REF_EXPR();
 
-    public static final Set<Kind> TYPES = Set.of(INT_TYPE, BOOLEAN_TYPE, CLASS_TYPE, STRING_TYPE);
+    public static final Set<Kind> TYPES = Set.of(INT_TYPE, BOOLEAN_TYPE, CLASS_TYPE, STRING_TYPE, ARRAY_TYPE,
+            VAR_ARGS_TYPE, VOID_TYPE);
     private static final Set<Kind> STATEMENTS = Set.of(ASSIGN_STMT, RETURN_STMT);
     private static final Set<Kind> EXPRESSIONS = Set.of(BINARY_EXPR, INTEGER_LITERAL,VAR_REF,VAR_EXPR);
 
+    private static final Map<String, Kind> BY_NODE_NAME = new HashMap<>();
+
+    static {
+        for (Kind k : Kind.values()) {
+            BY_NODE_NAME.put(k.getNodeName(), k);
+        }
+    }
+
     private final String name;
 
     private Kind(String name) {
@@ -65,12 +79,18 @@ public enum Kind {
 
     public static Kind fromString(String kind) {
 
-        for (Kind k : Kind.values()) {
-            if (k.getNodeName().equals(kind)) {
-                return k;
-            }
+        var k = BY_NODE_NAME.get(kind);
+        if (k == null) {
+            throw new RuntimeException("Could not convert string '" + kind + "' to a Kind");
         }
-        throw new RuntimeException("Could not convert string '" + kind + "' to a Kind");
+        return k;
+    }
+
+    /**
+     * @return the kind with the given node name, or null if there is none
+     */
+    static Kind fromStringOrNull(String kind) {
+        return BY_NODE_NAME.get(kind);
     }
 
     public String getNodeName() {
@@ -0,0 +1,43 @@
+package pt.up.fe.comp2024.ast;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Visit methods of a visitor indexed by the ordinal of the {@link Kind} of the nodes, so that dispatching a node does
+ * not look up each name of its hierarchy.
+ * <p>
+ * The visit method of a kind is found by the visitor the first time a node of that kind is visited, and reused for
+ * every other node of the kind, since they all have the same hierarchy. Visitors use it by overriding getVisit, and
+ * must register all their visit methods before visiting.
+ */
+public class KindDispatch<D, R> {
+
+    private final BiFunction<JmmNode, D, R>[] visits;
+
+    @SuppressWarnings("unchecked")
+    public KindDispatch() {
+        this.visits = new BiFunction[Kind.values().length];
+    }
+
+    /**
+     * @param lookup how the visitor finds the visit method of a node, used once per kind
+     */
+    public BiFunction<JmmNode, D, R> getVisit(JmmNode node, Function<JmmNode, BiFunction<JmmNode, D, R>> lookup) {
+        var kind = Kind.fromStringOrNull(node.getKind());
+
+        // Nodes created with other kinds are dispatched by the visitor
+        if (kind == null) {
+            return lookup.apply(node);
+        }
+
+        var visit = visits[kind.ordinal()];
+        if (visit == null) {
+            visit = lookup.apply(node);
+            visits[kind.ordinal()] = visit;
+        }
+        return visit;
+    }
+}
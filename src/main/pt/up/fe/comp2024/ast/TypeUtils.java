@@ -1,47 +1,79 @@
 package pt.up.fe.comp2024.ast;
 
-import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2024.analysis.passes.UndeclaredVariable;
+import pt.up.fe.comp2024.symboltable.JmmSymbolTable;
+
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
 
 
 public class TypeUtils {
 
     private static final String INT_TYPE_NAME = "int";
 
-    private static String currentMethod;
-
-    private static Boolean isStatic;
     private static final String BOOLEAN_TYPE_NAME = "boolean";
 
     private static final String STRING_TYPE_NAME = "String";
 
+    // Kinds of the nodes typed by annotateTypes
+    private static final Set<Kind> ANNOTATED_KINDS = EnumSet.of(Kind.BINARY_EXPR, Kind.VAR_REF,
+            Kind.INTEGER_LITERAL, Kind.BOOLEAN_LITERAL, Kind.ASSIGN_STMT, Kind.NEW_OBJECT_EXPR,
+            Kind.METHOD_CALL_EXPR, Kind.ARRAY_CREATION_EXPR, Kind.ARRAY_ACCESS_EXPR, Kind.THIS_EXPR,
+            Kind.NEW_ARRAY_EXPR, Kind.ARRAY_LENGTH_EXPR, Kind.UNARY_EXPR, Kind.PARENTHESIS_EXPR,
+            Kind.ARRAY_ASSIGN_STMT);
+
     public static String getIntTypeName() {
         return INT_TYPE_NAME;
     }
 
-    public static void setCurrentMethod(String methodName) {
-        currentMethod = methodName;
-    }
+    /**
+     * Computes, once, the type of every expression and assignment in the methods of the unit, so that the passes and
+     * stages that follow only look them up. Nodes created afterwards (e.g. by the optimizations) are typed the first
+     * time their type is asked for.
+     */
+    public static void annotateTypes(JmmNode root, SymbolTable table) {
+        for (var method : root.getDescendants(Kind.METHOD_DECL)) {
+            for (var node : method.getDescendants()) {
+                if (!ANNOTATED_KINDS.contains(Kind.fromStringOrNull(node.getKind()))) {
+                    continue;
+                }
 
-    public static void setStatic(Boolean isSta) {
-        isStatic = isSta;
+                try {
+                    getExprType(node, table);
+                } catch (RuntimeException e) {
+                    // Invalid programs may have expressions without a type, they are left to the passes that report
+                    // them
+                }
+            }
+        }
     }
 
     /**
      * Gets the {@link Type} of an arbitrary expression.
+     * <p>
+     * The type of each node is computed only once, and kept in the symbol table.
      *
      * @param expr
      * @param table
      * @return
      */
     public static Type getExprType(JmmNode expr, SymbolTable table) {
+        var exprTypes = ((JmmSymbolTable) table).getExprTypes();
+        var type = exprTypes.get(expr);
+        if (type == null) {
+            type = computeExprType(expr, table);
+            exprTypes.put(expr, type);
+        }
+        return type;
+    }
 
-
+    private static Type computeExprType(JmmNode expr, SymbolTable table) {
         var kind = Kind.fromString(expr.getKind());
 
         Type type = switch (kind) {
@@ -159,135 +191,34 @@ public class TypeUtils {
 
     private static Type getAssignType(JmmNode assign, SymbolTable table)
     {
-        var left = assign.get("value");
-        var optionalLocals = table.getLocalVariablesTry(currentMethod);
-        var fields = table.getFields();
-        var optionalParams = table.getParametersTry(currentMethod);
-        var imports = table.getImports();
-        if(optionalLocals.isPresent())
-        {
-            var locals = optionalLocals.get();
-            for(Symbol s : locals)
-            {
-                if (s.getName().equals(left))
-                {
-                    return s.getType();
-                }
-            }
-        }
-        if(optionalParams.isPresent()) {
-            var params = optionalParams.get();
-            for (Symbol s : params) {
-                if (s.getName().equals(left)) {
-                    return s.getType();
-                }
-            }
-        }
-        for(Symbol s : fields)
-        {
-            if (s.getName().equals(left))
-            {
-                return s.getType();
-            }
-        }
-        for (String s: imports)
-        {
-            if (s.equals(left))
-            {
-                return new Type(left, false);
-            }
-        }
-        return new Type("invalid", false);
+        return getNameType(assign, assign.get("value"), table);
     }
 
 
     private static Type getVarExprType(JmmNode varRefExpr, SymbolTable table) {
-
-        // Get the method name
-        var kind = Kind.fromString(varRefExpr.getKind());
-        var varName = varRefExpr.get("value");
-        var imports = table.getImports();
-        //always check the last substring of the imports list;
-        for(String importItem : imports)
-        {
-            int lastDotIndex = importItem.lastIndexOf('.');
-            if(lastDotIndex != -1)
-            {
-                String lastSubstring = importItem.substring(lastDotIndex + 1);
-                if(lastSubstring.equals(varName))
-                {
-                    return new Type(importItem, false);
-                }
-            }
-        }
-        var definedAsDeclaration = getVarDeclType(varRefExpr,table);
-        if (definedAsDeclaration != null)
-        {
-            return definedAsDeclaration;
-        }
-        var optionalParameters = table.getParametersTry(currentMethod);
-        if(optionalParameters.isPresent()) {
-            var parameters = optionalParameters.get();
-            for (Symbol s : parameters) {
-                if (s.getName().equals(varName)) {
-                    return s.getType();
-                }
-            }
-        }
-        if(!currentMethod.equals("main"))
-        {
-            //look in the fields
-            var fields = table.getFields();
-            for(Symbol s : fields)
-            {
-                if(s.getName().equals(varName))
-                {
-                    return s.getType();
-                }
-            }
-        }
-
-        return new Type("invalid",false);
+        return getNameType(varRefExpr, varRefExpr.get("value"), table);
     }
 
     private static Type getVarDeclType(JmmNode varDecl, SymbolTable table) {
-        var optionalLocals = table.getLocalVariablesTry(currentMethod);
-        var fields = table.getFields();
-        var optionalParams = table.getParametersTry(currentMethod);
-        var imports = table.getImports();
-        var varName = varDecl.get("value");
-        if(optionalLocals.isPresent()) {
-            var locals = optionalLocals.get();
-            for (Symbol s : locals) {
-                if (s.getName().equals(varName)) {
-                    return s.getType();
-                }
-            }
-        }
-        if(optionalParams.isPresent()) {
-            var params = optionalParams.get();
-            for (Symbol s : params) {
-                if (s.getName().equals(varName)) {
-                    return s.getType();
-                }
-            }
-        }
-        for(Symbol s : fields)
-        {
-            if (s.getName().equals(varName))
-            {
-                return s.getType();
-            }
-        }
+        return getNameType(varDecl, varDecl.get("value"), table);
+    }
 
-        for (String s: imports)
-        {
-            if (s.equals(varName))
-            {
-                return new Type(varName, false);
-            }
-        }
-        return new Type("invalid", false);
+    /**
+     * The type of the local, param, field or imported class a name used by the given node refers to.
+     */
+    private static Type getNameType(JmmNode node, String name, SymbolTable table) {
+        return resolve(node, name, table)
+                .map(resolution -> resolution.symbol().getType())
+                .orElseGet(() -> new Type("invalid", false));
+    }
+
+    /**
+     * Resolves a name used by the given node in the method that contains it, see
+     * {@link JmmSymbolTable#resolve(String, String)}.
+     */
+    public static Optional<JmmSymbolTable.Resolution> resolve(JmmNode node, String name, SymbolTable table) {
+        var method = node.getAncestor(Kind.METHOD_DECL).map(methodDecl -> methodDecl.get("methodName")).orElse(null);
+        return ((JmmSymbolTable) table).resolve(method, name);
     }
 
 
@@ -0,0 +1,81 @@
+package pt.up.fe.comp2024.backend;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.specs.comp.ollir.Method;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+
+/**
+ * Generates the bytes of a class file from an OllirResult, without going through Jasmin.
+ * <p>
+ * Instructions are selected, and rewritten by the peephole rules with -o, by {@link JasminGenerator}, and then
+ * emitted to ASM through a {@link MethodVisitorEmitter}, so the class file has the same instructions as the Jasmin
+ * code. The constant pool and the limits of each method are computed by ASM.
+ * <p>
+ * Class files have the version Jasmin writes, which has no StackMapTable frames: the JVM infers the types of the
+ * locals as it verifies the class, loading the classes it needs, which the compiler cannot do for the classes of the
+ * program (e.g. to merge a class with its superclass).
+ */
+public class ClassFileGenerator {
+
+    private final OllirResult ollirResult;
+
+    public ClassFileGenerator(OllirResult ollirResult) {
+        this.ollirResult = ollirResult;
+    }
+
+    public byte[] build() {
+        var classUnit = ollirResult.getOllirClass();
+        var jasmin = new JasminGenerator(ollirResult);
+        jasmin.setClassUnit(classUnit);
+
+        var classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+
+        classWriter.visit(Opcodes.V1_1, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, jasmin.getClassName(), null,
+                jasmin.getSuperClass(), null);
+
+        for (var field : classUnit.getFields()) {
+            classWriter.visitField(Opcodes.ACC_PUBLIC, field.getFieldName(), jasmin.getDescriptor(field.getFieldType()),
+                    null, null).visitEnd();
+        }
+
+        // default constructor
+        var constructor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, jasmin.getSuperClass(), "<init>", "()V", false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        for (var method : classUnit.getMethods()) {
+            if (method.isConstructMethod()) {
+                continue;
+            }
+
+            var methodVisitor = classWriter.visitMethod(getAccess(method), method.getMethodName(),
+                    jasmin.getMethodDescriptor(method), null, null);
+
+            methodVisitor.visitCode();
+            jasmin.generateMethodBody(method).emit(new MethodVisitorEmitter(methodVisitor));
+
+            // Computed by ASM
+            methodVisitor.visitMaxs(0, 0);
+            methodVisitor.visitEnd();
+        }
+
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    private static int getAccess(Method method) {
+        var access = switch (method.getMethodAccessModifier()) {
+            case PUBLIC -> Opcodes.ACC_PUBLIC;
+            case PRIVATE -> Opcodes.ACC_PRIVATE;
+            case PROTECTED -> Opcodes.ACC_PROTECTED;
+            case DEFAULT -> 0;
+        };
+
+        return method.isStaticMethod() ? access | Opcodes.ACC_STATIC : access;
+    }
+}
@@ -0,0 +1,156 @@
+package pt.up.fe.comp2024.backend;
+
+/**
+ * An instruction or label of a method body, as it was emitted through an {@link InstructionEmitter}.
+ * <p>
+ * There is one record for each method of the emitter, holding its arguments, so a body can be kept in a
+ * {@link MethodBody}, rewritten and then emitted again to any emitter.
+ */
+public sealed interface Insn {
+
+    /**
+     * Calls the method of the emitter that emitted this instruction, with the same arguments.
+     */
+    void emit(InstructionEmitter out);
+
+    /**
+     * The opcode of the instruction, or null for a label.
+     */
+    Opcode opcode();
+
+    /**
+     * The number of values the instruction pushes minus the number it pops.
+     */
+    default int getStackEffect() {
+        return opcode().getStackEffect();
+    }
+
+    /**
+     * If the instruction is the given one.
+     */
+    default boolean is(Opcode opcode) {
+        return opcode() == opcode;
+    }
+
+    record SimpleInsn(Opcode opcode) implements Insn {
+
+        @Override
+        public void emit(InstructionEmitter out) {
+            out.insn(opcode);
+        }
+    }
+
+    record VarInsn(Opcode opcode, int register) implements Insn {
+
+        @Override
+        public void emit(InstructionEmitter out) {
+            out.varInsn(opcode, register);
+        }
+    }
+
+    record IntInsn(Opcode opcode, int operand) implements Insn {
+
+        @Override
+        public void emit(InstructionEmitter out) {
+            out.intInsn(opcode, operand);
+        }
+    }
+
+    record LdcInsn(int value) implements Insn {
+
+        @Override
+        public void emit(InstructionEmitter out) {
+            out.ldc(value);
+        }
+
+        @Override
+        public Opcode opcode() {
+            return Opcode.LDC;
+        }
+    }
+
+    record TypeInsn(Opcode opcode, String type) implements Insn {
+
+        @Override
+        public void emit(InstructionEmitter out) {
+            out.typeInsn(opcode, type);
+        }
+    }
+
+    record IincInsn(int register, int increment) implements Insn {
+
+        @Override
+        public void emit(InstructionEmitter out) {
+            out.iinc(register, increment);
+        }
+
+        @Override
+        public Opcode opcode() {
+            return Opcode.IINC;
+        }
+    }
+
+    record FieldInsn(Opcode opcode, String owner, String name, String descriptor) implements Insn {
+
+        @Override
+        public void emit(InstructionEmitter out) {
+            out.fieldInsn(opcode, owner, name, descriptor);
+        }
+    }
+
+    record MethodInsn(Opcode opcode, String owner, String name, String descriptor) implements Insn {
+
+        @Override
+        public void emit(InstructionEmitter out) {
+            out.methodInsn(opcode, owner, name, descriptor);
+        }
+
+        /**
+         * Pops the receiver and the arguments, and pushes the result unless the method returns void.
+         */
+        @Override
+        public int getStackEffect() {
+            int end = descriptor.indexOf(')');
+
+            int arguments = 0;
+            for (int i = 1; i < end; i++) {
+                while (descriptor.charAt(i) == '[') {
+                    i++;
+                }
+                if (descriptor.charAt(i) == 'L') {
+                    i = descriptor.indexOf(';', i);
+                }
+                arguments++;
+            }
+
+            var result = descriptor.charAt(end + 1) == 'V' ? 0 : 1;
+            return opcode.getStackEffect() - arguments + result;
+        }
+    }
+
+    record JumpInsn(Opcode opcode, String label) implements Insn {
+
+        @Override
+        public void emit(InstructionEmitter out) {
+            out.jumpInsn(opcode, label);
+        }
+    }
+
+    record Label(String name) implements Insn {
+
+        @Override
+        public void emit(InstructionEmitter out) {
+            out.label(name);
+        }
+
+        @Override
+        public Opcode opcode() {
+            return null;
+        }
+
+        @Override
+        public int getStackEffect() {
+            return 0;
+        }
+    }
+}
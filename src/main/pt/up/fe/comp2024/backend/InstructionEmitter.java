@@ -0,0 +1,42 @@
+package pt.up.fe.comp2024.backend;
+
+/**
+ * Receives the instructions of a method body as {@link JasminGenerator} selects them.
+ * <p>
+ * {@link MethodBody} keeps them so they can be rewritten, {@link JasminWriter} writes them as Jasmin code, and
+ * {@link MethodVisitorEmitter} passes them to ASM to build a class file. The methods follow the kinds of operands of the instructions, as in ASM's MethodVisitor.
+ */
+public interface InstructionEmitter {
+
+    /**
+     * An instruction without operands, e.g. 'iadd'.
+     */
+    void insn(Opcode opcode);
+
+    /**
+     * A load or store of a register.
+     */
+    void varInsn(Opcode opcode, int register);
+
+    /**
+     * 'bipush' or 'sipush' of a constant, or 'newarray' of an element type of ASM (e.g. T_INT).
+     */
+    void intInsn(Opcode opcode, int operand);
+
+    void ldc(int value);
+
+    /**
+     * An instruction that takes a class by its internal name, e.g. 'new java/lang/Object'.
+     */
+    void typeInsn(Opcode opcode, String type);
+
+    void iinc(int register, int increment);
+
+    void fieldInsn(Opcode opcode, String owner, String name, String descriptor);
+
+    void methodInsn(Opcode opcode, String owner, String name, String descriptor);
+
+    void jumpInsn(Opcode opcode, String label);
+
+    void label(String label);
+}
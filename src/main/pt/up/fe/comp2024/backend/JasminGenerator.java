@@ -1,22 +1,22 @@
 package pt.up.fe.comp2024.backend;
 
-import com.sun.jdi.ObjectReference;
+import org.objectweb.asm.Opcodes;
 import org.specs.comp.ollir.*;
 import org.specs.comp.ollir.tree.TreeNode;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
 import pt.up.fe.comp.jmm.report.Report;
-import pt.up.fe.specs.util.SpecsSystem;
-import pt.up.fe.specs.util.classmap.FunctionClassMap;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.optimization.OllirInstructions;
+import pt.up.fe.specs.util.classmap.BiConsumerClassMap;
 import pt.up.fe.specs.util.exceptions.NotImplementedException;
-import pt.up.fe.specs.util.utilities.StringLines;
 
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
-
-
+import java.util.Map;
 
 /**
  * Generates Jasmin code from an OllirResult.
@@ -25,844 +25,655 @@ import java.util.stream.Collectors;
  */
 public class JasminGenerator {
 
-    private static final String NL = "\n";
-    private static final String TAB = "   ";
+    /**
+     * An increment of an int variable by a constant, made of the given number of instructions.
+     */
+    private record Increment(String variable, int value, int length) {
+    }
 
-    private  static final String SPACE = " ";
+    private static final Opcode[] ICONSTS = {Opcode.ICONST_M1, Opcode.ICONST_0, Opcode.ICONST_1, Opcode.ICONST_2,
+            Opcode.ICONST_3, Opcode.ICONST_4, Opcode.ICONST_5};
 
     private final OllirResult ollirResult;
-
-    int maxByte = java.lang.Byte.MAX_VALUE;
-
-    int maxShort = java.lang.Short.MAX_VALUE;
-
-    List<String> lastlabel;
-    List<String> imports;
+    private final boolean optimize;
 
     List<Report> reports;
 
     String code;
 
-    String noper = null;
     Method currentMethod;
 
-    ClassUnit curCLass;
+    private String className;
+    private String superClass;
+    private Map<String, String> importPaths;
 
-    private int curStackSize;
+    private OperandTable operands;
+    private Map<Instruction, List<String>> labels;
+    private int nextLabel;
 
-    private int maxStackSize;
-
-    private final FunctionClassMap<TreeNode, String> generators;
+    private final BiConsumerClassMap<TreeNode, InstructionEmitter> generators;
 
     public JasminGenerator(OllirResult ollirResult) {
-
         this.ollirResult = ollirResult;
+        this.optimize = CompilerConfig.getOptimize(ollirResult.getConfig());
 
         reports = new ArrayList<>();
         code = null;
         currentMethod = null;
-        this.generators = new FunctionClassMap<>();
 
-        generators.put(ClassUnit.class, this::generateClassUnit);
-        generators.put(Method.class, this::generateMethod);
+        this.generators = new BiConsumerClassMap<>();
         generators.put(AssignInstruction.class, this::generateAssign);
         generators.put(SingleOpInstruction.class, this::generateSingleOp);
         generators.put(LiteralElement.class, this::generateLiteral);
         generators.put(Operand.class, this::generateOperand);
+        generators.put(ArrayOperand.class, this::generateArrayOperand);
         generators.put(BinaryOpInstruction.class, this::generateBinaryOp);
+        generators.put(UnaryOpInstruction.class, this::generateUnaryOp);
         generators.put(ReturnInstruction.class, this::generateReturn);
-        generators.put(CallInstruction.class,this::generateCallInstruction);
-        generators.put(PutFieldInstruction.class,this::generatePutFields);
-        generators.put(GetFieldInstruction.class,this::generateGetFields);
+        generators.put(CallInstruction.class, this::generateCall);
+        generators.put(PutFieldInstruction.class, this::generatePutField);
+        generators.put(GetFieldInstruction.class, this::generateGetField);
+        generators.put(OpCondInstruction.class, this::generateOpCond);
         generators.put(SingleOpCondInstruction.class, this::generateSingleOpCond);
-        generators.put(CondBranchInstruction.class, this::generateBranchCondition);
         generators.put(GotoInstruction.class, this::generateGoto);
-        generators.put(ArrayOperand.class,this::generateArrayOperand);
-        generators.put(UnaryOpInstruction.class,this::generateUnariyOperator);
+    }
 
+    public List<Report> getReports() {
+        return reports;
+    }
 
+    public String build() {
+
+        // This way, build is idempotent
+        if (code == null) {
+            var writer = new StringWriter();
+            build(writer);
+            code = writer.toString();
+        }
 
+        return code;
     }
 
-    private String generateUnariyOperator(UnaryOpInstruction unaryOpInstruction) {
-        //TODO rever,o ixor não parece estar correto
-        StringBuilder answer = new StringBuilder();
-        if(unaryOpInstruction.getOperand().getClass().toString().equals("class org.specs.comp.ollir.LiteralElement")){
-            answer.append(generators.apply(unaryOpInstruction.getOperand()));
-            answer.append("iconst_1"+NL);
-        }
-        else{
-            var op = (Operand) unaryOpInstruction.getOperand();
-            var reg = currentMethod.getVarTable().get(op.getName()).getVirtualReg();
-            answer.append(loader("i",reg)+NL);
-            answer.append("iconst_1"+NL);
-        }
-        this.curStackSize = this.curStackSize+1;
-        if(this.curStackSize>this.maxStackSize){
-            this.maxStackSize=this.curStackSize;
-        }
-        answer.append("ixor"+NL);
-        this.curStackSize = this.curStackSize-1;
-        return answer.toString();
-    }
-
-    private String generateArrayOperand(ArrayOperand arrayOperand) {
-        StringBuilder answer = new StringBuilder();
-        if(arrayOperand.getIndexOperands().get(0).getClass().toString().equals("class org.specs.comp.ollir.LiteralElement")){
-            var reg = currentMethod.getVarTable().get(arrayOperand.getName()).getVirtualReg();
-            answer.append(loader("a",reg)+NL);
-            answer.append(generators.apply(arrayOperand.getIndexOperands().get(0)));
-            if(arrayOperand.getType().toString().equals("INT32")){
-                answer.append("iaload"+NL);
-            }
-            if(arrayOperand.getType().toString().equals("BOOLEAN")){
-                answer.append("baload"+NL);
-            }
-        }
-        else{
-            var index = (Operand) arrayOperand.getIndexOperands().get(0);
-            var reg = currentMethod.getVarTable().get(arrayOperand.getName()).getVirtualReg();
-            if(arrayOperand.getType().toString().equals("INT32")){
-                answer.append(loader("a",reg)+NL);
-                var reg2 = currentMethod.getVarTable().get(index.getName()).getVirtualReg();
-                answer.append(loader("i",reg2)+NL);
-                answer.append("iaload"+NL);
-            }
-            else if(arrayOperand.getType().toString().equals("BOOLEAN")){
-                answer.append(loader("a",reg)+NL);
-                var reg2 = currentMethod.getVarTable().get(index.getName()).getVirtualReg();
-                answer.append(loader("b",reg2));
-                answer.append("baload"+NL);
-            }
-        }
-        this.curStackSize = this.curStackSize+2;
-        if(this.curStackSize>this.maxStackSize){
-            this.maxStackSize=this.curStackSize;
+    /**
+     * Writes the Jasmin code to the given writer as it is generated, instead of building it in memory. Only the body
+     * of the method being generated is kept until it is complete.
+     */
+    public void build(Writer writer) {
+        var out = new JasminWriter(writer);
+        generateClassUnit(ollirResult.getOllirClass(), out);
+        out.flush();
+    }
+
+    /**
+     * Resolves the names of the class, its superclass and imports, which must be done before generating any of its
+     * methods.
+     */
+    void setClassUnit(ClassUnit classUnit) {
+        importPaths = new HashMap<>();
+        for (var importName : classUnit.getImports()) {
+            var simpleName = importName.substring(importName.lastIndexOf('.') + 1);
+            importPaths.put(simpleName, importName.replace('.', '/'));
         }
-        this.curStackSize = this.curStackSize-1;
-        return answer.toString();
+
+        className = classUnit.getClassName();
+        var superName = classUnit.getSuperClass();
+        superClass = superName == null || superName.equals("Object") ? "java/lang/Object" : getClassPath(superName);
     }
 
-    private String generateGoto(GotoInstruction gotoInstruction) {
-        StringBuilder answer = new StringBuilder();
-        answer.append("goto ");
-        answer.append(gotoInstruction.getLabel()+NL);
-        this.lastlabel.add(gotoInstruction.getLabel());
-        return answer.toString();
+    String getClassName() {
+        return className;
     }
 
-    private String generateBranchCondition(CondBranchInstruction condBranchInstruction) {
-        String fullCond = condBranchInstruction.getCondition().toString();
-        fullCond = fullCond.replace("Inst: BINARYOPER ","");
-        StringBuilder answer = new StringBuilder();
-        var operands = condBranchInstruction.getOperands();
-        for (var op : operands){
-            if(op.getClass().toString().equals("class org.specs.comp.ollir.LiteralElement")){
-                fullCond = fullCond.replace(op.toString(),"");
-                answer.append(generators.apply(op));
+    String getSuperClass() {
+        return superClass;
+    }
 
-            }
-            else{
-                var operand = (Operand) op;
-                fullCond = fullCond.replace(operand.toString(),"");
-                var reg = currentMethod.getVarTable().get(operand.getName()).getVirtualReg();
-                answer.append(loader("i", reg)+NL);
-            }
-        }
-        String condition = fullCond.replace(" ","");
-
-        //TODO fazer resto operações
-        this.lastlabel.add(condBranchInstruction.getLabel());
-        curStackSize = curStackSize-2;
-        switch (condition){
-            case "LTH":
-                answer.append("if_icmplt ");
-                break;
-            case "LTE":
-                answer.append("if_icmple ");
-                break;
-            case "GTE":
-                answer.append("if_icmpge ");
-                break;
-            case "GTH":
-                answer.append("if_icmpgt ");
-                break;
-            default:
-                throw new NotImplementedException(condition);
+    private void generateClassUnit(ClassUnit classUnit, JasminWriter out) {
 
-        }
-        answer.append(condBranchInstruction.getLabel()+NL);
-        return answer.toString();
-    }
-
-    private String generateSingleOpCond(SingleOpCondInstruction singleOpCondInstruction) {
-        StringBuilder answer = new StringBuilder();
-        if(singleOpCondInstruction.getCondition().getInstType().toString().equals("NOPER")){
-            var args = singleOpCondInstruction.getOperands();
-            for(var ele : args){
-                if(ele.getClass().toString().equals("class org.specs.comp.ollir.LiteralElement")){
-                    answer.append(generators.apply(ele));
-
-                }
-                else{
-                    var op = (Operand) ele;
-                    var reg = currentMethod.getVarTable().get(op.getName()).getVirtualReg();
-                    answer.append(loader("i", reg)+NL);
-                }
-            }
-            if(this.noper == null){
-                answer.append("ifne");
-            }
-            else{
-                answer.append(this.noper);
-            }
-            this.noper = null;
-            curStackSize = curStackSize-1;
+        setClassUnit(classUnit);
 
+        out.write(".class " + className);
+        out.write(".super " + superClass);
+        out.write("");
+
+        for (var field : classUnit.getFields()) {
+            out.write(".field public " + field.getFieldName() + " " + getDescriptor(field.getFieldType()));
         }
-        answer.append(SPACE+singleOpCondInstruction.getLabel()+NL);
-        this.lastlabel.add(singleOpCondInstruction.getLabel());
-        return answer.toString();
-    }
+        out.write("");
 
+        // generate a single constructor method
+        out.write(";default constructor");
+        out.write(".method public <init>()V");
+        out.writeDirective("aload_0");
+        out.writeDirective("invokespecial " + superClass + "/<init>()V");
+        out.writeDirective("return");
+        out.write(".end method");
 
+        // generate code for all other methods
+        for (var method : classUnit.getMethods()) {
 
+            // Ignore constructor, since there is always one constructor
+            // that receives no arguments, and has been already added
+            // previously
+            if (method.isConstructMethod()) {
+                continue;
+            }
 
-    private String getIntFromLiteral(Element ele){
-        String fullEle = ele.toString();
-        String typeString = ele.getType().toString();
-        fullEle = fullEle.replaceAll(typeString,"");
-        return getNumberOfLiteral(fullEle);
+            generateMethod(method, out);
+        }
     }
 
-    private String getNumberOfLiteral(String literalElement) {
-        StringBuilder answer = new StringBuilder();
+    private void generateMethod(Method method, JasminWriter out) {
 
-        int startInd = literalElement.indexOf(':');
-        int endInd = literalElement.indexOf('.');
-        answer.append(literalElement.substring(startInd+1,endInd));
-        String answer2 = answer.toString();
-        answer2 = answer2.replaceAll(" ","");
-        return answer2;
-    }
+        var body = generateMethodBody(method);
 
+        // calculate modifier
+        var modifier = method.getMethodAccessModifier() != AccessModifier.DEFAULT ?
+                method.getMethodAccessModifier().name().toLowerCase() + " " :
+                "";
+        var isStatic = method.isStaticMethod() ? "static " : "";
 
+        out.write("");
+        out.write(".method " + modifier + isStatic + method.getMethodName() + getMethodDescriptor(method));
 
-    private String loader(String prefix, int reg) {
-        curStackSize++;
-        if(this.curStackSize>this.maxStackSize){
-            this.maxStackSize=this.curStackSize;
-        }
-        if (reg < 4) {
-            return prefix + "load_" + reg;
-        } else {
-            return prefix+"load "+reg;
-        }
-    }
-    private String storer(String prefix, int reg) {
-        this.curStackSize--;
-        if (reg < 4) {
-            return prefix + "store_" + reg;
-        } else {
-            return prefix+"store "+reg;
-        }
-    }
-    private String generateGetFields(GetFieldInstruction getFieldInstruction) {
-        //verificar
-        StringBuilder putCode = new StringBuilder();
-        putCode.append("getfield"+SPACE);
-        putCode.append(getFunctionObjectName(getFieldInstruction.getOperands().get(0).toString()) + "/");
-        putCode.append(getFieldInstruction.getField().getName() + SPACE + ollirToJasminType(getFieldInstruction.getField().getType().toString())+NL);
-        return putCode.toString();
-    }
-
-    private String generatePutFields(PutFieldInstruction putFieldInstruction) {
-
-        StringBuilder putCode = new StringBuilder();
-        putCode.append("bipush ");
-        putCode.append(getIntFromLiteral(putFieldInstruction.getValue())+NL);
-        putCode.append("putfield ");
-        String fullClassName = fullClassImport(getFunctionObjectName(putFieldInstruction.getOperands().get(0).toString()));
-        putCode.append(fullClassName + "/");
-        putCode.append(putFieldInstruction.getField().getName() + SPACE + ollirToJasminType(putFieldInstruction.getField().getType().toString())+NL);
-        putCode.append("aload_0"+NL);
-        this.curStackSize++;
-        if(this.curStackSize>this.maxStackSize){
-            this.maxStackSize=this.curStackSize;
-        }
+        // The stack limit is only known once the whole body has been generated
+        out.writeDirective(".limit stack " + new StackSimulator(body.getInstructions()).getMaxStack());
+        out.writeDirective(".limit locals " + operands.getLimitLocals());
 
+        body.emit(out);
+        out.write(".end method");
 
-        return putCode.toString();
+        // unset method
+        currentMethod = null;
+        operands = null;
+        labels = null;
     }
 
-    private String fullClassImport(String className){
-        if(className==null){
-            return null;
-        }
-        if(className.equals("this")){
-            return className;
-        }
-        for(var x : this.curCLass.getImports()){
-            if(x.contains(".")) {
-                var integer = x.lastIndexOf(".");
-                var substring = x.substring(integer +1);
-                if(substring.equals(className)) {
-                    className = x;
-                    className = className.replace(".", "/");
-                }
-            }
+    /**
+     * The instructions of the method, rewritten by the {@link PeepholeOptimizer} with -o.
+     */
+    MethodBody generateMethodBody(Method method) {
+        var body = new MethodBody();
+        generateBody(method, body);
+
+        // With -o, the instructions selected one OLLIR instruction at a time are also rewritten as a whole
+        if (optimize) {
+            new PeepholeOptimizer(body.getInstructions()).optimize();
         }
 
-        return className;
+        return body;
     }
 
-    private String generateCallInstruction(CallInstruction callInstruction) {
-
-        StringBuilder answer = new StringBuilder();
-        String invoker = callInstruction.getInvocationType().toString();
-
-        if(invoker.equals("NEW")){
-            var args = callInstruction.getOperands();
-            if(callInstruction.getCaller().toString().equals("Operand: array.<no type>")){
-                if(callInstruction.getOperands().get(1).getType().toString().equals("INT32")) {
-                    for( var x : args){
-                        if(x.equals(callInstruction.getCaller())){continue;}
-                        if(x.getClass().toString().equals("class org.specs.comp.ollir.LiteralElement")){
-                            answer.append(generators.apply(x));
-                        }
-                        else{
-                            var op = (Operand) x;
-                            var reg = currentMethod.getVarTable().get(op.getName()).getVirtualReg();
-                            answer.append(loader("i",reg)+NL);
-                        }
-                    }
-                    answer.append("newarray int"+NL);
-                }
-            }
-        }
-        else if(invoker.equals("arraylength")){
+    /**
+     * Emits the instructions of the method, as they are selected from its OLLIR instructions.
+     */
+    private void generateBody(Method method, InstructionEmitter out) {
 
-            var op = (Operand) callInstruction.getOperands().get(0);
-            var reg = currentMethod.getVarTable().get(op.getName()).getVirtualReg();
+        // set method
+        currentMethod = method;
+        operands = new OperandTable(method);
+        labels = new IdentityHashMap<>();
+        for (var label : method.getLabels().entrySet()) {
+            labels.computeIfAbsent(label.getValue(), instruction -> new ArrayList<>()).add(label.getKey());
+        }
+        nextLabel = 0;
 
-            answer.append(loader("a",reg)+NL);
-            answer.append("arraylength"+NL);
+        Map<String, Integer> uses = new HashMap<>();
+        for (var inst : method.getInstructions()) {
+            for (var use : OllirInstructions.getUses(inst)) {
+                uses.merge(use.getName(), 1, Integer::sum);
+            }
         }
-        else {
-            if (callInstruction.getInvocationType().toString().equals("invokespecial")){
-
-
-                String caller = callInstruction.getCaller().toString();
-                int indx1 = caller.indexOf("(");
-                int indx2 = caller.indexOf(")");
-                String callerName = caller.substring(indx1 + 1, indx2);
-            
-                for(var i : this.imports)
-                {
-                    if(i.contains("."))
-                    {
-                        var integer = i.lastIndexOf(".");
-                        var substring = i.substring(integer +1 ,i.length());
-                        if(substring.equals(callerName))
-                        {
-                            callerName = i;
-                            callerName = callerName.replace(".", "/");
-                        }
-                    }
-                }
-                answer.append("new "+ callerName+NL);
-                answer.append("dup"+NL);
-                this.curStackSize = this.curStackSize+2;
-                if(this.curStackSize>this.maxStackSize){
-                    this.maxStackSize=this.curStackSize;
-                }
-                answer.append(callInstruction.getInvocationType() + SPACE);
-                answer.append(callerName);
-                answer.append("/<init>()V" + NL);
-                var operand = (Operand) callInstruction.getOperands().get(0);
-                var reg = currentMethod.getVarTable().get(operand.getName()).getVirtualReg();
-                answer.append(storer("a", reg)+NL);
 
+        var instructions = method.getInstructions();
+        for (int i = 0; i < instructions.size(); i++) {
+            var inst = instructions.get(i);
+            for (var label : labels.getOrDefault(inst, List.of())) {
+                out.label(label);
             }
-            if(callInstruction.getInvocationType().toString().equals("invokestatic")){
-
-
-                var args = callInstruction.getArguments();
-
-                for(var x : args){
-                    if(x.getClass().toString().equals("class org.specs.comp.ollir.Operand")){
-                        var operand = (Operand) x;
-                        var reg = currentMethod.getVarTable().get(operand.getName()).getVirtualReg();
-                        answer.append(loader("i",reg)+NL);
-                    }
-                    if(x.getClass().toString().equals("class org.specs.comp.ollir.LiteralElement")){
-                        answer.append(generators.apply(x));
-                    }
-                }
-
-
-                int ind1 = callInstruction.getMethodName().toString().indexOf('"');
-                String argAux = callInstruction.getMethodName().toString().substring(ind1 + 1);
-                int ind2 = argAux.indexOf('"');
-                String function = argAux.substring(0, ind2);
-
-                ind1 = callInstruction.getCaller().toString().indexOf(' ');
-                String argAux2 = callInstruction.getCaller().toString().substring(ind1 + 1);
-                ind2 = argAux2.indexOf('.');
-                String functionClass = argAux2.substring(0, ind2);
-                answer.append("invokestatic ");
-                functionClass = functionClass+"/"+function;
-                functionClass = fullClassImport(functionClass);
-                answer.append(functionClass+"(");
-                for(var x : args){
-                    answer.append(ollirToJasminType(x.getType().toString()));
-                }
-                answer.append(")" + ollirToJasminType(callInstruction.getReturnType().toString()) + NL);
 
+            var increment = getIncrement(instructions, i, uses);
+            if (increment != null) {
+                out.iinc(operands.get(increment.variable()).register(), increment.value());
+                i += increment.length() - 1;
+                continue;
             }
-            if(callInstruction.getInvocationType().toString().equals("invokevirtual")){
-                //objref
-                //arg1, arg2...
-                //invoke virtual Object/func(a1t a2t) return
-                StringBuilder answerAux = new StringBuilder();
-                answerAux.append(callInstruction.getInvocationType() + SPACE);
-                String caller = callInstruction.getCaller().toString();
-                int indx1 = caller.indexOf(" ");
-                int indx2 = caller.indexOf(".");
-                String callerName = caller.substring(indx1+1, indx2);
-                var reg = currentMethod.getVarTable().get(callerName).getVirtualReg();
-                answer.append(loader("a",reg)+NL); //TODO rever para o tipo de caller // será necessário?
-                //objref pushado para a stack
-                var args = callInstruction.getArguments();
-                for (var arg : args){
-                    if(arg.getClass().toString().equals("class org.specs.comp.ollir.LiteralElement")){
-                        answer.append(generators.apply(arg));
-                    }
-                    else {
-                        var op = (Operand) arg;
-                        reg = currentMethod.getVarTable().get(op.getName()).getVirtualReg();
-                        switch (op.getType().toString()) {
-                            case "INT32":
-                                answer.append(loader("i", reg) + NL);
-                                break;
-                            case "BOOLEAN":
-                                answer.append(loader("i", reg) + NL);
-                                break;
-                            case "INT32[]":
-                                answer.append(loader("a", reg) + NL);
-                                break;
-                            default:
-                                throw new NotImplementedException(op.getType().toString());
-                        }
-                    }
-                }
-
-                // loads de args feitos
-                indx1 = caller.indexOf("(");
-                indx2 = caller.indexOf(")");
-                String callerType = caller.substring(indx1+1,indx2);
-                answer.append("invokevirtual "+callerType+"/");
-                // "invokevirtual tipo/" feito
-                String function = callInstruction.getMethodName().toString();
-                indx1 = function.indexOf(" ");
-                function = function.substring(indx1+2);
-                indx1 = function.indexOf('"');
-                function = function.substring(0,indx1);
-                answer.append(function+"(");
-                // "invokevirtual tipo/função(" feito
-                for (var arg : args){
-                    answer.append(ollirToJasminType(arg.getType().toString()));
-                }
-                answer.append(")");
-                answer.append(ollirToJasminType(callInstruction.getReturnType().toString())+NL);
-                this.curStackSize = this.curStackSize - args.size();
-                if (callInstruction.getMethodName().getType().toString().equals("STRING")) {
-//                    int ind1 = callInstruction.getMethodName().toString().indexOf('"');
-//                    String argAux = callInstruction.getMethodName().toString().substring(ind1 + 1);
-//                    int ind2 = argAux.indexOf('"');
-//                    String arg = argAux.substring(0, ind2);
-//                    answerAux.append('/').append(arg);
-//                    answerAux.append("(");
-//                    var args = callInstruction.getOperands();
-//                    StringBuilder loads = new StringBuilder();
-//                    if (args.size() > 2) {
-//                        for (int i = 2; i < args.size(); i++) {
-//                            answerAux.append(ollirToJasminType(args.get(i).getType().toString()));
-//                            var operand = (Operand) args.get(i);
-//                            reg = currentMethod.getVarTable().get(operand.getName()).getVirtualReg();
-//                            var type = currentMethod.getVarTable().get(operand.getName()).getVarType();
-//                            if (type.toString().equals("INT32") ||type.toString().equals("BOOLEAN")){
-//                                answer.append(loader("i", reg)+NL);
-//                            }
-//                            else{
-//                                answer.append(loader("a", reg)+NL);
-//                            }
-//                        }
-//                    }
-
-                } else {
-                    answer.append("/<init>()V" + NL);
-                    answer.append("pop" + NL);
-                }
+
+            generators.accept(inst, out);
+
+            // Values returned by calls used as statements are discarded
+            if (inst instanceof CallInstruction call && call.getReturnType().getTypeOfElement() != ElementType.VOID) {
+                out.insn(Opcode.POP);
             }
         }
-        return answer.toString();
     }
 
+    /**
+     * The increment that starts at the given instruction, either 'x := x + c' or, as generated without
+     * optimizations, 'tmp := x + c' followed by 'x := tmp' when tmp is not read anywhere else.
+     *
+     * @return the increment, or null if the instruction does not start one that fits in an iinc
+     */
+    private Increment getIncrement(List<Instruction> instructions, int index, Map<String, Integer> uses) {
+        if (!(instructions.get(index) instanceof AssignInstruction assign)
+                || assign.getDest() instanceof ArrayOperand
+                || !(assign.getRhs() instanceof BinaryOpInstruction binaryOp)
+                || binaryOp.getOperation().getTypeInfo().getTypeOfElement() != ElementType.INT32) {
+            return null;
+        }
 
+        var opType = binaryOp.getOperation().getOpType();
+        Element variable;
+        Element constant;
+        if (opType == OperationType.ADD && binaryOp.getLeftOperand() instanceof LiteralElement) {
+            variable = binaryOp.getRightOperand();
+            constant = binaryOp.getLeftOperand();
+        } else if (opType == OperationType.ADD || opType == OperationType.SUB) {
+            variable = binaryOp.getLeftOperand();
+            constant = binaryOp.getRightOperand();
+        } else {
+            return null;
+        }
 
+        if (!(variable instanceof Operand operand) || variable instanceof ArrayOperand
+                || operand.getType().getTypeOfElement() != ElementType.INT32
+                || !(constant instanceof LiteralElement literal)) {
+            return null;
+        }
 
-    public List<Report> getReports() {
-        return reports;
-    }
-
-    public String build() {
+        long value = Integer.parseInt(literal.getLiteral());
+        if (opType == OperationType.SUB) {
+            value = -value;
+        }
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+            return null;
+        }
 
+        var dest = ((Operand) assign.getDest()).getName();
+        if (dest.equals(operand.getName())) {
+            return new Increment(dest, (int) value, 1);
+        }
 
-        code = generators.apply(ollirResult.getOllirClass());
+        if (index + 1 == instructions.size()
+                || !(instructions.get(index + 1) instanceof AssignInstruction copy)
+                || labels.containsKey(copy)
+                || !(copy.getDest() instanceof Operand copyDest) || copyDest instanceof ArrayOperand
+                || !copyDest.getName().equals(operand.getName())
+                || !(copy.getRhs() instanceof SingleOpInstruction singleOp)
+                || !(singleOp.getSingleOperand() instanceof Operand source) || source instanceof ArrayOperand
+                || !source.getName().equals(dest)
+                || uses.getOrDefault(dest, 0) != 1) {
+            return null;
+        }
 
-        return code;
+        return new Increment(operand.getName(), (int) value, 2);
     }
 
+    private void generateAssign(AssignInstruction assign, InstructionEmitter out) {
+        var dest = (Operand) assign.getDest();
 
-    private String generateClassUnit(ClassUnit classUnit) {
-        this.curCLass = classUnit;
-        var code = new StringBuilder();
+        // Store into an array element: array reference, index, value
+        if (dest instanceof ArrayOperand arrayDest) {
+            load(arrayDest.getName(), out);
+            generators.accept(arrayDest.getIndexOperands().get(0), out);
+            generators.accept(assign.getRhs(), out);
+            out.insn(getArrayStore(arrayDest.getType().getTypeOfElement()));
+            return;
+        }
 
-        this.imports = classUnit.getImports();
+        generators.accept(assign.getRhs(), out);
+        var local = operands.get(dest.getName());
+        out.varInsn(local.store(), local.register());
+    }
 
-        var className =  fullClassImport(ollirResult.getOllirClass().getClassName());
+    private void generateSingleOp(SingleOpInstruction singleOp, InstructionEmitter out) {
+        generators.accept(singleOp.getSingleOperand(), out);
+    }
 
-        code.append(".class ").append(className).append(NL);
-        String superClass = classUnit.getSuperClass();
-        superClass = fullClassImport(superClass);
+    private void generateLiteral(LiteralElement literal, InstructionEmitter out) {
+        var value = switch (literal.getLiteral()) {
+            case "true" -> 1;
+            case "false" -> 0;
+            default -> Integer.parseInt(literal.getLiteral());
+        };
 
-        if (superClass == null || superClass.equals("Object")){
-            superClass = "java/lang/Object";
-            code.append(".super "+ superClass).append(NL).append(NL);
-        }else{
-            code.append(".super "+ superClass).append(NL).append(NL);
+        if (value >= -1 && value <= 5) {
+            out.insn(ICONSTS[value + 1]);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            out.intInsn(Opcode.BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            out.intInsn(Opcode.SIPUSH, value);
+        } else {
+            out.ldc(value);
         }
+    }
 
-        //fields
-        StringBuilder fields = new StringBuilder();
-        for (var field : classUnit.getFields()){
-            fields.append(".field public ");
-            fields.append(field.getFieldName()).append(SPACE);
-            fields.append(ollirToJasminType(field.getFieldType().toString())).append(NL);
-        }
+    private void generateOperand(Operand operand, InstructionEmitter out) {
+        var name = operand.getType().getTypeOfElement() == ElementType.THIS ? "this" : operand.getName();
+        load(name, out);
+    }
 
-        code.append(fields).append(NL);
+    private void generateArrayOperand(ArrayOperand arrayOperand, InstructionEmitter out) {
+        load(arrayOperand.getName(), out);
+        generators.accept(arrayOperand.getIndexOperands().get(0), out);
+        out.insn(getArrayLoad(arrayOperand.getType().getTypeOfElement()));
+    }
 
-        // generate a single constructor method
+    private void load(String name, InstructionEmitter out) {
+        var local = operands.get(name);
+        out.varInsn(local.load(), local.register());
+    }
 
-        StringBuilder defaultConstructor = new StringBuilder();
-        defaultConstructor.append(";default constructor"+NL);
-        defaultConstructor.append(".method"+SPACE);
-        defaultConstructor.append("public <init>()V"+NL);
-        defaultConstructor.append(TAB+SPACE+"aload_0"+NL);
+    private void generateBinaryOp(BinaryOpInstruction binaryOp, InstructionEmitter out) {
+        var opType = binaryOp.getOperation().getOpType();
+
+        // Comparisons produce 0 or 1 through a branch
+        if (isComparison(opType)) {
+            var trueLabel = newLabel("cmp_true");
+            var endLabel = newLabel("cmp_end");
+
+            generateCompareAndJump(binaryOp, trueLabel, out);
+            out.insn(Opcode.ICONST_0);
+            out.jumpInsn(Opcode.GOTO, endLabel);
+            out.label(trueLabel);
+            out.insn(Opcode.ICONST_1);
+            out.label(endLabel);
+            return;
+        }
+
+        generators.accept(binaryOp.getLeftOperand(), out);
+        generators.accept(binaryOp.getRightOperand(), out);
+
+        out.insn(switch (opType) {
+            case ADD -> Opcode.IADD;
+            case SUB -> Opcode.ISUB;
+            case MUL -> Opcode.IMUL;
+            case DIV -> Opcode.IDIV;
+            case AND, ANDB -> Opcode.IAND;
+            case OR, ORB -> Opcode.IOR;
+            case XOR -> Opcode.IXOR;
+            case SHL -> Opcode.ISHL;
+            case SHR -> Opcode.ISHR;
+            case SHRR -> Opcode.IUSHR;
+            default -> throw new NotImplementedException(opType);
+        });
+    }
 
-        if(superClass != null){
-            defaultConstructor.append(TAB+ " invokespecial " + superClass + "/<init>()V"+ NL);
+    private void generateUnaryOp(UnaryOpInstruction unaryOp, InstructionEmitter out) {
+        var opType = unaryOp.getOperation().getOpType();
+        if (opType != OperationType.NOTB && opType != OperationType.NOT) {
+            throw new NotImplementedException(opType);
         }
-        defaultConstructor.append(
-                """
-                    return
-                .end method
-                """
-        );
-        code.append(defaultConstructor);
-        // generate code for all other methods
-        for (var method : ollirResult.getOllirClass().getMethods()) {
-
-            if (method.isConstructMethod()) {
-                continue;
-            }
-
-            code.append(generators.apply(method));
 
+        // Booleans are 0 or 1, so negating is flipping the lowest bit
+        generators.accept(unaryOp.getOperand(), out);
+        out.insn(Opcode.ICONST_1);
+        out.insn(Opcode.IXOR);
+    }
 
+    private void generateReturn(ReturnInstruction returnInst, InstructionEmitter out) {
+        if (!returnInst.hasReturnValue()) {
+            out.insn(Opcode.RETURN);
+            return;
         }
-        this.curCLass = null;
-        return code.toString();
-    }
-
-    private String ollirToJasminType(String ollirType){
-
-        String answer;
-        switch (ollirType){
-            case "INT32" :
-                answer = "I";
-                break;
-            case "BOOLEAN" :
-                answer = "Z";
-                break;
-            case "VOID" :
-                answer = "V";
-                break;
-            case "STRING[]" :
-                answer = "[Ljava/lang/String;";
-                break;
-            default :
-                String endAnser = ollirType.substring(ollirType.length()-2);
-                if(endAnser.equals("[]")){
-                    StringBuilder answerAux = new StringBuilder();
-                    answerAux.append("[");
-                    answerAux.append(ollirToJasminType(ollirType.substring(0,ollirType.length()-2)));
-                    answer = answerAux.toString();
-                }
-                else{
-                    answer = "A";
-                }
-                break;
-        };
 
-        return answer;
+        generators.accept(returnInst.getOperand(), out);
+        out.insn(OperandTable.isIntLike(returnInst.getOperand().getType().getTypeOfElement())
+                ? Opcode.IRETURN
+                : Opcode.ARETURN);
     }
 
-    private String generateMethod(Method method) {
-
-        // set method
-        currentMethod = method;
-        this.lastlabel = new ArrayList<>();
-        this.curStackSize = 0;
-        this.maxStackSize = 0;
-        var code = new StringBuilder();
-        String isStatic = "";
-        if (method.isStaticMethod()){
-            isStatic = "static ";
+    private void generateCall(CallInstruction call, InstructionEmitter out) {
+        switch (call.getInvocationType()) {
+            case NEW -> generateNew(call, out);
+            case arraylength -> generateArrayLength(call, out);
+            case invokestatic, invokevirtual, invokespecial -> generateInvoke(call, out);
+            default -> throw new NotImplementedException(call.getInvocationType());
         }
-        // calculate modifier
-        var modifier = method.getMethodAccessModifier() != AccessModifier.DEFAULT ?
-                method.getMethodAccessModifier().name().toLowerCase() + " " :
-                "";
-
-        var methodName = method.getMethodName();
-
-        var retType = method.getReturnType();
-        var returnType = ollirToJasminType(retType.toString());
+    }
 
-        StringBuilder params = new StringBuilder();
+    private void generateNew(CallInstruction call, InstructionEmitter out) {
+        var returnType = call.getReturnType();
 
-        for (var param : method.getParams()){
-            String newParam = ollirToJasminType(param.getType().toString());
-            params.append(newParam);
-        }
+        if (returnType instanceof ArrayType arrayType) {
+            generators.accept(call.getArguments().get(0), out);
 
-        StringBuilder codeAux = new StringBuilder();
-        for (var inst : method.getInstructions()) {
-            if(this.lastlabel.isEmpty()){}
-            else{
-                for (int i= 0; i < this.lastlabel.size(); i++){
-                    if(method.getLabels().get(this.lastlabel.get(i)).equals(inst)){
-                        codeAux.append(this.lastlabel.get(i)+" :"+NL);
-                        this.lastlabel.remove(i);
-                    }
-                }
+            var elementType = arrayType.getElementType();
+            switch (elementType.getTypeOfElement()) {
+                case INT32 -> out.intInsn(Opcode.NEWARRAY, Opcodes.T_INT);
+                case BOOLEAN -> out.intInsn(Opcode.NEWARRAY, Opcodes.T_BOOLEAN);
+                default -> out.typeInsn(Opcode.ANEWARRAY, getInternalName(elementType));
             }
-
-            var instCode = StringLines.getLines(generators.apply(inst)).stream()
-                    .collect(Collectors.joining(NL + TAB, TAB, NL));
-            codeAux.append(instCode);
+            return;
         }
 
-        code.append("\n.method ").append(modifier).append(isStatic).append(methodName).append("("+params+")"+returnType).append(NL);
-
-        //TODO rever se o calLimLoc está certo
-        //TOdo clacular limit stack ver o tamanho máximo que a stack ocupa dentro de um método
-        int limitStackValue = this.maxStackSize;
+        out.typeInsn(Opcode.NEW, getInternalName(returnType));
+    }
 
+    private void generateArrayLength(CallInstruction call, InstructionEmitter out) {
+        // The array reference is replaced by its length
+        generators.accept(call.getCaller(), out);
+        out.insn(Opcode.ARRAYLENGTH);
+    }
 
+    private void generateInvoke(CallInstruction call, InstructionEmitter out) {
+        var invocation = call.getInvocationType();
 
-        code.append(TAB).append(".limit stack ").append(limitStackValue).append(NL);
+        String owner;
+        if (invocation == CallType.invokestatic) {
+            owner = getClassPath(((Operand) call.getCaller()).getName());
+        } else {
+            generators.accept(call.getCaller(), out);
+            owner = getInternalName(call.getCaller().getType());
 
-        int limitLocals = this.currentMethod.getVarTable().size();
-        for(var argument: this.currentMethod.getParams()){
-            int ind1 = argument.toString().indexOf(" ");
-            int ind2 = argument.toString().indexOf(".");
-            String name = argument.toString().substring(ind1+1,ind2);
-            if(this.currentMethod.getVarTable().get(name)==null){
-                limitLocals++;
+            // Constructors of this class are the ones of the superclass
+            if (call.getCaller().getType().getTypeOfElement() == ElementType.THIS && currentMethod.isConstructMethod()) {
+                owner = superClass;
             }
         }
-        if(!this.currentMethod.getMethodName().equals("main")){
-            if(this.currentMethod.getVarTable().get("this")==null){
-                limitLocals++;
-            }
-        }
-        code.append(TAB).append(".limit locals ").append(limitLocals).append(NL);
-
 
+        var descriptor = new StringBuilder("(");
+        for (var argument : call.getArguments()) {
+            generators.accept(argument, out);
+            descriptor.append(getDescriptor(argument.getType()));
+        }
+        descriptor.append(")").append(getDescriptor(call.getReturnType()));
 
-        code.append(codeAux);
-        code.append(".end method\n");
+        var methodName = ((LiteralElement) call.getMethodName()).getLiteral().replace("\"", "");
+        var opcode = switch (invocation) {
+            case invokestatic -> Opcode.INVOKESTATIC;
+            case invokespecial -> Opcode.INVOKESPECIAL;
+            default -> Opcode.INVOKEVIRTUAL;
+        };
+        out.methodInsn(opcode, owner, methodName, descriptor.toString());
+    }
 
-        // unset method
-        currentMethod = null;
+    private void generateGetField(GetFieldInstruction getField, InstructionEmitter out) {
+        generators.accept(getField.getObject(), out);
+        generateFieldInsn(Opcode.GETFIELD, getField.getObject(), getField.getField(), out);
+    }
 
-        return code.toString();
+    private void generatePutField(PutFieldInstruction putField, InstructionEmitter out) {
+        generators.accept(putField.getObject(), out);
+        generators.accept(putField.getValue(), out);
+        generateFieldInsn(Opcode.PUTFIELD, putField.getObject(), putField.getField(), out);
     }
 
+    private void generateOpCond(OpCondInstruction opCond, InstructionEmitter out) {
+        var condition = opCond.getCondition();
 
-    private String getFunctionObjectName(String objectRefName){
-        StringBuilder answer = new StringBuilder();
+        if (condition instanceof BinaryOpInstruction binaryOp && isComparison(binaryOp.getOperation().getOpType())) {
+            generateCompareAndJump(binaryOp, opCond.getLabel(), out);
+            return;
+        }
 
-        int startInd = objectRefName.indexOf('(');
-        int endInd = objectRefName.indexOf(')');
-        answer.append(objectRefName.substring(startInd+1,endInd));
+        // Negated conditions jump when the operand is false
+        if (condition instanceof UnaryOpInstruction unaryOp
+                && unaryOp.getOperation().getOpType() == OperationType.NOTB) {
+            generators.accept(unaryOp.getOperand(), out);
+            out.jumpInsn(Opcode.IFEQ, opCond.getLabel());
+            return;
+        }
 
-        return answer.toString();
+        generators.accept(condition, out);
+        out.jumpInsn(Opcode.IFNE, opCond.getLabel());
     }
 
-    private String generateAssign(AssignInstruction assign) {
-
-
-        var code = new StringBuilder();
-
-        // generate code for loading what's on the right
+    private void generateSingleOpCond(SingleOpCondInstruction singleOpCond, InstructionEmitter out) {
+        generators.accept(singleOpCond.getCondition(), out);
+        out.jumpInsn(Opcode.IFNE, singleOpCond.getLabel());
+    }
 
-        // store value in the stack in destination
-        var lhs = assign.getDest();
+    private void generateGoto(GotoInstruction gotoInstruction, InstructionEmitter out) {
+        out.jumpInsn(Opcode.GOTO, gotoInstruction.getLabel());
+    }
 
-        if (!(lhs instanceof Operand)) {
+    /**
+     * Compares the operands of a comparison and jumps to the label if it holds. Comparisons against zero use the
+     * single-operand branches, with the operands swapped if zero is on the left.
+     */
+    private void generateCompareAndJump(BinaryOpInstruction comparison, String label, InstructionEmitter out) {
+        var opType = comparison.getOperation().getOpType();
+        var left = comparison.getLeftOperand();
+        var right = comparison.getRightOperand();
 
-            throw new NotImplementedException(lhs.getClass());
+        // '0 < x' is 'x > 0'
+        if (left instanceof LiteralElement literal && literal.getLiteral().equals("0")
+                && !(right instanceof LiteralElement)) {
+            generators.accept(right, out);
+            out.jumpInsn(getZeroBranch(getSwappedComparison(opType)), label);
+            return;
         }
 
-        var operand = (Operand) lhs;
+        generators.accept(left, out);
 
-        // get register
-        var reg = currentMethod.getVarTable().get(operand.getName()).getVirtualReg();
-        if(!operand.getChildren().isEmpty()){
-            code.append(loader("a",reg)+NL);
-            if(operand.getChildren().get(0).getClass().toString().equals("class org.specs.comp.ollir.LiteralElement")){
-                code.append(generators.apply(operand.getChildren().get(0)));
-            }
-            else{
-                var ind = (Operand) operand.getChildren().get(0);
-                var reg2 = currentMethod.getVarTable().get(ind.getName()).getVirtualReg();
-                code.append(loader("i",reg2)+NL);
-            }
-            code.append(generators.apply(assign.getRhs()));
-            code.append("iastore"+NL);
-            this.curStackSize = this.curStackSize-3;
-        }
-        else{
-            code.append(generators.apply(assign.getRhs()));
-            if(operand.getType().toString().substring(operand.getType().toString().length()-2).equals("[]")){
-                if (operand.getType().toString().equals("INT32[]")){
-                    code.append(storer("a", reg)+NL);
-                }
-                if (operand.getType().toString().equals("BOOLEAN[]")){
-                    code.append(storer("a", reg)+NL);
-                }
-            }
-            else if (operand.getType().toString().equals("INT32") ||operand.getType().toString().equals("BOOLEAN")){
-                code.append(storer("i", reg)+NL);
-            }
-            else if(!assign.getRhs().toString().contains(" NEW ")) {
-                code.append(storer("a", reg) + NL);
-            }
+        if (right instanceof LiteralElement literal && literal.getLiteral().equals("0")) {
+            out.jumpInsn(getZeroBranch(opType), label);
+        } else {
+            generators.accept(right, out);
+            out.jumpInsn(getCompareBranch(opType), label);
         }
+    }
 
-        //TODO : fazer para os restantes tipos
-        return code.toString();
-
+    private void generateFieldInsn(Opcode opcode, Element object, Operand field, InstructionEmitter out) {
+        out.fieldInsn(opcode, getInternalName(object.getType()), field.getName(), getDescriptor(field.getType()));
     }
 
-    private String generateSingleOp(SingleOpInstruction singleOp) {
+    private String newLabel(String prefix) {
+        return prefix + "_" + nextLabel++;
+    }
 
-        return generators.apply(singleOp.getSingleOperand());
+    private static boolean isComparison(OperationType opType) {
+        return switch (opType) {
+            case LTH, GTH, LTE, GTE, EQ, NEQ -> true;
+            default -> false;
+        };
     }
 
-    private String generateLiteral(LiteralElement literal) {
-        this.curStackSize = this.curStackSize+1;
-        if(this.curStackSize>this.maxStackSize){
-            this.maxStackSize=this.curStackSize;
-        }
-        var integerVaue = Integer.parseInt(literal.getLiteral());
-        if(integerVaue < 6){
-            return "iconst_" + literal.getLiteral() + NL;
-        }
-        if(integerVaue <= maxByte){
-            return "bipush " + literal.getLiteral() + NL;
-        }
-        if(integerVaue <= maxShort){
-            return "sipush " + literal.getLiteral() + NL;
-        }
-        return "ldc " + literal.getLiteral() + NL;
+    /**
+     * The comparison that holds for the operands in the opposite order, e.g. '>' for '<'.
+     */
+    private static OperationType getSwappedComparison(OperationType opType) {
+        return switch (opType) {
+            case LTH -> OperationType.GTH;
+            case GTH -> OperationType.LTH;
+            case LTE -> OperationType.GTE;
+            case GTE -> OperationType.LTE;
+            default -> opType;
+        };
     }
 
-    private String generateOperand(Operand operand) {
-        // get register
-        var reg = currentMethod.getVarTable().get(operand.getName()).getVirtualReg();
-        var type = currentMethod.getVarTable().get(operand.getName()).getVarType();
-        if(type.toString().equals("INT32") || type.toString().equals("BOOLEAN")){
-            return loader("i", reg)+NL;
-        }
-        else{
-            return loader("a", reg)+NL;
-        }
+    /**
+     * The branch that compares a value with zero, e.g. 'iflt' for '&lt;'.
+     */
+    private static Opcode getZeroBranch(OperationType opType) {
+        return switch (opType) {
+            case LTH -> Opcode.IFLT;
+            case GTH -> Opcode.IFGT;
+            case LTE -> Opcode.IFLE;
+            case GTE -> Opcode.IFGE;
+            case EQ -> Opcode.IFEQ;
+            case NEQ -> Opcode.IFNE;
+            default -> throw new NotImplementedException(opType);
+        };
     }
 
-    private String generateBinaryOp(BinaryOpInstruction binaryOp) {
-
-        var code = new StringBuilder();
-        code.append(generators.apply(binaryOp.getLeftOperand()));
-        code.append(generators.apply(binaryOp.getRightOperand()));
-        this.curStackSize = this.curStackSize-1;
-        switch (binaryOp.getOperation().getOpType()){
-            case ADD :
-                code.append("iadd").append(NL);
-                break;
-            case SUB :
-                code.append("isub").append(NL);
-                break;
-            case MUL :
-                code.append("imul").append(NL);
-                break;
-            case DIV :
-                code.append("idiv").append(NL);
-                break;
-            case OR :
-                code.append("ior").append(NL);
-                break;
-            case ANDB:
-                code.append("iand").append(NL);
-                break;
-            case LTH:
-                this.noper = "iflt";
-                break;
-            case LTE:
-                this.noper = "ifle";
-                break;
-            case GTE:
-                this.noper = "ifge";
-                break;
-            case GTH:
-                this.noper = "ifeq";
-                break;
-
-            default:
-                throw new NotImplementedException(binaryOp.getOperation().getOpType());
-        }
-        return code.toString();
+    /**
+     * The branch that compares two values, e.g. 'if_icmplt' for '&lt;'.
+     */
+    private static Opcode getCompareBranch(OperationType opType) {
+        return switch (opType) {
+            case LTH -> Opcode.IF_ICMPLT;
+            case GTH -> Opcode.IF_ICMPGT;
+            case LTE -> Opcode.IF_ICMPLE;
+            case GTE -> Opcode.IF_ICMPGE;
+            case EQ -> Opcode.IF_ICMPEQ;
+            case NEQ -> Opcode.IF_ICMPNE;
+            default -> throw new NotImplementedException(opType);
+        };
     }
 
-    private String generateReturn(ReturnInstruction returnInst) {
-        var code = new StringBuilder();
+    /**
+     * The array load instruction for elements of the given type, e.g. 'iaload'.
+     */
+    private static Opcode getArrayLoad(ElementType elementType) {
+        return switch (elementType) {
+            case INT32 -> Opcode.IALOAD;
+            case BOOLEAN -> Opcode.BALOAD;
+            default -> Opcode.AALOAD;
+        };
+    }
 
+    private static Opcode getArrayStore(ElementType elementType) {
+        return switch (elementType) {
+            case INT32 -> Opcode.IASTORE;
+            case BOOLEAN -> Opcode.BASTORE;
+            default -> Opcode.AASTORE;
+        };
+    }
 
-        if(returnInst.getOperand()==null){
-            code.append("return");
-        }
-        else{
-            code.append(generators.apply(returnInst.getOperand()));
-            code.append("ireturn");
-            this.curStackSize = this.curStackSize-1;
+    /**
+     * The JVM descriptor of the parameters and return type of a method, e.g. '([Ljava/lang/String;)V'.
+     */
+    String getMethodDescriptor(Method method) {
+        var descriptor = new StringBuilder("(");
+        for (var param : method.getParams()) {
+            descriptor.append(getDescriptor(param.getType()));
         }
+        return descriptor.append(")").append(getDescriptor(method.getReturnType())).toString();
+    }
 
-        return code.toString();
+    /**
+     * The JVM type descriptor of an OLLIR type, e.g. 'I' or '[Ljava/lang/String;'.
+     */
+    String getDescriptor(Type type) {
+        return switch (type.getTypeOfElement()) {
+            case INT32 -> "I";
+            case BOOLEAN -> "Z";
+            case VOID -> "V";
+            case STRING -> "Ljava/lang/String;";
+            case ARRAYREF -> "[".repeat(((ArrayType) type).getNumDimensions())
+                    + getDescriptor(((ArrayType) type).getElementType());
+            case OBJECTREF, CLASS, THIS -> "L" + getInternalName(type) + ";";
+        };
     }
 
+    /**
+     * The internal name of the class of an object type, e.g. 'java/lang/String'.
+     */
+    private String getInternalName(Type type) {
+        return switch (type.getTypeOfElement()) {
+            case THIS -> className;
+            case STRING -> "java/lang/String";
+            case OBJECTREF, CLASS -> getClassPath(((ClassType) type).getName());
+            default -> throw new NotImplementedException(type.getTypeOfElement());
+        };
+    }
+
+    /**
+     * The path of a class given by its simple name, which is qualified if the class was imported.
+     */
+    private String getClassPath(String simpleName) {
+        return importPaths.getOrDefault(simpleName, simpleName);
+    }
 }
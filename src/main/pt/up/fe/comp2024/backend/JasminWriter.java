@@ -0,0 +1,114 @@
+package pt.up.fe.comp2024.backend;
+
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Writes Jasmin code as it is generated, with the instructions of method bodies indented.
+ * <p>
+ * The body of a method is only emitted once it is complete (see {@link MethodBody}), since its limits must be written
+ * before it.
+ */
+public class JasminWriter implements InstructionEmitter {
+
+    private static final String NL = "\n";
+    private static final String TAB = "   ";
+
+    private final Writer out;
+
+    public JasminWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes a line that is not part of the body of a method.
+     */
+    public void write(String line) {
+        try {
+            out.write(line);
+            out.write(NL);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a line in the header of a method, indented as its instructions.
+     */
+    public void writeDirective(String directive) {
+        write(TAB + directive);
+    }
+
+    @Override
+    public void insn(Opcode opcode) {
+        writeInstruction(opcode.getMnemonic());
+    }
+
+    /**
+     * Registers 0 to 3 use the short form of the instruction, e.g. 'iload_1'.
+     */
+    @Override
+    public void varInsn(Opcode opcode, int register) {
+        writeInstruction(opcode.getMnemonic() + (register <= 3 ? "_" : " ") + register);
+    }
+
+    @Override
+    public void intInsn(Opcode opcode, int operand) {
+        if (opcode == Opcode.NEWARRAY) {
+            writeInstruction(opcode.getMnemonic() + " " + (operand == Opcodes.T_BOOLEAN ? "boolean" : "int"));
+            return;
+        }
+
+        writeInstruction(opcode.getMnemonic() + " " + operand);
+    }
+
+    @Override
+    public void ldc(int value) {
+        writeInstruction(Opcode.LDC.getMnemonic() + " " + value);
+    }
+
+    @Override
+    public void typeInsn(Opcode opcode, String type) {
+        writeInstruction(opcode.getMnemonic() + " " + type);
+    }
+
+    @Override
+    public void iinc(int register, int increment) {
+        writeInstruction(Opcode.IINC.getMnemonic() + " " + register + " " + increment);
+    }
+
+    @Override
+    public void fieldInsn(Opcode opcode, String owner, String name, String descriptor) {
+        writeInstruction(opcode.getMnemonic() + " " + owner + "/" + name + " " + descriptor);
+    }
+
+    @Override
+    public void methodInsn(Opcode opcode, String owner, String name, String descriptor) {
+        writeInstruction(opcode.getMnemonic() + " " + owner + "/" + name + descriptor);
+    }
+
+    @Override
+    public void jumpInsn(Opcode opcode, String label) {
+        writeInstruction(opcode.getMnemonic() + " " + label);
+    }
+
+    @Override
+    public void label(String label) {
+        write(label + ":");
+    }
+
+    private void writeInstruction(String instruction) {
+        write(TAB + instruction);
+    }
+
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
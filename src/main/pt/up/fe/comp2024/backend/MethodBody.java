@@ -0,0 +1,83 @@
+package pt.up.fe.comp2024.backend;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the instructions of a method body as they are emitted, so they can be rewritten as a whole (see
+ * {@link PeepholeOptimizer}) before being emitted to the Jasmin writer or to ASM.
+ */
+public class MethodBody implements InstructionEmitter {
+
+    private final List<Insn> instructions;
+
+    public MethodBody() {
+        this.instructions = new ArrayList<>();
+    }
+
+    /**
+     * The instructions and labels of the body, which may be changed in place.
+     */
+    public List<Insn> getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * Emits the instructions of the body, in order, to the given emitter.
+     */
+    public void emit(InstructionEmitter out) {
+        for (var instruction : instructions) {
+            instruction.emit(out);
+        }
+    }
+
+    @Override
+    public void insn(Opcode opcode) {
+        instructions.add(new Insn.SimpleInsn(opcode));
+    }
+
+    @Override
+    public void varInsn(Opcode opcode, int register) {
+        instructions.add(new Insn.VarInsn(opcode, register));
+    }
+
+    @Override
+    public void intInsn(Opcode opcode, int operand) {
+        instructions.add(new Insn.IntInsn(opcode, operand));
+    }
+
+    @Override
+    public void ldc(int value) {
+        instructions.add(new Insn.LdcInsn(value));
+    }
+
+    @Override
+    public void typeInsn(Opcode opcode, String type) {
+        instructions.add(new Insn.TypeInsn(opcode, type));
+    }
+
+    @Override
+    public void iinc(int register, int increment) {
+        instructions.add(new Insn.IincInsn(register, increment));
+    }
+
+    @Override
+    public void fieldInsn(Opcode opcode, String owner, String name, String descriptor) {
+        instructions.add(new Insn.FieldInsn(opcode, owner, name, descriptor));
+    }
+
+    @Override
+    public void methodInsn(Opcode opcode, String owner, String name, String descriptor) {
+        instructions.add(new Insn.MethodInsn(opcode, owner, name, descriptor));
+    }
+
+    @Override
+    public void jumpInsn(Opcode opcode, String label) {
+        instructions.add(new Insn.JumpInsn(opcode, label));
+    }
+
+    @Override
+    public void label(String label) {
+        instructions.add(new Insn.Label(label));
+    }
+}
@@ -0,0 +1,76 @@
+package pt.up.fe.comp2024.backend;
+
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Passes the instructions of a method body straight to an ASM method visitor, creating an ASM label for each label
+ * name the first time it is used.
+ */
+public class MethodVisitorEmitter implements InstructionEmitter {
+
+    private final MethodVisitor methodVisitor;
+    private final Map<String, Label> labels;
+
+    public MethodVisitorEmitter(MethodVisitor methodVisitor) {
+        this.methodVisitor = methodVisitor;
+        this.labels = new HashMap<>();
+    }
+
+    @Override
+    public void insn(Opcode opcode) {
+        methodVisitor.visitInsn(opcode.getOpcode());
+    }
+
+    @Override
+    public void varInsn(Opcode opcode, int register) {
+        methodVisitor.visitVarInsn(opcode.getOpcode(), register);
+    }
+
+    @Override
+    public void intInsn(Opcode opcode, int operand) {
+        methodVisitor.visitIntInsn(opcode.getOpcode(), operand);
+    }
+
+    @Override
+    public void ldc(int value) {
+        methodVisitor.visitLdcInsn(value);
+    }
+
+    @Override
+    public void typeInsn(Opcode opcode, String type) {
+        methodVisitor.visitTypeInsn(opcode.getOpcode(), type);
+    }
+
+    @Override
+    public void iinc(int register, int increment) {
+        methodVisitor.visitIincInsn(register, increment);
+    }
+
+    @Override
+    public void fieldInsn(Opcode opcode, String owner, String name, String descriptor) {
+        methodVisitor.visitFieldInsn(opcode.getOpcode(), owner, name, descriptor);
+    }
+
+    @Override
+    public void methodInsn(Opcode opcode, String owner, String name, String descriptor) {
+        methodVisitor.visitMethodInsn(opcode.getOpcode(), owner, name, descriptor, false);
+    }
+
+    @Override
+    public void jumpInsn(Opcode opcode, String label) {
+        methodVisitor.visitJumpInsn(opcode.getOpcode(), getLabel(label));
+    }
+
+    @Override
+    public void label(String label) {
+        methodVisitor.visitLabel(getLabel(label));
+    }
+
+    private Label getLabel(String name) {
+        return labels.computeIfAbsent(name, label -> new Label());
+    }
+}
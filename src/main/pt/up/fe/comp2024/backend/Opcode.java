@@ -0,0 +1,154 @@
+package pt.up.fe.comp2024.backend;
+
+import org.objectweb.asm.Opcodes;
+
+/**
+ * The JVM instructions selected by {@link JasminGenerator}, with their mnemonic in Jasmin, their opcode in ASM and
+ * their effect on the depth of the operand stack.
+ */
+public enum Opcode {
+
+    ICONST_M1(Opcodes.ICONST_M1, 1),
+    ICONST_0(Opcodes.ICONST_0, 1),
+    ICONST_1(Opcodes.ICONST_1, 1),
+    ICONST_2(Opcodes.ICONST_2, 1),
+    ICONST_3(Opcodes.ICONST_3, 1),
+    ICONST_4(Opcodes.ICONST_4, 1),
+    ICONST_5(Opcodes.ICONST_5, 1),
+    BIPUSH(Opcodes.BIPUSH, 1),
+    SIPUSH(Opcodes.SIPUSH, 1),
+    LDC(Opcodes.LDC, 1),
+    ILOAD(Opcodes.ILOAD, 1),
+    ALOAD(Opcodes.ALOAD, 1),
+    ISTORE(Opcodes.ISTORE, -1),
+    ASTORE(Opcodes.ASTORE, -1),
+    IALOAD(Opcodes.IALOAD, -1),
+    BALOAD(Opcodes.BALOAD, -1),
+    AALOAD(Opcodes.AALOAD, -1),
+    IASTORE(Opcodes.IASTORE, -3),
+    BASTORE(Opcodes.BASTORE, -3),
+    AASTORE(Opcodes.AASTORE, -3),
+    POP(Opcodes.POP, -1),
+    DUP(Opcodes.DUP, 1),
+    IADD(Opcodes.IADD, -1),
+    ISUB(Opcodes.ISUB, -1),
+    IMUL(Opcodes.IMUL, -1),
+    IDIV(Opcodes.IDIV, -1),
+    ISHL(Opcodes.ISHL, -1),
+    ISHR(Opcodes.ISHR, -1),
+    IUSHR(Opcodes.IUSHR, -1),
+    IAND(Opcodes.IAND, -1),
+    IOR(Opcodes.IOR, -1),
+    IXOR(Opcodes.IXOR, -1),
+    IINC(Opcodes.IINC, 0),
+    IFEQ(Opcodes.IFEQ, -1),
+    IFNE(Opcodes.IFNE, -1),
+    IFLT(Opcodes.IFLT, -1),
+    IFGE(Opcodes.IFGE, -1),
+    IFGT(Opcodes.IFGT, -1),
+    IFLE(Opcodes.IFLE, -1),
+    IF_ICMPEQ(Opcodes.IF_ICMPEQ, -2),
+    IF_ICMPNE(Opcodes.IF_ICMPNE, -2),
+    IF_ICMPLT(Opcodes.IF_ICMPLT, -2),
+    IF_ICMPGE(Opcodes.IF_ICMPGE, -2),
+    IF_ICMPGT(Opcodes.IF_ICMPGT, -2),
+    IF_ICMPLE(Opcodes.IF_ICMPLE, -2),
+    GOTO(Opcodes.GOTO, 0),
+    IRETURN(Opcodes.IRETURN, -1),
+    ARETURN(Opcodes.ARETURN, -1),
+    RETURN(Opcodes.RETURN, 0),
+    GETFIELD(Opcodes.GETFIELD, 0),
+    PUTFIELD(Opcodes.PUTFIELD, -2),
+    INVOKEVIRTUAL(Opcodes.INVOKEVIRTUAL, -1),
+    INVOKESPECIAL(Opcodes.INVOKESPECIAL, -1),
+    INVOKESTATIC(Opcodes.INVOKESTATIC, 0),
+    NEW(Opcodes.NEW, 1),
+    NEWARRAY(Opcodes.NEWARRAY, 0),
+    ANEWARRAY(Opcodes.ANEWARRAY, 0),
+    ARRAYLENGTH(Opcodes.ARRAYLENGTH, 0);
+
+    private final int opcode;
+    private final int stackEffect;
+
+    Opcode(int opcode, int stackEffect) {
+        this.opcode = opcode;
+        this.stackEffect = stackEffect;
+    }
+
+    /**
+     * The opcode of the instruction, as given to ASM.
+     */
+    public int getOpcode() {
+        return opcode;
+    }
+
+    /**
+     * The number of values the instruction pushes minus the number it pops. For invokes, only the receiver is
+     * counted, since the arguments and the result depend on the descriptor of the method.
+     */
+    public int getStackEffect() {
+        return stackEffect;
+    }
+
+    /**
+     * The name of the instruction in Jasmin, e.g. 'if_icmplt'.
+     */
+    public String getMnemonic() {
+        return name().toLowerCase();
+    }
+
+    public boolean isLoad() {
+        return this == ILOAD || this == ALOAD;
+    }
+
+    public boolean isStore() {
+        return this == ISTORE || this == ASTORE;
+    }
+
+    /**
+     * If the instruction is a conditional branch or a goto.
+     */
+    public boolean isJump() {
+        return this == GOTO || isConditionalJump();
+    }
+
+    public boolean isConditionalJump() {
+        return switch (this) {
+            case IFEQ, IFNE, IFLT, IFGE, IFGT, IFLE, IF_ICMPEQ, IF_ICMPNE, IF_ICMPLT, IF_ICMPGE, IF_ICMPGT,
+                    IF_ICMPLE -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * If the instruction never continues to the next one: a goto or a return.
+     */
+    public boolean isExit() {
+        return this == GOTO || isReturn();
+    }
+
+    public boolean isReturn() {
+        return this == IRETURN || this == ARETURN || this == RETURN;
+    }
+
+    /**
+     * The conditional branch taken exactly when this one is not, e.g. 'ifge' for 'iflt'.
+     */
+    public Opcode getNegated() {
+        return switch (this) {
+            case IFEQ -> IFNE;
+            case IFNE -> IFEQ;
+            case IFLT -> IFGE;
+            case IFGE -> IFLT;
+            case IFGT -> IFLE;
+            case IFLE -> IFGT;
+            case IF_ICMPEQ -> IF_ICMPNE;
+            case IF_ICMPNE -> IF_ICMPEQ;
+            case IF_ICMPLT -> IF_ICMPGE;
+            case IF_ICMPGE -> IF_ICMPLT;
+            case IF_ICMPGT -> IF_ICMPLE;
+            case IF_ICMPLE -> IF_ICMPGT;
+            default -> throw new IllegalArgumentException("'" + getMnemonic() + "' is not a conditional branch");
+        };
+    }
+}
@@ -0,0 +1,75 @@
+package pt.up.fe.comp2024.backend;
+
+import org.specs.comp.ollir.ElementType;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.VarScope;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The locals of a method as seen by the backend: the register of each variable and the instructions that load and
+ * store it, computed once per method instead of for each operand.
+ */
+public class OperandTable {
+
+    /**
+     * A variable of the method, with its load and store instructions already selected.
+     */
+    public record Local(int register, ElementType type, Opcode load, Opcode store) {
+    }
+
+    private final Map<String, Local> locals;
+    private final int limitLocals;
+
+    public OperandTable(Method method) {
+        this.locals = new HashMap<>();
+
+        // Registers may be shared after register allocation, so the limit is given by the highest one in use
+        int limit = method.getParams().size() + (method.isStaticMethod() ? 0 : 1);
+        for (var entry : method.getVarTable().entrySet()) {
+            // Fields and class names (e.g. the caller of a static call) are not stored in registers
+            var descriptor = entry.getValue();
+            var type = descriptor.getVarType().getTypeOfElement();
+            if (descriptor.getScope() == VarScope.FIELD || type == ElementType.CLASS) {
+                continue;
+            }
+
+            locals.put(entry.getKey(), newLocal(descriptor.getVirtualReg(), type));
+            limit = Math.max(limit, descriptor.getVirtualReg() + 1);
+        }
+
+        // 'this' is only in the var table of methods that use it explicitly
+        if (!method.isStaticMethod()) {
+            locals.putIfAbsent("this", newLocal(0, ElementType.THIS));
+        }
+
+        this.limitLocals = limit;
+    }
+
+    public Local get(String name) {
+        var local = locals.get(name);
+        if (local == null) {
+            throw new RuntimeException("Variable '" + name + "' is not a local of the method");
+        }
+
+        return local;
+    }
+
+    public int getLimitLocals() {
+        return limitLocals;
+    }
+
+    private static Local newLocal(int register, ElementType type) {
+        return isIntLike(type)
+                ? new Local(register, type, Opcode.ILOAD, Opcode.ISTORE)
+                : new Local(register, type, Opcode.ALOAD, Opcode.ASTORE);
+    }
+
+    /**
+     * If values of the given type are handled with the integer instructions of the JVM.
+     */
+    public static boolean isIntLike(ElementType type) {
+        return type == ElementType.INT32 || type == ElementType.BOOLEAN;
+    }
+}
@@ -0,0 +1,353 @@
+package pt.up.fe.comp2024.backend;
+
+import pt.up.fe.comp2024.backend.Insn.JumpInsn;
+import pt.up.fe.comp2024.backend.Insn.Label;
+import pt.up.fe.comp2024.backend.Insn.VarInsn;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rewrites short sequences of the instructions of a method body into shorter ones, after instruction selection and
+ * before the body is emitted.
+ * <p>
+ * Each pass goes through the instructions and labels of the body once and, at each one, tries the rules of
+ * {@link #rules} in order on the window that starts there; the first one that applies consumes some instructions of
+ * the window and emits their replacement. Passes are repeated until none applies. Rules may rely on the labels, jumps
+ * and loads of the whole body as they were at the start of the pass, since every rewrite keeps the meaning of the
+ * labels.
+ */
+public class PeepholeOptimizer {
+
+    /**
+     * A rewrite of the window that starts at the given instruction of the pass input.
+     */
+    @FunctionalInterface
+    private interface Rule {
+
+        /**
+         * @return the number of instructions consumed, after emitting their replacement, or 0 if the rule does not
+         * apply
+         */
+        int apply(int index);
+    }
+
+    /**
+     * Instructions that push a value without side effects, besides the loads.
+     */
+    private static final Set<Opcode> CONSTANTS = EnumSet.of(Opcode.ICONST_M1, Opcode.ICONST_0, Opcode.ICONST_1,
+            Opcode.ICONST_2, Opcode.ICONST_3, Opcode.ICONST_4, Opcode.ICONST_5, Opcode.BIPUSH, Opcode.SIPUSH,
+            Opcode.LDC);
+
+    private final List<Insn> body;
+    private final List<Rule> rules;
+
+    // Input and output of the current pass
+    private List<Insn> code;
+    private List<Insn> out;
+
+    // Facts about the input of the current pass
+    private Map<String, Integer> references;
+    private Map<String, Integer> targets;
+    private Map<Integer, Integer> reads;
+
+    /**
+     * @param body the instructions and labels of a method, which are changed in place
+     */
+    public PeepholeOptimizer(List<Insn> body) {
+        this.body = body;
+        this.rules = List.of(
+                this::removeUnusedValue,
+                this::removeStoreLoad,
+                this::dupStoreLoad,
+                this::removeDeadDupStore,
+                this::invertNegatedBranch,
+                this::invertBranchOverGoto,
+                this::removeGotoNext,
+                this::threadJump,
+                this::removeUnreachable,
+                this::removeUnusedLabel);
+    }
+
+    /**
+     * @return the number of rewrites
+     */
+    public int optimize() {
+        code = new ArrayList<>(body);
+
+        int rewrites = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            analyze();
+            out = new ArrayList<>(code.size());
+
+            int index = 0;
+            while (index < code.size()) {
+                int consumed = 0;
+                for (var rule : rules) {
+                    consumed = rule.apply(index);
+                    if (consumed > 0) {
+                        break;
+                    }
+                }
+
+                if (consumed > 0) {
+                    index += consumed;
+                    rewrites++;
+                    changed = true;
+                } else {
+                    out.add(code.get(index++));
+                }
+            }
+
+            code = out;
+        }
+
+        body.clear();
+        body.addAll(code);
+
+        return rewrites;
+    }
+
+    private void analyze() {
+        references = new HashMap<>();
+        targets = new HashMap<>();
+        reads = new HashMap<>();
+
+        for (int i = 0; i < code.size(); i++) {
+            var insn = code.get(i);
+
+            if (insn instanceof Label label) {
+                targets.put(label.name(), getNextInstruction(i));
+            } else if (insn instanceof JumpInsn jump) {
+                references.merge(jump.label(), 1, Integer::sum);
+            } else if (insn instanceof VarInsn varInsn && varInsn.opcode().isLoad()) {
+                reads.merge(varInsn.register(), 1, Integer::sum);
+            } else if (insn instanceof Insn.IincInsn iinc) {
+                reads.merge(iinc.register(), 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * 'iload_1; pop', and other values pushed without side effects and popped right away, are removed.
+     */
+    private int removeUnusedValue(int index) {
+        if (!isNext(index + 1, Opcode.POP)) {
+            return 0;
+        }
+
+        var insn = code.get(index);
+        return isLoad(insn) || CONSTANTS.contains(insn.opcode()) || insn.is(Opcode.DUP) ? 2 : 0;
+    }
+
+    /**
+     * 'istore_1; iload_1' is removed if register 1 is not read anywhere else, leaving the value on the stack.
+     */
+    private int removeStoreLoad(int index) {
+        if (!isStoreLoad(index) || reads.get(((VarInsn) code.get(index)).register()) != 1) {
+            return 0;
+        }
+
+        return 2;
+    }
+
+    /**
+     * 'istore_1; iload_1' becomes 'dup; istore_1', which does not read the register back.
+     */
+    private int dupStoreLoad(int index) {
+        if (!isStoreLoad(index)) {
+            return 0;
+        }
+
+        out.add(new Insn.SimpleInsn(Opcode.DUP));
+        out.add(code.get(index));
+        return 2;
+    }
+
+    /**
+     * 'dup; istore_1' is removed, leaving the value on the stack, if register 1 is never read or, in the straight-line
+     * code that follows, is stored again or the method returns before it is read.
+     */
+    private int removeDeadDupStore(int index) {
+        if (!code.get(index).is(Opcode.DUP) || index + 1 >= code.size()
+                || !(code.get(index + 1) instanceof VarInsn store && store.opcode().isStore())) {
+            return 0;
+        }
+
+        var register = store.register();
+        if (!reads.containsKey(register)) {
+            return 2;
+        }
+
+        for (int i = index + 2; i < code.size(); i++) {
+            var insn = code.get(i);
+            if (insn instanceof Label) {
+                continue;
+            }
+
+            if ((insn instanceof VarInsn varInsn && varInsn.register() == register)
+                    || (insn instanceof Insn.IincInsn iinc && iinc.register() == register)) {
+                return insn.opcode().isStore() ? 2 : 0;
+            }
+
+            if (insn.opcode().isReturn()) {
+                return 2;
+            }
+
+            if (insn.opcode().isJump()) {
+                return 0;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * 'iconst_1; ixor; ifeq L', the negation of a boolean followed by a test, becomes 'ifne L'.
+     */
+    private int invertNegatedBranch(int index) {
+        if (!code.get(index).is(Opcode.ICONST_1) || !isNext(index + 1, Opcode.IXOR) || index + 2 >= code.size()) {
+            return 0;
+        }
+
+        if (!(code.get(index + 2) instanceof JumpInsn branch)
+                || (!branch.is(Opcode.IFEQ) && !branch.is(Opcode.IFNE))) {
+            return 0;
+        }
+
+        out.add(new JumpInsn(branch.opcode().getNegated(), branch.label()));
+        return 3;
+    }
+
+    /**
+     * 'ifeq L1; goto L2; L1:', a branch over a goto, becomes 'ifne L2; L1:'.
+     */
+    private int invertBranchOverGoto(int index) {
+        if (!(code.get(index) instanceof JumpInsn branch) || !branch.opcode().isConditionalJump()
+                || !isNext(index + 1, Opcode.GOTO) || index + 2 >= code.size()) {
+            return 0;
+        }
+
+        if (!(code.get(index + 2) instanceof Label label) || !label.name().equals(branch.label())) {
+            return 0;
+        }
+
+        var jump = (JumpInsn) code.get(index + 1);
+        out.add(new JumpInsn(branch.opcode().getNegated(), jump.label()));
+        return 2;
+    }
+
+    /**
+     * A goto to a label that follows it, with only labels in between, is removed.
+     */
+    private int removeGotoNext(int index) {
+        if (!(code.get(index) instanceof JumpInsn jump) || !jump.is(Opcode.GOTO)) {
+            return 0;
+        }
+
+        for (int i = index + 1; i < code.size() && code.get(i) instanceof Label label; i++) {
+            if (label.name().equals(jump.label())) {
+                return 1;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * A jump to a label where a goto is jumps straight to the end of the chain of gotos. Chains that loop are left as
+     * they are.
+     */
+    private int threadJump(int index) {
+        if (!(code.get(index) instanceof JumpInsn jump)) {
+            return 0;
+        }
+
+        Set<String> visited = new HashSet<>();
+        var label = jump.label();
+        while (visited.add(label)) {
+            var target = targets.get(label);
+            if (target == null || !code.get(target).is(Opcode.GOTO)) {
+                break;
+            }
+            label = ((JumpInsn) code.get(target)).label();
+        }
+
+        var target = targets.get(label);
+        if (label.equals(jump.label()) || target == null || code.get(target).is(Opcode.GOTO)) {
+            return 0;
+        }
+
+        out.add(new JumpInsn(jump.opcode(), label));
+        return 1;
+    }
+
+    /**
+     * The instructions after a goto or a return, up to the next label, never run and are removed.
+     */
+    private int removeUnreachable(int index) {
+        var insn = code.get(index);
+        if (insn instanceof Label || !insn.opcode().isExit()) {
+            return 0;
+        }
+
+        int end = index + 1;
+        while (end < code.size() && !(code.get(end) instanceof Label)) {
+            end++;
+        }
+
+        if (end == index + 1) {
+            return 0;
+        }
+
+        out.add(insn);
+        return end - index;
+    }
+
+    private int removeUnusedLabel(int index) {
+        return code.get(index) instanceof Label label && !references.containsKey(label.name()) ? 1 : 0;
+    }
+
+    /**
+     * If the instructions at the index are a store to a register and a load of the same register, e.g.
+     * 'istore 4; iload 4'.
+     */
+    private boolean isStoreLoad(int index) {
+        if (index + 1 >= code.size()) {
+            return false;
+        }
+
+        if (!(code.get(index) instanceof VarInsn store) || !(code.get(index + 1) instanceof VarInsn load)) {
+            return false;
+        }
+
+        var loadOpcode = store.is(Opcode.ISTORE) ? Opcode.ILOAD : Opcode.ALOAD;
+        return store.opcode().isStore() && load.is(loadOpcode) && store.register() == load.register();
+    }
+
+    private boolean isNext(int index, Opcode opcode) {
+        return index < code.size() && code.get(index).is(opcode);
+    }
+
+    /**
+     * The index of the first instruction at or after the given one that is not a label, or null if there is none.
+     */
+    private Integer getNextInstruction(int index) {
+        while (index < code.size() && code.get(index) instanceof Label) {
+            index++;
+        }
+
+        return index < code.size() ? index : null;
+    }
+
+    private static boolean isLoad(Insn insn) {
+        return insn instanceof VarInsn && insn.opcode().isLoad();
+    }
+}
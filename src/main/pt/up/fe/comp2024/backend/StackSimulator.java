@@ -0,0 +1,100 @@
+package pt.up.fe.comp2024.backend;
+
+import pt.up.fe.comp2024.backend.Insn.JumpInsn;
+import pt.up.fe.comp2024.backend.Insn.Label;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the maximum depth of the operand stack of a method by simulating the instructions of its body, which gives
+ * the exact value of '.limit stack'.
+ * <p>
+ * The depth is propagated along every path of the method, following jumps to labels, and must be the same whenever
+ * two paths meet, as required by the JVM.
+ */
+public class StackSimulator {
+
+    private final List<Insn> body;
+    private final Map<String, Integer> labels;
+
+    /**
+     * @param body the instructions and labels of the method
+     */
+    public StackSimulator(List<Insn> body) {
+        this.body = body;
+        this.labels = new HashMap<>();
+
+        for (int i = 0; i < body.size(); i++) {
+            if (body.get(i) instanceof Label label) {
+                labels.put(label.name(), i);
+            }
+        }
+    }
+
+    public int getMaxStack() {
+        var depths = new int[body.size()];
+        Arrays.fill(depths, -1);
+
+        int maxStack = 0;
+        var worklist = new ArrayDeque<Integer>();
+        reach(depths, worklist, 0, 0);
+
+        while (!worklist.isEmpty()) {
+            int index = worklist.poll();
+            var insn = body.get(index);
+            int depth = depths[index];
+
+            if (insn instanceof Label) {
+                reach(depths, worklist, index + 1, depth);
+                continue;
+            }
+
+            // Values are popped before the result is pushed, so the peak is either before or after the instruction
+            int after = depth + insn.getStackEffect();
+            if (after < 0) {
+                throw new RuntimeException("Instruction " + insn + " pops from an empty stack");
+            }
+            maxStack = Math.max(maxStack, after);
+
+            if (insn instanceof JumpInsn jump) {
+                reach(depths, worklist, getTarget(jump.label()), after);
+            }
+
+            if (!insn.opcode().isExit()) {
+                reach(depths, worklist, index + 1, after);
+            }
+        }
+
+        return maxStack;
+    }
+
+    private void reach(int[] depths, ArrayDeque<Integer> worklist, int index, int depth) {
+        if (index >= depths.length) {
+            return;
+        }
+
+        if (depths[index] == -1) {
+            depths[index] = depth;
+            worklist.add(index);
+            return;
+        }
+
+        if (depths[index] != depth) {
+            throw new RuntimeException("Stack depth at " + body.get(index) + " is both " + depths[index] + " and "
+                    + depth);
+        }
+    }
+
+    private int getTarget(String label) {
+        var target = labels.get(label);
+        if (target == null) {
+            throw new RuntimeException("Label '" + label + "' is not defined");
+        }
+
+        return target;
+    }
+}
@@ -0,0 +1,174 @@
+package pt.up.fe.comp2024.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp.jmm.ast.JmmSerializer;
+import pt.up.fe.comp2024.BuildFingerprint;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Persistent cache of the outputs of each stage, so that compiling a unit that did not change skips straight to its
+ * outputs.
+ * <p>
+ * Entries are JSON files named by the SHA-256 of the build of the compiler, the source code and the options that
+ * change the output. Each entry also records the hash of the source of every imported class that is compiled from a
+ * .jmm file next to the unit, and is ignored if any of them changed.
+ */
+public class CompilationCache {
+
+    private static final String JMM_EXTENSION = ".jmm";
+
+    private static final Gson GSON = new GsonBuilder()
+            .disableHtmlEscaping()
+            .registerTypeAdapter(JmmNode.class, new JmmSerializer())
+            .create();
+
+    /**
+     * The outputs of the stages for one unit.
+     */
+    public static class Entry {
+
+        private String parseTree;
+        private String optimizedTree;
+        private String ollirCode;
+        private Map<String, String> dependencies;
+
+        public JmmNode getParseTree() {
+            return JmmNodeImpl.fromJson(parseTree);
+        }
+
+        public JmmNode getOptimizedTree() {
+            return JmmNodeImpl.fromJson(optimizedTree);
+        }
+
+        public String getOllirCode() {
+            return ollirCode;
+        }
+    }
+
+    private final File directory;
+
+    public CompilationCache(File directory) {
+        this.directory = directory;
+    }
+
+    public static Optional<CompilationCache> create(Map<String, String> config) {
+        return CompilerConfig.getCacheDir(config).map(CompilationCache::new);
+    }
+
+    /**
+     * The entry of the given unit, if it was compiled before with the same options and none of the classes it imports
+     * changed since then.
+     */
+    public Optional<Entry> lookup(File inputFile, String code, Map<String, String> config) {
+        var entryFile = getEntryFile(code, config);
+        if (!entryFile.isFile()) {
+            return Optional.empty();
+        }
+
+        Entry entry;
+        try {
+            entry = GSON.fromJson(SpecsIo.read(entryFile), Entry.class);
+        } catch (JsonParseException e) {
+            // A corrupted entry is the same as a missing one, it is replaced when the unit is compiled
+            return Optional.empty();
+        }
+
+        if (entry == null || entry.dependencies == null) {
+            return Optional.empty();
+        }
+
+        for (var dependency : entry.dependencies.entrySet()) {
+            if (!hashDependency(inputFile, dependency.getKey()).equals(dependency.getValue())) {
+                return Optional.empty();
+            }
+        }
+
+        return Optional.of(entry);
+    }
+
+    /**
+     * Saves the outputs of compiling the given unit.
+     *
+     * @param parseTree     the tree returned by the parser, see {@link #serialize(JmmNode)}
+     * @param optimizedTree the tree after the AST optimizations
+     * @param symbolTable   the symbol table of the unit, whose imports are the dependencies of the entry
+     */
+    public void store(File inputFile, String code, Map<String, String> config, String parseTree,
+                      String optimizedTree, SymbolTable symbolTable, String ollirCode) {
+        var entry = new Entry();
+        entry.parseTree = parseTree;
+        entry.optimizedTree = optimizedTree;
+        entry.ollirCode = ollirCode;
+
+        entry.dependencies = new LinkedHashMap<>();
+        for (var importName : symbolTable.getImports()) {
+            entry.dependencies.put(importName, hashDependency(inputFile, importName));
+        }
+
+        SpecsIo.mkdir(directory);
+        var entryFile = getEntryFile(code, config).toPath();
+
+        // Written to a temporary file first, so that concurrent compilations never read a partial entry
+        try {
+            var temporary = Files.createTempFile(directory.toPath(), "entry", ".tmp");
+            Files.writeString(temporary, GSON.toJson(entry));
+            Files.move(temporary, entryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write cache entry '" + entryFile + "'", e);
+        }
+    }
+
+    /**
+     * Serializes a tree as it is at the moment, since later stages may change it in place.
+     */
+    public static String serialize(JmmNode root) {
+        return GSON.toJson(root, JmmNode.class);
+    }
+
+    private File getEntryFile(String code, Map<String, String> config) {
+        // Entries of another build of the compiler are not reused, since its outputs may differ
+        var key = String.join("\n", BuildFingerprint.get(),
+                String.valueOf(CompilerConfig.getOptimize(config)),
+                String.valueOf(CompilerConfig.getRegisterAllocation(config)),
+                code);
+
+        return new File(directory, hash(key) + ".json");
+    }
+
+    /**
+     * The hash of the source of an imported class, e.g. 'a/b/C.jmm' for 'a.b.C', relative to the directory of the
+     * unit. Classes without a source (e.g. from the Java library) have an empty hash.
+     */
+    private static String hashDependency(File inputFile, String importName) {
+        var source = new File(inputFile.getAbsoluteFile().getParentFile(), importName.replace('.', '/') + JMM_EXTENSION);
+        return source.isFile() ? hash(SpecsIo.read(source)) : "";
+    }
+
+    private static String hash(String contents) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(contents.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available", e);
+        }
+    }
+}
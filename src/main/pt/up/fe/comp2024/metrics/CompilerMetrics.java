@@ -0,0 +1,177 @@
+package pt.up.fe.comp2024.metrics;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Records wall time, CPU time and allocated bytes of each compilation stage, plus named counters (e.g. AST node
+ * counts, optimization iterations), so they can be emitted as JSON.
+ * <p>
+ * Measurements are taken on the calling thread, and stages may be measured concurrently (e.g. the analysis passes). A
+ * disabled instance runs the work without measuring anything, so the stages can always go through their metrics.
+ */
+public class CompilerMetrics {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final boolean enabled;
+    private final List<StageMetrics> stages;
+
+    private CompilerMetrics(boolean enabled) {
+        this.enabled = enabled;
+        this.stages = new ArrayList<>();
+    }
+
+    /**
+     * New metrics for a compilation with the given options, enabled only if the option '-m' was given.
+     */
+    public static CompilerMetrics create(Map<String, String> config) {
+        return new CompilerMetrics(CompilerConfig.getMetrics(config));
+    }
+
+    public static CompilerMetrics disabled() {
+        return new CompilerMetrics(false);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs the given work, recording its metrics under the given stage name.
+     */
+    public <T> T measure(String stage, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+
+        // Added before running, so that stages are listed by starting order
+        var metrics = new StageMetrics(stage);
+        synchronized (stages) {
+            stages.add(metrics);
+        }
+
+        var startAllocated = allocatedBytes();
+        var startCpu = cpuTime();
+        var startWall = System.nanoTime();
+
+        try {
+            return work.get();
+        } finally {
+            metrics.wallNanos = System.nanoTime() - startWall;
+            metrics.cpuNanos = startCpu < 0 ? -1 : cpuTime() - startCpu;
+            metrics.allocatedBytes = startAllocated < 0 ? -1 : allocatedBytes() - startAllocated;
+        }
+    }
+
+    /**
+     * Runs the given work, that has no result, recording its metrics under the given stage name.
+     */
+    public void measure(String stage, Runnable work) {
+        measure(stage, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Sets a counter of the given stage, which is created if it was not measured.
+     */
+    public void count(String stage, String counter, long value) {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (stages) {
+            getStage(stage).counters.put(counter, value);
+        }
+    }
+
+    /**
+     * Counts the nodes of an AST, as a counter of the given stage.
+     */
+    public void countNodes(String stage, JmmNode root) {
+        if (!enabled) {
+            return;
+        }
+
+        count(stage, "astNodes", root.getDescendantsAndSelfStream().count());
+    }
+
+    public JsonObject toJson() {
+        var json = new JsonObject();
+        json.add("stages", new GsonBuilder().create().toJsonTree(stages));
+        return json;
+    }
+
+    /**
+     * Writes the given metrics to the file given with '-m=&lt;file&gt;', or to the standard output if only '-m' was
+     * given.
+     */
+    public static void emit(JsonElement metrics, Map<String, String> config) {
+        var json = new GsonBuilder().setPrettyPrinting().create().toJson(metrics);
+
+        var metricsFile = CompilerConfig.getMetricsFile(config);
+        if (metricsFile.isPresent()) {
+            SpecsIo.write(metricsFile.get(), json);
+        } else {
+            System.out.println(json);
+        }
+    }
+
+    private StageMetrics getStage(String stage) {
+        for (int i = stages.size() - 1; i >= 0; i--) {
+            if (stages.get(i).name.equals(stage)) {
+                return stages.get(i);
+            }
+        }
+
+        var metrics = new StageMetrics(stage);
+        stages.add(metrics);
+        return metrics;
+    }
+
+    private static long cpuTime() {
+        if (!THREADS.isCurrentThreadCpuTimeSupported() || !THREADS.isThreadCpuTimeEnabled()) {
+            return -1;
+        }
+
+        return THREADS.getCurrentThreadCpuTime();
+    }
+
+    private static long allocatedBytes() {
+        if (!THREADS.isThreadAllocatedMemorySupported() || !THREADS.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Metrics of one stage, -1 when the JVM cannot measure a value.
+     */
+    private static class StageMetrics {
+
+        private final String name;
+        private long wallNanos;
+        private long cpuNanos;
+        private long allocatedBytes;
+        private final Map<String, Long> counters = new LinkedHashMap<>();
+
+        private StageMetrics(String name) {
+            this.name = name;
+        }
+    }
+}
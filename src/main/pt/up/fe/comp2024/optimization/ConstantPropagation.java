@@ -0,0 +1,401 @@
+package pt.up.fe.comp2024.optimization;
+
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp2024.ast.Kind;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static pt.up.fe.comp2024.ast.Kind.*;
+
+/**
+ * Conditional constant propagation and folding over the AST.
+ * <p>
+ * For each method, a worklist algorithm over its {@link ControlFlowGraph} computes, for every statement, the value of
+ * each int and boolean local in the constant lattice (undefined, constant, not constant). Only edges that can be
+ * taken are followed, so values assigned in branches that are never executed do not spoil the merges at the end of
+ * ifs and at the head of whiles. The fixed point is reached in a single run per method.
+ * <p>
+ * Expressions that are constant where they are evaluated are then replaced by literals, ifs with a constant condition
+ * are replaced by the branch that is taken, and whiles whose condition is always false are removed.
+ */
+public class ConstantPropagation {
+
+    private static final String INT_TYPE_NAME = "int";
+    private static final String BOOLEAN_TYPE_NAME = "boolean";
+
+    private final SymbolTable table;
+
+    private int rewrites;
+    private int steps;
+
+    public ConstantPropagation(SymbolTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Optimizes all the methods of the given program.
+     *
+     * @return the number of nodes of the AST that were rewritten
+     */
+    public int apply(JmmNode root) {
+        rewrites = 0;
+        steps = 0;
+
+        for (var methodDecl : root.getDescendants(METHOD_DECL)) {
+            new MethodPropagation(methodDecl).run();
+        }
+
+        return rewrites;
+    }
+
+    /**
+     * Number of nodes processed by the worklist in the last {@link #apply(JmmNode)}.
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * A value of the constant lattice, booleans are represented as 0 and 1.
+     */
+    private record Value(int state, int constant) {
+
+        private static final int UNDEFINED = 0;
+        private static final int CONSTANT = 1;
+        private static final int NOT_CONSTANT = 2;
+
+        private static final Value TOP = new Value(UNDEFINED, 0);
+        private static final Value BOTTOM = new Value(NOT_CONSTANT, 0);
+
+        private static Value of(int constant) {
+            return new Value(CONSTANT, constant);
+        }
+
+        private static Value of(boolean constant) {
+            return new Value(CONSTANT, constant ? 1 : 0);
+        }
+
+        private boolean isConstant() {
+            return state == CONSTANT;
+        }
+
+        private Value meet(Value other) {
+            if (state == UNDEFINED) {
+                return other;
+            }
+
+            if (other.state == UNDEFINED) {
+                return this;
+            }
+
+            return this.equals(other) ? this : BOTTOM;
+        }
+    }
+
+    private class MethodPropagation {
+
+        private final JmmNode methodDecl;
+        private final ControlFlowGraph cfg;
+        // Index of each tracked variable in the environments
+        private final Map<String, Integer> variables;
+        private final boolean[] isBoolean;
+
+        // Environments at the start and at the end of each node, null while the node is unreachable
+        private final Value[][] in;
+        private final Value[][] out;
+        private final boolean[] executable;
+
+        private MethodPropagation(JmmNode methodDecl) {
+            this.methodDecl = methodDecl;
+            this.cfg = ControlFlowGraph.build(methodDecl);
+
+            var methodName = methodDecl.get("methodName");
+            var params = table.getParameters(methodName);
+            var locals = table.getLocalVariables(methodName);
+
+            this.variables = new HashMap<>();
+            this.isBoolean = new boolean[params.size() + locals.size()];
+            addVariables(params);
+            addVariables(locals);
+
+            var numNodes = cfg.getNodes().size();
+            this.in = new Value[numNodes][];
+            this.out = new Value[numNodes][];
+            this.executable = new boolean[numNodes * 2];
+        }
+
+        private void addVariables(List<Symbol> symbols) {
+            for (var symbol : symbols) {
+                var type = symbol.getType();
+                if (type.isArray()) {
+                    continue;
+                }
+
+                if (type.getName().equals(INT_TYPE_NAME) || type.getName().equals(BOOLEAN_TYPE_NAME)) {
+                    isBoolean[variables.size()] = type.getName().equals(BOOLEAN_TYPE_NAME);
+                    variables.put(symbol.getName(), variables.size());
+                }
+            }
+        }
+
+        private void run() {
+            solve();
+            rewrite();
+        }
+
+        private void solve() {
+            // Parameters are unknown, locals are undefined until assigned
+            var entryEnv = new Value[variables.size()];
+            Arrays.fill(entryEnv, Value.TOP);
+            var methodName = methodDecl.get("methodName");
+            for (var param : table.getParameters(methodName)) {
+                var index = variables.get(param.getName());
+                if (index != null) {
+                    entryEnv[index] = Value.BOTTOM;
+                }
+            }
+
+            var entry = cfg.getEntry();
+            in[entry.getId()] = entryEnv;
+
+            var worklist = new ArrayDeque<ControlFlowGraph.Node>();
+            var queued = new boolean[cfg.getNodes().size()];
+            worklist.add(entry);
+            queued[entry.getId()] = true;
+
+            while (!worklist.isEmpty()) {
+                var node = worklist.poll();
+                queued[node.getId()] = false;
+                steps++;
+
+                var env = in[node.getId()];
+                var nodeOut = transfer(node, env);
+                out[node.getId()] = nodeOut;
+
+                switch (node.getType()) {
+                    case ENTRY, STATEMENT -> flow(node, 0, worklist, queued);
+                    case BRANCH -> {
+                        var condition = eval(node.getAst().getJmmChild(0), env, false);
+                        if (condition.state() == Value.NOT_CONSTANT) {
+                            flow(node, 0, worklist, queued);
+                            flow(node, 1, worklist, queued);
+                        } else if (condition.isConstant()) {
+                            flow(node, condition.constant() != 0 ? 0 : 1, worklist, queued);
+                        }
+                    }
+                    case EXIT -> {
+                    }
+                }
+            }
+        }
+
+        /**
+         * Marks an edge as executable and updates the environment at its target.
+         */
+        private void flow(ControlFlowGraph.Node node, int slot, ArrayDeque<ControlFlowGraph.Node> worklist,
+                          boolean[] queued) {
+            executable[ControlFlowGraph.edge(node, slot)] = true;
+            var target = node.getSuccessor(slot);
+
+            // Merge over all the incoming edges that can be taken
+            Value[] merged = null;
+            for (var edge : target.getIncoming()) {
+                if (!executable[edge]) {
+                    continue;
+                }
+
+                var predecessorOut = out[cfg.getEdgeSource(edge).getId()];
+                if (predecessorOut == null) {
+                    continue;
+                }
+
+                if (merged == null) {
+                    merged = predecessorOut.clone();
+                } else {
+                    for (int i = 0; i < merged.length; i++) {
+                        merged[i] = merged[i].meet(predecessorOut[i]);
+                    }
+                }
+            }
+
+            var targetId = target.getId();
+            if (merged != null && !Arrays.equals(merged, in[targetId])) {
+                in[targetId] = merged;
+                if (!queued[targetId]) {
+                    worklist.add(target);
+                    queued[targetId] = true;
+                }
+            }
+        }
+
+        private Value[] transfer(ControlFlowGraph.Node node, Value[] env) {
+            if (node.getType() != ControlFlowGraph.NodeType.STATEMENT || !ASSIGN_STMT.check(node.getAst())) {
+                return env;
+            }
+
+            var assign = node.getAst();
+            var index = variables.get(assign.get("value"));
+            if (index == null) {
+                return env;
+            }
+
+            var result = env.clone();
+            result[index] = eval(assign.getJmmChild(0), env, false);
+            return result;
+        }
+
+        private void rewrite() {
+            for (var node : cfg.getNodes()) {
+                var env = in[node.getId()];
+                // Unreachable code is left as it is
+                if (env == null) {
+                    continue;
+                }
+
+                switch (node.getType()) {
+                    case STATEMENT -> {
+                        for (var child : node.getAst().getChildren()) {
+                            eval(child, env, true);
+                        }
+                    }
+                    case BRANCH -> rewriteBranch(node, env);
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        private void rewriteBranch(ControlFlowGraph.Node node, Value[] env) {
+            var stmt = node.getAst();
+            var condition = eval(stmt.getJmmChild(0), env, true);
+            if (!condition.isConstant()) {
+                return;
+            }
+
+            if (IF_STMT.check(stmt)) {
+                // Keep only the branch that is taken
+                var taken = stmt.getJmmChild(condition.constant() != 0 ? 1 : 2);
+                taken.detach();
+                stmt.replace(taken);
+                rewrites++;
+            } else if (condition.constant() == 0) {
+                // While that is never entered
+                stmt.detach();
+                rewrites++;
+            }
+        }
+
+        /**
+         * Computes the value of an expression in the given environment. If rewriting, constant subexpressions are
+         * replaced by literals.
+         */
+        private Value eval(JmmNode expr, Value[] env, boolean rewrite) {
+            var kind = Kind.fromString(expr.getKind());
+
+            var value = switch (kind) {
+                case INTEGER_LITERAL -> parseInteger(expr.get("value"));
+                case BOOLEAN_LITERAL -> Value.of(Boolean.parseBoolean(expr.get("value")));
+                case VAR_REF -> {
+                    var index = variables.get(expr.get("value"));
+                    yield index == null ? Value.BOTTOM : env[index];
+                }
+                case PARENTHESIS_EXPR -> eval(expr.getJmmChild(0), env, rewrite);
+                case UNARY_EXPR -> {
+                    var operand = eval(expr.getJmmChild(0), env, rewrite);
+                    yield operand.isConstant() ? Value.of(operand.constant() == 0) : operand;
+                }
+                case BINARY_EXPR -> evalBinary(expr.get("op"), eval(expr.getJmmChild(0), env, rewrite),
+                        eval(expr.getJmmChild(1), env, rewrite));
+                default -> {
+                    // Only the subexpressions can be folded
+                    if (rewrite) {
+                        for (var child : expr.getChildren()) {
+                            eval(child, env, true);
+                        }
+                    }
+                    yield Value.BOTTOM;
+                }
+            };
+
+            if (rewrite && value.isConstant() && kind != INTEGER_LITERAL && kind != BOOLEAN_LITERAL) {
+                expr.replace(newLiteral(expr, value));
+                rewrites++;
+            }
+
+            return value;
+        }
+
+        private Value evalBinary(String op, Value left, Value right) {
+            // false && x is false even if x is not constant
+            if (op.equals("&&") && left.isConstant() && left.constant() == 0) {
+                return Value.of(false);
+            }
+
+            if (left.state() == Value.NOT_CONSTANT || right.state() == Value.NOT_CONSTANT) {
+                return Value.BOTTOM;
+            }
+
+            if (!left.isConstant() || !right.isConstant()) {
+                return Value.TOP;
+            }
+
+            var l = left.constant();
+            var r = right.constant();
+            return switch (op) {
+                case "+" -> Value.of(l + r);
+                case "-" -> Value.of(l - r);
+                case "*" -> Value.of(l * r);
+                // Division by zero must still throw at run time
+                case "/" -> r == 0 ? Value.BOTTOM : Value.of(l / r);
+                case "<" -> Value.of(l < r);
+                case ">" -> Value.of(l > r);
+                case "&&" -> Value.of(l != 0 && r != 0);
+                default -> Value.BOTTOM;
+            };
+        }
+
+        private static Value parseInteger(String literal) {
+            try {
+                return Value.of(Integer.parseInt(literal));
+            } catch (NumberFormatException e) {
+                return Value.BOTTOM;
+            }
+        }
+
+        private JmmNode newLiteral(JmmNode expr, Value value) {
+            var isBooleanExpr = isBooleanExpr(expr);
+
+            var literal = new JmmNodeImpl(isBooleanExpr ? BOOLEAN_LITERAL.toString() : INTEGER_LITERAL.toString());
+            literal.put("value", isBooleanExpr ? Boolean.toString(value.constant() != 0) : Integer.toString(value.constant()));
+
+            // Keep the position of the original expression
+            for (var attribute : List.of("lineStart", "colStart", "lineEnd", "colEnd")) {
+                expr.getOptional(attribute).ifPresent(position -> literal.put(attribute, position));
+            }
+
+            return literal;
+        }
+
+        private boolean isBooleanExpr(JmmNode expr) {
+            var kind = Kind.fromString(expr.getKind());
+
+            return switch (kind) {
+                case BOOLEAN_LITERAL, UNARY_EXPR -> true;
+                case BINARY_EXPR -> List.of("&&", "<", ">").contains(expr.get("op"));
+                case PARENTHESIS_EXPR -> isBooleanExpr(expr.getJmmChild(0));
+                case VAR_REF -> {
+                    var index = variables.get(expr.get("value"));
+                    yield index != null && isBoolean[index];
+                }
+                default -> false;
+            };
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package pt.up.fe.comp2024.optimization;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2024.ast.Kind;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static pt.up.fe.comp2024.ast.Kind.*;
+
+/**
+ * Control-flow graph of the statements of a method, built directly from the AST.
+ * <p>
+ * Each simple statement (assignments, expression statements, returns) is a node, and the condition of each if and
+ * while is a branch node with two outgoing edges, the first taken when the condition is true. Blocks do not have
+ * nodes of their own.
+ */
+public class ControlFlowGraph {
+
+    public enum NodeType {
+        ENTRY,
+        STATEMENT,
+        BRANCH,
+        EXIT
+    }
+
+    public static class Node {
+
+        private final int id;
+        private final NodeType type;
+        private final JmmNode ast;
+        private final Node[] successors;
+        private final List<Integer> incoming;
+
+        private Node(int id, NodeType type, JmmNode ast) {
+            this.id = id;
+            this.type = type;
+            this.ast = ast;
+            this.successors = new Node[2];
+            this.incoming = new ArrayList<>();
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public NodeType getType() {
+            return type;
+        }
+
+        /**
+         * The statement of a STATEMENT node, or the if/while statement of a BRANCH node.
+         */
+        public JmmNode getAst() {
+            return ast;
+        }
+
+        /**
+         * The successor through the given edge slot, 0 for the only successor of non-branch nodes and for the true
+         * edge of branches, 1 for the false edge of branches.
+         */
+        public Node getSuccessor(int slot) {
+            return successors[slot];
+        }
+
+        /**
+         * Identifiers of the edges that reach this node, see {@link ControlFlowGraph#edge(Node, int)}.
+         */
+        public List<Integer> getIncoming() {
+            return incoming;
+        }
+    }
+
+    private static final Kind[] STATEMENTS = {ASSIGN_STMT, ARRAY_ASSIGN_STMT, EXPR_STMT, IF_STMT, WHILE_STMT,
+            BLOCK_STMT, RETURN_STMT};
+
+    private final List<Node> nodes;
+    private final Node entry;
+    private final Node exit;
+
+    private ControlFlowGraph(JmmNode methodDecl) {
+        this.nodes = new ArrayList<>();
+        this.entry = newNode(NodeType.ENTRY, methodDecl);
+
+        List<Integer> open = List.of(edge(entry, 0));
+        for (var child : methodDecl.getChildren()) {
+            if (Kind.check(child, STATEMENTS)) {
+                open = connect(child, open);
+            }
+        }
+
+        this.exit = newNode(NodeType.EXIT, methodDecl);
+        link(open, exit);
+    }
+
+    public static ControlFlowGraph build(JmmNode methodDecl) {
+        return new ControlFlowGraph(methodDecl);
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public Node getEntry() {
+        return entry;
+    }
+
+    public Node getExit() {
+        return exit;
+    }
+
+    /**
+     * Identifier of the edge leaving the given node through the given slot.
+     */
+    public static int edge(Node from, int slot) {
+        return from.id * 2 + slot;
+    }
+
+    public Node getEdgeSource(int edge) {
+        return nodes.get(edge / 2);
+    }
+
+    /**
+     * Adds the nodes of a statement, reached through the given open edges.
+     *
+     * @return the edges that leave the statement
+     */
+    private List<Integer> connect(JmmNode stmt, List<Integer> open) {
+        var kind = Kind.fromString(stmt.getKind());
+
+        switch (kind) {
+            case BLOCK_STMT -> {
+                for (var child : stmt.getChildren()) {
+                    open = connect(child, open);
+                }
+                return open;
+            }
+            case IF_STMT -> {
+                var branch = newNode(NodeType.BRANCH, stmt);
+                link(open, branch);
+
+                var exits = new ArrayList<>(connect(stmt.getJmmChild(1), List.of(edge(branch, 0))));
+                exits.addAll(connect(stmt.getJmmChild(2), List.of(edge(branch, 1))));
+                return exits;
+            }
+            case WHILE_STMT -> {
+                var branch = newNode(NodeType.BRANCH, stmt);
+                link(open, branch);
+
+                var bodyExits = connect(stmt.getJmmChild(1), List.of(edge(branch, 0)));
+                link(bodyExits, branch);
+                return List.of(edge(branch, 1));
+            }
+            default -> {
+                var node = newNode(NodeType.STATEMENT, stmt);
+                link(open, node);
+                return List.of(edge(node, 0));
+            }
+        }
+    }
+
+    private Node newNode(NodeType type, JmmNode ast) {
+        var node = new Node(nodes.size(), type, ast);
+        nodes.add(node);
+        return node;
+    }
+
+    private void link(List<Integer> edges, Node target) {
+        for (var edge : edges) {
+            getEdgeSource(edge).successors[edge % 2] = target;
+            target.incoming.add(edge);
+        }
+    }
+}
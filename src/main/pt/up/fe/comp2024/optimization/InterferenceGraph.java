@@ -0,0 +1,85 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.specs.comp.ollir.AssignInstruction;
+import org.specs.comp.ollir.ArrayOperand;
+import org.specs.comp.ollir.Instruction;
+import org.specs.comp.ollir.Operand;
+import org.specs.comp.ollir.SingleOpInstruction;
+
+import java.util.BitSet;
+
+/**
+ * Interference graph of the variables of a method, built from its liveness. Two variables interfere when one is
+ * defined while the other is live, so they cannot share a register.
+ */
+public class InterferenceGraph {
+
+    private final BitSet[] neighbours;
+
+    public InterferenceGraph(LivenessAnalysis liveness) {
+        var size = liveness.getVariables().size();
+        this.neighbours = new BitSet[size];
+        for (int i = 0; i < size; i++) {
+            neighbours[i] = new BitSet(size);
+        }
+
+        var instructions = liveness.getMethod().getInstructions();
+        for (int i = 0; i < instructions.size(); i++) {
+            var live = (BitSet) liveness.getLiveOut(i).clone();
+
+            // The destination of a copy may share the register of its source
+            var copySource = getCopySource(instructions.get(i), liveness);
+            if (copySource >= 0) {
+                live.clear(copySource);
+            }
+
+            var defs = liveness.getDef(i);
+            for (int def = defs.nextSetBit(0); def >= 0; def = defs.nextSetBit(def + 1)) {
+                for (int other = live.nextSetBit(0); other >= 0; other = live.nextSetBit(other + 1)) {
+                    addEdge(def, other);
+                }
+            }
+        }
+
+        // Variables live when the method starts (the parameters) all hold values at the same time
+        if (!instructions.isEmpty()) {
+            var entry = liveness.getLiveIn(0);
+            for (int a = entry.nextSetBit(0); a >= 0; a = entry.nextSetBit(a + 1)) {
+                for (int b = entry.nextSetBit(a + 1); b >= 0; b = entry.nextSetBit(b + 1)) {
+                    addEdge(a, b);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return neighbours.length;
+    }
+
+    public BitSet getNeighbours(int variable) {
+        return neighbours[variable];
+    }
+
+    private void addEdge(int a, int b) {
+        if (a == b) {
+            return;
+        }
+
+        neighbours[a].set(b);
+        neighbours[b].set(a);
+    }
+
+    private static int getCopySource(Instruction instruction, LivenessAnalysis liveness) {
+        if (!(instruction instanceof AssignInstruction assign)
+                || !(assign.getRhs() instanceof SingleOpInstruction singleOp)) {
+            return -1;
+        }
+
+        var operand = singleOp.getSingleOperand();
+        if (operand.isLiteral() || operand instanceof ArrayOperand || !(operand instanceof Operand source)) {
+            return -1;
+        }
+
+        return liveness.getIndex(source.getName());
+    }
+}
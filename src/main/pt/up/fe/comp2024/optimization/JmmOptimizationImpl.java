@@ -4,12 +4,38 @@ import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
 import pt.up.fe.comp.jmm.ollir.JmmOptimization;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
 import pt.up.fe.comp2024.CompilerConfig;
-import java.util.Map;
+import pt.up.fe.comp2024.metrics.CompilerMetrics;
+import pt.up.fe.comp2024.optimization.passes.CommonSubexpressionElimination;
+import pt.up.fe.comp2024.optimization.passes.CopyPropagation;
+import pt.up.fe.comp2024.optimization.passes.DeadCodeElimination;
+import pt.up.fe.comp2024.optimization.passes.LoopInvariantCodeMotion;
+import pt.up.fe.comp2024.optimization.passes.StrengthReduction;
+import pt.up.fe.comp2024.optimization.passes.TempCoalescing;
 
 import java.util.Collections;
 
 public class JmmOptimizationImpl implements JmmOptimization {
 
+    private final OllirPassManager ollirPasses;
+    private CompilerMetrics metrics = CompilerMetrics.disabled();
+
+    public JmmOptimizationImpl() {
+        this.ollirPasses = new OllirPassManager()
+                .add(new TempCoalescing())
+                .add(new CommonSubexpressionElimination())
+                .add(new CopyPropagation())
+                .add(new LoopInvariantCodeMotion())
+                .add(new StrengthReduction())
+                .add(new DeadCodeElimination());
+    }
+
+    /**
+     * Metrics where the work done by the optimizations is recorded.
+     */
+    public void setMetrics(CompilerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @Override
     public OllirResult toOllir(JmmSemanticsResult semanticsResult) {
 
@@ -28,20 +54,10 @@ public class JmmOptimizationImpl implements JmmOptimization {
             return JmmOptimization.super.optimize(semanticsResult);
         }
 
-        boolean modificationsProp = true;
-        boolean modificationsFold = true;
-        int counter = 0;
-        while(modificationsFold == true || modificationsProp == true ) {
-            ConstantPropagationVisitor optimizationAst = new ConstantPropagationVisitor(semanticsResult.getSymbolTable());
-            ConstantFoldingVisitor optimization = new ConstantFoldingVisitor(semanticsResult.getSymbolTable());
-            optimizationAst.visit(semanticsResult.getRootNode());
-            optimization.visit(semanticsResult.getRootNode());
-            modificationsFold = optimization.getModifications();
-            modificationsProp = optimizationAst.getModifications();
-            System.out.println("the value of the modificationsProp is " + modificationsProp);
-            System.out.println("the value of the modificationsFold is " + modificationsFold);
-            counter++;
-        }
+        var constantPropagation = new ConstantPropagation(semanticsResult.getSymbolTable());
+        var rewrites = constantPropagation.apply(semanticsResult.getRootNode());
+        metrics.count("optimization", "rewrites", rewrites);
+        metrics.count("optimization", "worklistSteps", constantPropagation.getSteps());
 
         return JmmOptimization.super.optimize(semanticsResult);
     }
@@ -49,7 +65,17 @@ public class JmmOptimizationImpl implements JmmOptimization {
     @Override
     public OllirResult optimize(OllirResult ollirResult) {
 
-        //TODO: Do your OLLIR-based optimizations here
+        // The passes change the class unit, which is what the backend reads, the OLLIR code is printed from it again
+        if (CompilerConfig.getOptimize(ollirResult.getConfig())) {
+            var changes = ollirPasses.run(ollirResult.getOllirClass());
+            changes.forEach((pass, count) -> metrics.count("ollirOptimization", pass, count));
+        }
+
+        // -r=0 minimizes the registers of each method, -r=n also checks that they fit in n
+        var maxRegisters = CompilerConfig.getRegisterAllocation(ollirResult.getConfig());
+        if (maxRegisters >= 0) {
+            new RegisterAllocation(maxRegisters, ollirResult.getReports()).apply(ollirResult.getOllirClass());
+        }
 
         return ollirResult;
     }
@@ -0,0 +1,136 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.specs.comp.ollir.Instruction;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.VarScope;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Backward liveness analysis of the variables of an OLLIR method, over the control-flow graph of its instructions.
+ * <p>
+ * Variables are the parameters and locals of the method var table, numbered in {@link #getVariables()} order, and
+ * the sets of each instruction are indexed by its position in the instruction list.
+ */
+public class LivenessAnalysis {
+
+    private final Method method;
+    private final List<String> variables;
+    private final Map<String, Integer> indexes;
+    private final Map<Instruction, Integer> positions;
+    private final BitSet[] use;
+    private final BitSet[] def;
+    private final BitSet[] liveIn;
+    private final BitSet[] liveOut;
+
+    public LivenessAnalysis(Method method) {
+        this.method = method;
+        this.variables = new ArrayList<>();
+        this.indexes = new HashMap<>();
+        this.positions = new HashMap<>();
+
+        for (var entry : method.getVarTable().entrySet()) {
+            // Fields are also in the var table, but have no register
+            if (entry.getValue().getScope() == VarScope.FIELD) {
+                continue;
+            }
+
+            indexes.put(entry.getKey(), variables.size());
+            variables.add(entry.getKey());
+        }
+
+        var instructions = method.getInstructions();
+        this.use = new BitSet[instructions.size()];
+        this.def = new BitSet[instructions.size()];
+        this.liveIn = new BitSet[instructions.size()];
+        this.liveOut = new BitSet[instructions.size()];
+
+        for (int i = 0; i < instructions.size(); i++) {
+            positions.put(instructions.get(i), i);
+            use[i] = new BitSet();
+            def[i] = new BitSet();
+            liveIn[i] = new BitSet();
+            liveOut[i] = new BitSet();
+            addUsesAndDefs(instructions.get(i), use[i], def[i]);
+        }
+    }
+
+    /**
+     * Computes the live sets until they reach a fixed point. Expects the CFG of the method to be built.
+     */
+    public void analyze() {
+        var instructions = method.getInstructions();
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            // Reverse order, so that most successors are up-to-date when an instruction is visited
+            for (int i = instructions.size() - 1; i >= 0; i--) {
+                var out = new BitSet();
+                for (var successor : instructions.get(i).getSuccessors()) {
+                    var position = positions.get(successor);
+                    if (position != null) {
+                        out.or(liveIn[position]);
+                    }
+                }
+
+                var in = (BitSet) out.clone();
+                in.andNot(def[i]);
+                in.or(use[i]);
+
+                if (!out.equals(liveOut[i]) || !in.equals(liveIn[i])) {
+                    liveOut[i] = out;
+                    liveIn[i] = in;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * Index of the given variable, or -1 if it is not a parameter or local of the method.
+     */
+    public int getIndex(String name) {
+        return indexes.getOrDefault(name, -1);
+    }
+
+    public BitSet getDef(int instruction) {
+        return def[instruction];
+    }
+
+    public BitSet getLiveIn(int instruction) {
+        return liveIn[instruction];
+    }
+
+    public BitSet getLiveOut(int instruction) {
+        return liveOut[instruction];
+    }
+
+    private void addUsesAndDefs(Instruction instruction, BitSet uses, BitSet defs) {
+        for (var operand : OllirInstructions.getUses(instruction)) {
+            addVariable(operand.getName(), uses);
+        }
+
+        OllirInstructions.getDef(instruction).ifPresent(dest -> addVariable(dest.getName(), defs));
+    }
+
+    private void addVariable(String name, BitSet set) {
+        var index = getIndex(name);
+        if (index >= 0) {
+            set.set(index);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.specs.comp.ollir.CondBranchInstruction;
+import org.specs.comp.ollir.GotoInstruction;
+import org.specs.comp.ollir.Instruction;
+import org.specs.comp.ollir.Method;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Dominators and natural loops of an OLLIR method, over the control-flow graph of its instructions.
+ * <p>
+ * Instructions are indexed by their position in the instruction list. A natural loop is made of a header and of the
+ * instructions that reach a back edge to it (an edge whose target dominates its source) without going through the
+ * header. Loops with the same header are merged.
+ */
+public class LoopAnalysis {
+
+    public static class Loop {
+
+        private final int header;
+        private final BitSet body;
+
+        private Loop(int header, BitSet body) {
+            this.header = header;
+            this.body = body;
+        }
+
+        public int getHeader() {
+            return header;
+        }
+
+        /**
+         * The instructions of the loop, including the header.
+         */
+        public BitSet getBody() {
+            return body;
+        }
+
+        public boolean contains(int instruction) {
+            return body.get(instruction);
+        }
+    }
+
+    private final Method method;
+    private final Map<Instruction, Integer> positions;
+    private final List<List<Integer>> successors;
+    private final List<List<Integer>> predecessors;
+    private final int[] idom;
+    private final List<Loop> loops;
+
+    public LoopAnalysis(Method method) {
+        this.method = method;
+        this.positions = new HashMap<>();
+        this.successors = new ArrayList<>();
+        this.predecessors = new ArrayList<>();
+        this.loops = new ArrayList<>();
+
+        var instructions = method.getInstructions();
+        for (int i = 0; i < instructions.size(); i++) {
+            positions.put(instructions.get(i), i);
+            successors.add(new ArrayList<>());
+            predecessors.add(new ArrayList<>());
+        }
+
+        for (int i = 0; i < instructions.size(); i++) {
+            for (var successor : instructions.get(i).getSuccessors()) {
+                // The end node of the method is not an instruction
+                var position = positions.get(successor);
+                if (position != null) {
+                    successors.get(i).add(position);
+                    predecessors.get(position).add(i);
+                }
+            }
+        }
+
+        this.idom = new int[instructions.size()];
+    }
+
+    /**
+     * Computes the dominators and the loops. Expects the CFG of the method to be built.
+     */
+    public void analyze() {
+        computeDominators();
+        findLoops();
+    }
+
+    /**
+     * The loops of the method, inner loops before the loops that contain them.
+     */
+    public List<Loop> getLoops() {
+        return loops;
+    }
+
+    /**
+     * If every path from the start of the method to instruction b goes through instruction a. Unreachable
+     * instructions are dominated by none.
+     */
+    public boolean dominates(int a, int b) {
+        if (idom[b] < 0) {
+            return false;
+        }
+
+        while (b != a && b != 0) {
+            b = idom[b];
+        }
+        return b == a;
+    }
+
+    public List<Integer> getSuccessors(int instruction) {
+        return successors.get(instruction);
+    }
+
+    public List<Integer> getPredecessors(int instruction) {
+        return predecessors.get(instruction);
+    }
+
+    /**
+     * The instructions of the loop that may continue outside of it, through a successor that is not in the loop or by
+     * returning.
+     */
+    public List<Integer> getExits(Loop loop) {
+        var exits = new ArrayList<Integer>();
+        var instructions = method.getInstructions();
+
+        for (int i = loop.getBody().nextSetBit(0); i >= 0; i = loop.getBody().nextSetBit(i + 1)) {
+            var leaves = successors.get(i).size() < instructions.get(i).getSuccessors().size();
+            for (var successor : successors.get(i)) {
+                leaves |= !loop.contains(successor);
+            }
+
+            if (leaves) {
+                exits.add(i);
+            }
+        }
+
+        return exits;
+    }
+
+    /**
+     * The position of the only assignment in the loop of each variable assigned in it, or -1 for the variables it
+     * assigns more than once.
+     */
+    public Map<String, Integer> getAssignments(Loop loop) {
+        var instructions = method.getInstructions();
+        var body = loop.getBody();
+
+        Map<String, Integer> assignments = new HashMap<>();
+        for (int i = body.nextSetBit(0); i >= 0; i = body.nextSetBit(i + 1)) {
+            var position = i;
+            OllirInstructions.getDef(instructions.get(i))
+                    .ifPresent(dest -> assignments.merge(dest.getName(), position, (first, second) -> -1));
+        }
+
+        return assignments;
+    }
+
+    /**
+     * If the instruction runs in every iteration of the loop, that is, it dominates each back edge to the header.
+     */
+    public boolean runsEveryIteration(Loop loop, int instruction) {
+        for (var predecessor : predecessors.get(loop.getHeader())) {
+            if (loop.contains(predecessor) && !dominates(instruction, predecessor)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * The single instruction through which the loop is entered, if code that runs once before the loop can be placed
+     * right before its header: the entry is either a goto to the header, or an instruction that falls through to the
+     * header without jumping to it. Loops entered in any other way have no preheader.
+     *
+     * @see #insertInPreheader(Method, Instruction, List)
+     */
+    public Optional<Instruction> getEntry(Loop loop) {
+        var entries = predecessors.get(loop.getHeader()).stream()
+                .filter(predecessor -> !loop.contains(predecessor))
+                .toList();
+
+        if (entries.size() != 1 || loop.getHeader() == 0) {
+            return Optional.empty();
+        }
+
+        var entry = entries.get(0);
+        var instruction = method.getInstructions().get(entry);
+        if (instruction instanceof GotoInstruction) {
+            return Optional.of(instruction);
+        }
+
+        var jumpsToHeader = instruction instanceof CondBranchInstruction branch
+                && method.getLabels().get(branch.getLabel()) == method.getInstructions().get(loop.getHeader());
+        if (entry == loop.getHeader() - 1 && !jumpsToHeader) {
+            return Optional.of(instruction);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Inserts code that runs each time the loop is entered, before its header, given the entry of the loop returned
+     * by {@link #getEntry(Loop)}. The instructions may have changed since the analysis, as long as the entry is still
+     * the only way into the loop.
+     */
+    public static void insertInPreheader(Method method, Instruction entry, List<Instruction> code) {
+        var instructions = method.getInstructions();
+
+        int position = 0;
+        while (instructions.get(position) != entry) {
+            position++;
+        }
+
+        if (entry instanceof GotoInstruction) {
+            OllirInstructions.insertBefore(method, position, code);
+        } else {
+            instructions.addAll(position + 1, code);
+        }
+    }
+
+    /**
+     * Immediate dominators, by the algorithm of Cooper, Harvey and Kennedy over the reverse postorder of the
+     * instructions.
+     */
+    private void computeDominators() {
+        Arrays.fill(idom, -1);
+        if (idom.length == 0) {
+            return;
+        }
+
+        var order = getReversePostorder();
+        var rank = new int[idom.length];
+        for (int i = 0; i < order.size(); i++) {
+            rank[order.get(i)] = i;
+        }
+
+        idom[0] = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (var instruction : order.subList(1, order.size())) {
+                int newIdom = -1;
+                for (var predecessor : predecessors.get(instruction)) {
+                    if (idom[predecessor] < 0) {
+                        continue;
+                    }
+
+                    newIdom = newIdom < 0 ? predecessor : intersect(predecessor, newIdom, rank);
+                }
+
+                if (newIdom != idom[instruction]) {
+                    idom[instruction] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private int intersect(int a, int b, int[] rank) {
+        while (a != b) {
+            while (rank[a] > rank[b]) {
+                a = idom[a];
+            }
+            while (rank[b] > rank[a]) {
+                b = idom[b];
+            }
+        }
+        return a;
+    }
+
+    private List<Integer> getReversePostorder() {
+        var postorder = new ArrayList<Integer>();
+        var visited = new BitSet(idom.length);
+
+        // Each entry is an instruction and the next of its successors to visit
+        var stack = new ArrayDeque<int[]>();
+        stack.push(new int[]{0, 0});
+        visited.set(0);
+
+        while (!stack.isEmpty()) {
+            var top = stack.peek();
+            var next = successors.get(top[0]);
+
+            if (top[1] < next.size()) {
+                var successor = next.get(top[1]++);
+                if (!visited.get(successor)) {
+                    visited.set(successor);
+                    stack.push(new int[]{successor, 0});
+                }
+                continue;
+            }
+
+            postorder.add(stack.pop()[0]);
+        }
+
+        var order = new ArrayList<Integer>(postorder.size());
+        for (int i = postorder.size() - 1; i >= 0; i--) {
+            order.add(postorder.get(i));
+        }
+        return order;
+    }
+
+    private void findLoops() {
+        Map<Integer, BitSet> bodies = new LinkedHashMap<>();
+
+        for (int source = 0; source < idom.length; source++) {
+            for (var header : successors.get(source)) {
+                if (!dominates(header, source)) {
+                    continue;
+                }
+
+                var body = bodies.computeIfAbsent(header, h -> {
+                    var headerOnly = new BitSet();
+                    headerOnly.set(h);
+                    return headerOnly;
+                });
+
+                // Everything that reaches the back edge without going through the header
+                var worklist = new ArrayDeque<Integer>();
+                if (!body.get(source)) {
+                    body.set(source);
+                    worklist.add(source);
+                }
+
+                while (!worklist.isEmpty()) {
+                    for (var predecessor : predecessors.get(worklist.poll())) {
+                        if (!body.get(predecessor) && idom[predecessor] >= 0) {
+                            body.set(predecessor);
+                            worklist.add(predecessor);
+                        }
+                    }
+                }
+            }
+        }
+
+        bodies.forEach((header, body) -> loops.add(new Loop(header, body)));
+        loops.sort(Comparator.comparingInt(loop -> loop.getBody().cardinality()));
+    }
+}
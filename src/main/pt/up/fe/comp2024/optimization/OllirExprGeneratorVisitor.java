@@ -1,14 +1,17 @@
 package pt.up.fe.comp2024.optimization;
 
 import org.specs.comp.ollir.Ollir;
-import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.AJmmVisitor;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.ast.PreorderJmmVisitor;
+import pt.up.fe.comp2024.ast.KindDispatch;
 import pt.up.fe.comp2024.ast.NodeUtils;
 import pt.up.fe.comp2024.ast.TypeUtils;
+import pt.up.fe.comp2024.symboltable.JmmSymbolTable;
+
+import java.util.function.BiFunction;
 
 import static com.sun.source.tree.Tree.Kind.METHOD;
 import static com.sun.source.tree.Tree.Kind.METHOD_INVOCATION;
@@ -28,7 +31,9 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
     private final String END_STMT = ";\n";
 
     public String currentMethod;
+    private int tempNumber = -1;
     private final SymbolTable table;
+    private final KindDispatch<Void, OllirExprResult> dispatch = new KindDispatch<>();
 
     public OllirExprGeneratorVisitor(SymbolTable table) {
         this.table = table;
@@ -38,6 +43,14 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         currentMethod = current;
     }
 
+    /**
+     * A new temporary of the unit. Temporaries are numbered from 0 in each unit, by the visitor that generates it.
+     */
+    public String getTemp() {
+        tempNumber += 1;
+        return "tmp" + tempNumber;
+    }
+
     @Override
     protected void buildVisitor() {
         //addVisit(NEG_EXPR, this::visitNegExpr); ainda não está
@@ -58,6 +71,11 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         setDefaultVisit(this::defaultVisit);
     }
 
+    @Override
+    protected BiFunction<JmmNode, Void, OllirExprResult> getVisit(JmmNode node) {
+        return dispatch.getVisit(node, super::getVisit);
+    }
+
     private int getCounterIfStmt(int counter)
     {
         counter += 1;
@@ -70,14 +88,14 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         String code = "";
         if(arrayCreationExpr.getNumChildren() == 0)
         {
-            var temp = OptUtils.getTemp();
+            var temp = getTemp();
             code = temp + ".array" + ".i32";
             computation.append(temp).append(".array").append(".i32").append(ASSIGN).append(".array").append(".i32").append(" new(array, ").append(arrayCreationExpr.getNumChildren()).append(".i32)").append(".array").append(".i32").append(END_STMT);
         }
         else {
             var aux = visit(arrayCreationExpr.getJmmChild(0));
             var ollirType = OptUtils.toOllirType(TypeUtils.getExprType(arrayCreationExpr.getJmmChild(0), table));
-            var temp = OptUtils.getTemp();
+            var temp = getTemp();
             code = temp + ".array" + ollirType;
             computation.append(temp).append(".array").append(ollirType).append(ASSIGN).append(".array").append(ollirType).append(" new(array, ").append(arrayCreationExpr.getNumChildren()).append(".i32)").append(".array").append(ollirType).append(END_STMT);
             for (int i = 0; i < arrayCreationExpr.getNumChildren(); i++) {
@@ -97,7 +115,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         var index = visit(arrayLengthExpr.getJmmChild(0));
         computation.append(index.getComputation());
         String code = "";
-        var temp = OptUtils.getTemp();
+        var temp = getTemp();
         var ollirType = OptUtils.toOllirType(TypeUtils.getExprType(arrayLengthExpr,table));
         code = temp + ollirType;
         computation.append(index.getComputation());
@@ -113,7 +131,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         computation.append(index.getComputation());
         computation.append(array.getComputation());
         String code = "";
-        var temp = OptUtils.getTemp();
+        var temp = getTemp();
         var ollirType = OptUtils.toOllirType(TypeUtils.getExprType(arrayAccessExpr,table));
         code = temp + ollirType;
         if(array.getCode().contains("tmp"))
@@ -131,7 +149,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         var expr = visit(unaryNode.getJmmChild(0));
         computation.append(expr.getComputation());
         String code = "";
-        String temp = OptUtils.getTemp();
+        String temp = getTemp();
         String ollirType = OptUtils.toOllirType(TypeUtils.getExprType(unaryNode,table));
         code = temp + ollirType;
         computation.append(code).append(SPACE).append(ASSIGN).append(ollirType).append(SPACE).append(unaryNode.get("value")).append(OptUtils.toOllirType(TypeUtils.getExprType(unaryNode,table))).append(SPACE).append(expr.getCode()).append(END_STMT);
@@ -178,11 +196,11 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         String code = "";
         var aux = visit(node.getJmmChild(0));
         var ollirType = OptUtils.toOllirType(TypeUtils.getExprType(node.getJmmChild(0),table));
-        var temp = OptUtils.getTemp();
+        var temp = getTemp();
         code = temp + ollirType;
         computation.append(aux.getComputation());
         computation.append(temp).append(ollirType).append(ASSIGN).append(ollirType).append(SPACE).append(aux.getCode()).append(END_STMT);
-        temp = OptUtils.getTemp();
+        temp = getTemp();
         computation.append(temp).append(".array").append(ollirType).append(ASSIGN).append(".array").append(ollirType).append(" new(array,").append(code).append(" )").append(".array").append(ollirType).append(END_STMT);
         code = temp + ".array" + ollirType;
         return new OllirExprResult(code,computation);
@@ -192,7 +210,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
     private OllirExprResult visitNewObjectExpr(JmmNode node, Void unused) {
         StringBuilder computation = new StringBuilder();
         var ollirType = OptUtils.toOllirType(node);
-        var temp = OptUtils.getTemp();
+        var temp = getTemp();
         String code = "";
         computation.append(temp);
         computation.append(ollirType);
@@ -230,7 +248,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         // code to compute self
         Type resType = TypeUtils.getExprType(node, table);
         String resOllirType = OptUtils.toOllirType(resType);
-        var temp = OptUtils.getTemp();
+        var temp = getTemp();
         String code = temp + resOllirType;
 
         if(node.get("op").toString().equals("&&") && !node.getParent().getKind().equals(IF_STMT.toString())){
@@ -289,39 +307,9 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
 
     private OllirExprResult visitVarRef(JmmNode node, Void unused) {
         StringBuilder computation = new StringBuilder();
-        var fields = table.getFields();
-        var optionalParams = table.getParametersTry(currentMethod);
-        var optionalLocals = table.getLocalVariablesTry(currentMethod);
-        var inFields = false;
-        var inParams = false;
-        var inLocals = false;
-        for(Symbol s : fields)
-        {
-            if(s.getName().equals(node.get("value"))) {
-                inFields = true;
-            }
-        }
-        if(optionalParams.isPresent())
-        {
-            for(Symbol s : optionalParams.get())
-            {
-                if(s.getName().equals(node.get("value")))
-                {
-                    inParams = true;
-                }
-            }
-        }
-        if(optionalLocals.isPresent())
-        {
-            for(Symbol s : optionalLocals.get())
-            {
-                if(s.getName().equals(node.get("value")))
-                {
-                    inLocals = true;
-                }
-            }
-        }
-        if(inLocals || inParams)
+        var origin = ((JmmSymbolTable) table).resolve(currentMethod, node.get("value"))
+                .map(JmmSymbolTable.Resolution::origin).orElse(null);
+        if(origin == JmmSymbolTable.Origin.LOCAL || origin == JmmSymbolTable.Origin.PARAM)
         {
             var id = node.get("value");
             Type type = TypeUtils.getExprType(node, table);
@@ -337,9 +325,9 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
             }
             return new OllirExprResult(code,computation);
         }
-        else if(inFields)
+        else if(origin == JmmSymbolTable.Origin.FIELD)
         {
-            var temp = OptUtils.getTemp();
+            var temp = getTemp();
             Type type = TypeUtils.getExprType(node, table);
             String ollirType = OptUtils.toOllirType(type);
             String code = "";
@@ -378,7 +366,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         {
             if(node.getJmmChild(0).hasAttribute("value"))
             {
-                if(table.getImports().contains(node.getJmmChild(0).get("value")))
+                if(((JmmSymbolTable) table).isImported(node.getJmmChild(0).get("value")))
                 {
                     typeFunction  ="invokestatic";
                 }
@@ -408,7 +396,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
                     if(node.getNumChildren() - 1 < i + 1)
                     {
                         //varArgs is empty
-                        var tempAux = OptUtils.getTemp();
+                        var tempAux = getTemp();
                         tempFixed = tempAux;
                         ollirType = OptUtils.toOllirType(paramsAux.get(i).getType());
                         computation.append(tempAux).append(".array").append(ollirType).append(SPACE).append(ASSIGN).append(".array").append(ollirType).append(SPACE).append("new").append(SPACE).append("(").append("array").append(",").append("0.i32").append(")").append(".array").append(ollirType).append(END_STMT);
@@ -419,7 +407,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
                             if (!node.getJmmChild(i + 1).getKind().equals(ARRAY_CREATION_EXPR.toString()) && !node.getJmmChild(i + 1).getKind().equals(NEW_ARRAY_EXPR.toString()) && !node.getJmmChild(i + 1).getKind().equals(VAR_REF.toString())) {
                                 indexVarArgsStart = i + 1;
                                 varArgs = true;
-                                var temp2 = OptUtils.getTemp();
+                                var temp2 = getTemp();
                                 tempFixed = temp2;
                                 ollirType = OptUtils.toOllirType(paramsAux.get(i).getType());
                                 arraysCode.append(temp2).append(".array").append(ollirType).append(",");
@@ -501,7 +489,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
             else if(node.getParent().getKind().equals(ASSIGN_STMT.toString()))
             {
                 var aux = TypeUtils.getExprType(node.getParent(),table);
-                var temp = OptUtils.getTemp();
+                var temp = getTemp();
                 ollirType = OptUtils.toOllirType(TypeUtils.getExprType(node.getParent(),table));
                 if(aux.isArray())
                 {
@@ -518,7 +506,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
             }
             else
             {
-                var temp = OptUtils.getTemp();
+                var temp = getTemp();
                 ollirType = OptUtils.toOllirType(TypeUtils.getExprType(node, table));
                 code = temp + ollirType;
                 computation.append(code).append(SPACE).append(ASSIGN).append(ollirType).append(SPACE);
@@ -554,21 +542,21 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
             //cannot return void
             else if(node.getParent().getKind().equals(RETURN_STMT.toString()))
             {
-                var temp = OptUtils.getTemp();
+                var temp = getTemp();
                 ollirType = OptUtils.toOllirType(table.getReturnType(currentMethod));
                 code = temp + ollirType;
                 computation.append(code).append(SPACE).append(ASSIGN).append(ollirType).append(SPACE);
             }
             else if(node.getParent().getKind().equals(ARRAY_ASSIGN_STMT.toString()))
             {
-                var temp = OptUtils.getTemp();
+                var temp = getTemp();
                 ollirType = OptUtils.toOllirType(TypeUtils.getExprType(node.getParent(),table));
                 code = temp + ollirType;
                 computation.append(code).append(SPACE).append(ASSIGN).append(ollirType).append(SPACE);
             }
             else if(!node.getParent().getKind().equals(ASSIGN_STMT.toString()))
             {
-                var temp = OptUtils.getTemp();// get a new temp
+                var temp = getTemp();// get a new temp
                 ollirType = ".V";
                 code = temp + ollirType;
                 computation.append(code).append(SPACE).append(ASSIGN).append(ollirType).append(SPACE);
@@ -576,7 +564,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
 
             else if(node.getParent().getKind().equals(ASSIGN_STMT.toString()))
             {
-                var temp = OptUtils.getTemp();
+                var temp = getTemp();
                 returnType = TypeUtils.getExprType(node.getParent(),table);
                 ollirType = OptUtils.toOllirType(TypeUtils.getExprType(node.getParent(),table));
                 if(returnType.isArray())
@@ -6,12 +6,17 @@ import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.AJmmVisitor;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.ollir.OllirUtils;
+import pt.up.fe.comp2024.ast.KindDispatch;
 import pt.up.fe.comp2024.ast.NodeUtils;
-import pt.up.fe.comp2024.ast.TypeUtils;
+import pt.up.fe.comp2024.symboltable.JmmSymbolTable;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
 
 import static pt.up.fe.comp2024.ast.Kind.*;
 import static pt.up.fe.comp2024.ast.TypeUtils.getExprType;
@@ -32,10 +37,12 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
     private final SymbolTable table;
 
     private final OllirExprGeneratorVisitor exprVisitor;
+    private final KindDispatch<Void, String> dispatch = new KindDispatch<>();
 
     private String currentMethod;
     int counter_IF = -1;
     int counter_WHILE = -1;
+    int counter_AND = -1;
 
     public OllirGeneratorVisitor(SymbolTable table) {
         this.table = table;
@@ -62,6 +69,11 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         setDefaultVisit(this::defaultVisit);
     }
 
+    @Override
+    protected BiFunction<JmmNode, Void, String> getVisit(JmmNode node) {
+        return dispatch.getVisit(node, super::getVisit);
+    }
+
 
 
     private String visitArrayAssignStmt(JmmNode arrayAssignStmt, Void unused)
@@ -72,43 +84,12 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         var index = exprVisitor.visit(arrayAssignStmt.getJmmChild(0));
         var assign = exprVisitor.visit(arrayAssignStmt.getJmmChild(1));
         //check where is the array defined
-        var optionalFields = table.getFields();
-        var optionalParams = table.getParametersTry(currentMethod);
-        var optionalLocals = table.getLocalVariablesTry(currentMethod);
-        var inFields = false;
-        var inParams = false;
-        var inLocals = false;
-        if(optionalLocals.isPresent())
-        {
-            for(Symbol s: optionalLocals.get())
-            {
-                if(s.getName().equals(arrayAssignStmt.get("value")))
-                {
-                    inLocals = true;
-                }
-            }
-        }
-        if(optionalParams.isPresent())
-        {
-            for(Symbol s: optionalParams.get())
-            {
-                if(s.getName().equals(arrayAssignStmt.get("value")))
-                {
-                    inParams = true;
-                }
-            }
-        }
-        for(Symbol s: optionalFields)
-        {
-            if(s.getName().equals(arrayAssignStmt.get("value")))
-            {
-                inFields = true;
-            }
-        }
+        var origin = ((JmmSymbolTable) table).resolve(currentMethod, arrayAssignStmt.get("value"))
+                .map(JmmSymbolTable.Resolution::origin).orElse(null);
 
-        if(inFields && (!inLocals && !inParams))
+        if(origin == JmmSymbolTable.Origin.FIELD)
         {
-            var temp = OptUtils.getTemp();
+            var temp = exprVisitor.getTemp();
             code = temp + ".array.i32";
             computation.append(temp).append(".array.i32").append(SPACE).append(ASSIGN).append(SPACE).append(".i32").append(SPACE).append("getfield").append("(this.").append(table.getClassName()).append(",").append(arrayAssignStmt.get("value")).append(".array.i32").append(")").append(".array.i32").append(END_STMT);
             computation.append(temp).append("[").append(index.getCode()).append("]").append(type).append(SPACE).append(ASSIGN).append(SPACE).append(type).append(SPACE).append(assign.getCode()).append(END_STMT);
@@ -123,10 +104,8 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
     }
     private String visitWhileStmt(JmmNode whileStmt, Void unused)
     {
-        String code = "";
         int aux;
         StringBuilder computation  = new StringBuilder();
-        var boolExpr = exprVisitor.visit(whileStmt.getJmmChild(0));
         counter_WHILE = getCounterWhileStmt(counter_WHILE);
         aux = counter_WHILE;
         computation.append("goto ").append("while_cond_").append(aux).append(END_STMT);
@@ -134,13 +113,65 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         var stmt = visit(whileStmt.getJmmChild(1));
         computation.append(stmt);
         computation.append("while_cond_").append(aux).append(":").append(NL);
-        computation.append(boolExpr.getComputation());
-        computation.append("if( ").append(boolExpr.getCode()).append(" )").append("goto while_body_").append(aux).append(END_STMT);
+        computation.append(visitCondition(whileStmt.getJmmChild(0), "while_body_" + aux, true));
         computation.append("goto while_end_").append(aux).append(END_STMT);
         computation.append("while_end_").append(aux).append(":").append(NL);
         return computation.toString();
     }
 
+    /**
+     * Code that jumps to the label when the condition is equal to jumpIf, and falls through otherwise. Comparisons
+     * jump on their operands and '&&' jumps as soon as its result is known, so neither computes a boolean to test.
+     */
+    private String visitCondition(JmmNode condition, String label, boolean jumpIf)
+    {
+        StringBuilder computation = new StringBuilder();
+
+        if (PARENTHESIS_EXPR.check(condition)) {
+            return visitCondition(condition.getJmmChild(0), label, jumpIf);
+        }
+
+        if (UNARY_EXPR.check(condition)) {
+            return visitCondition(condition.getJmmChild(0), label, !jumpIf);
+        }
+
+        if (BINARY_EXPR.check(condition) && condition.get("op").equals("&&")) {
+            // Jumps if both hold: skips the right side if the left one does not
+            if (jumpIf) {
+                counter_AND = getCounterIfStmt(counter_AND);
+                var skip = "and_end_" + counter_AND;
+                computation.append(visitCondition(condition.getJmmChild(0), skip, false));
+                computation.append(visitCondition(condition.getJmmChild(1), label, true));
+                computation.append(skip).append(":").append(NL);
+            } else {
+                computation.append(visitCondition(condition.getJmmChild(0), label, false));
+                computation.append(visitCondition(condition.getJmmChild(1), label, false));
+            }
+            return computation.toString();
+        }
+
+        if (BINARY_EXPR.check(condition) && (condition.get("op").equals("<") || condition.get("op").equals(">"))) {
+            var lhs = exprVisitor.visit(condition.getJmmChild(0));
+            var rhs = exprVisitor.visit(condition.getJmmChild(1));
+            var op = condition.get("op");
+            if (!jumpIf) {
+                op = op.equals("<") ? ">=" : "<=";
+            }
+
+            computation.append(lhs.getComputation());
+            computation.append(rhs.getComputation());
+            computation.append("if( ").append(lhs.getCode()).append(SPACE).append(op).append(".bool").append(SPACE)
+                    .append(rhs.getCode()).append(" )").append("goto ").append(label).append(END_STMT);
+            return computation.toString();
+        }
+
+        var expr = exprVisitor.visit(condition);
+        computation.append(expr.getComputation());
+        computation.append("if( ").append(jumpIf ? "" : "!.bool ").append(expr.getCode()).append(" )")
+                .append("goto ").append(label).append(END_STMT);
+        return computation.toString();
+    }
+
     private String visitBlockStmt(JmmNode blockStmt, Void unused)
     {
         StringBuilder code = new StringBuilder();
@@ -167,14 +198,12 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
     {
         StringBuilder computation = new StringBuilder();
         int aux;
-        //Primeira child é a boolean expr
-        var expr = exprVisitor.visit(ifStmt.getJmmChild(0));
-        //Block stmt do else
         counter_IF = getCounterIfStmt(counter_IF);
         aux =  counter_IF;
+        //Primeira child é a boolean expr
+        computation.append(visitCondition(ifStmt.getJmmChild(0), "if_then_" + aux, true));
+        //Block stmt do else
         var stmt = visit(ifStmt.getJmmChild(2));
-        computation.append(expr.getComputation());
-        computation.append("if( ").append(expr.getCode()).append(" )").append("goto").append(SPACE).append("if_then_").append(aux).append(END_STMT);
         computation.append(stmt).append("goto").append(SPACE).append("if_end_").append(aux).append(END_STMT);
         computation.append("if_then_").append(aux).append(":").append(NL);
         //Block stmt do if
@@ -217,43 +246,13 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         var ollirType = OptUtils.toOllirType(utilsType);
         var rhs = exprVisitor.visit(node.getChild(0));
         //check where it is defined
-        var optionalFields = table.getFields();
-        var optionalParams = table.getParametersTry(currentMethod);
-        var optionalLocals = table.getLocalVariablesTry(currentMethod);
-        var inFields = false;
-        var inParams = false;
-        var inLocals = false;
-        for(Symbol s : optionalFields)
+        var resolution = ((JmmSymbolTable) table).resolve(currentMethod, lhs);
+        var origin = resolution.map(JmmSymbolTable.Resolution::origin).orElse(null);
+        if(resolution.isPresent())
         {
-            if(s.getName().equals(lhs))
-            {
-                ollirType = OptUtils.toOllirType(s.getType());
-                inFields = true;
-            }
+            ollirType = OptUtils.toOllirType(resolution.get().symbol().getType());
         }
-        if(optionalParams.isPresent())
-        {
-            for(Symbol s: optionalParams.get())
-            {
-                if(s.getName().equals(lhs))
-                {
-                    ollirType = OptUtils.toOllirType(s.getType());
-                    inParams = true;
-                }
-            }
-        }
-        if(optionalLocals.isPresent())
-        {
-            for(Symbol s: optionalLocals.get())
-            {
-                if(s.getName().equals(lhs))
-                {
-                    ollirType = OptUtils.toOllirType(s.getType());
-                    inLocals = true;
-                }
-            }
-        }
-        if(inLocals || inParams)
+        if(origin == JmmSymbolTable.Origin.LOCAL || origin == JmmSymbolTable.Origin.PARAM)
         {
             String code = "";
 
@@ -280,7 +279,7 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
             code = computation.toString();
             return code.toString();
         }
-        else if(inFields)
+        else if(origin == JmmSymbolTable.Origin.FIELD)
         {
             if(utilsType.isArray())
             {
@@ -339,23 +338,12 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         }
 
 
-        if(expr.getComputation().startsWith("tmp"))
-        {
-
-            code.append(expr.getComputation());
-            code.append("ret");
-            code.append(SPACE);
-            code.append(type);
-            code.append(expr.getCode());
-        }
-        else
-        {
-            code.append("ret");
-            code.append(SPACE);
-            code.append(type);
-            code.append(SPACE);
-            code.append(expr.getCode());
-        }
+        code.append(expr.getComputation());
+        code.append("ret");
+        code.append(SPACE);
+        code.append(type);
+        code.append(SPACE);
+        code.append(expr.getCode());
         code.append(END_STMT);
 
         return code.toString();
@@ -409,7 +397,6 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
     private String visitMethodDecl(JmmNode node, Void unused) {
 
         //vamos dar set do current method que estamos a explorar
-        TypeUtils.setCurrentMethod(node.get("methodName"));
         currentMethod = node.get("methodName");
         exprVisitor.setCurrentMethod(node.get("methodName"));
         var afterParam = 0;
@@ -537,8 +524,17 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         code.append(NL);
         var needNl = true;
 
+        // Methods are independent once the symbol table exists, so they are generated concurrently, each by its own
+        // visitor with its own temporaries and labels, and then written in the order they were declared
+        var methods = new ArrayList<CompletableFuture<String>>();
+        for (var method : node.getChildren(METHOD_DECL)) {
+            methods.add(CompletableFuture.supplyAsync(() -> new OllirGeneratorVisitor(table).visit(method),
+                    ForkJoinPool.commonPool()));
+        }
+        var nextMethod = methods.iterator();
+
         for (var child : node.getChildren()) {
-            var result = visit(child);
+            var result = METHOD_DECL.check(child) ? getMethodCode(nextMethod.next()) : visit(child);
 
             if (METHOD_DECL.check(child) && needNl) {
                 code.append(NL);
@@ -554,6 +550,18 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         return code.toString();
     }
 
+    private static String getMethodCode(CompletableFuture<String> method) {
+        try {
+            return method.join();
+        } catch (CompletionException e) {
+            // Fails as if the method had been generated on this thread
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
     private String buildConstructor() {
 
         return ".construct " + table.getClassName() + "().V {\n" +
@@ -0,0 +1,223 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.specs.comp.ollir.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Helpers to inspect and edit the instructions of OLLIR methods, shared by the OLLIR passes and analyses.
+ */
+public class OllirInstructions {
+
+    /**
+     * The variables read by an instruction, in evaluation order. The returned operands are the ones of the
+     * instruction, so renaming them changes the instruction.
+     */
+    public static List<Operand> getUses(Instruction instruction) {
+        var uses = new ArrayList<Operand>();
+        addUses(instruction, uses);
+        return uses;
+    }
+
+    /**
+     * The variable written by an instruction, if it assigns a whole variable. Stores into array elements only read
+     * the array reference.
+     */
+    public static Optional<Operand> getDef(Instruction instruction) {
+        if (instruction instanceof AssignInstruction assign && !(assign.getDest() instanceof ArrayOperand)) {
+            return Optional.of((Operand) assign.getDest());
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * The variable copied by an instruction of the form 'x := y', with both variables of the same type.
+     */
+    public static Optional<Operand> getCopySource(Instruction instruction) {
+        var dest = getDef(instruction);
+        if (dest.isEmpty() || !(((AssignInstruction) instruction).getRhs() instanceof SingleOpInstruction singleOp)) {
+            return Optional.empty();
+        }
+
+        var operand = singleOp.getSingleOperand();
+        if (!isVariable(operand) || operand instanceof ArrayOperand
+                || !operand.getType().toString().equals(dest.get().getType().toString())) {
+            return Optional.empty();
+        }
+
+        return Optional.of((Operand) operand);
+    }
+
+    /**
+     * If the value computed by the given instruction can be discarded without changing the behaviour of the method.
+     * Calls, array accesses and divisions (which may throw) are kept.
+     */
+    public static boolean isPure(Instruction instruction) {
+        if (instruction instanceof SingleOpInstruction singleOp) {
+            return !(singleOp.getSingleOperand() instanceof ArrayOperand);
+        }
+
+        if (instruction instanceof BinaryOpInstruction binaryOp) {
+            return binaryOp.getOperation().getOpType() != OperationType.DIV;
+        }
+
+        return instruction instanceof UnaryOpInstruction || instruction instanceof GetFieldInstruction;
+    }
+
+    /**
+     * If the element is a variable, rather than a literal or the name of a class.
+     */
+    public static boolean isVariable(Element element) {
+        return element instanceof Operand && !element.isLiteral()
+                && element.getType().getTypeOfElement() != ElementType.CLASS;
+    }
+
+    /**
+     * Removes the instruction at the given index. Its labels move to the instruction that follows it, or are removed
+     * if it was the last one.
+     */
+    public static void remove(Method method, int index) {
+        var instructions = method.getInstructions();
+        var removed = instructions.remove(index);
+
+        if (index < instructions.size()) {
+            moveLabels(method, removed, instructions.get(index));
+        } else {
+            method.getLabels().values().removeIf(labelled -> labelled == removed);
+        }
+    }
+
+    /**
+     * Replaces the instruction at the given index, keeping its labels.
+     */
+    public static void replace(Method method, int index, Instruction replacement) {
+        var replaced = method.getInstructions().set(index, replacement);
+        moveLabels(method, replaced, replacement);
+    }
+
+    /**
+     * Inserts instructions before the one at the given index, which gives them its labels, so that the jumps to it
+     * also run them.
+     */
+    public static void insertBefore(Method method, int index, List<Instruction> inserted) {
+        if (inserted.isEmpty()) {
+            return;
+        }
+
+        var instructions = method.getInstructions();
+        var next = instructions.get(index);
+        instructions.addAll(index, inserted);
+        moveLabels(method, next, inserted.get(0));
+    }
+
+    /**
+     * If the given instruction is the target of a jump.
+     */
+    public static boolean hasLabels(Method method, Instruction instruction) {
+        return method.getLabels().containsValue(instruction);
+    }
+
+    /**
+     * If the given instruction never continues to the instruction that follows it.
+     */
+    public static boolean isUnconditionalExit(Instruction instruction) {
+        return instruction instanceof GotoInstruction || instruction instanceof ReturnInstruction;
+    }
+
+    /**
+     * Builds the CFG of the method from its current instructions, discarding the edges of a previous build.
+     */
+    public static void buildCFG(Method method) {
+        for (var instruction : method.getInstructions()) {
+            instruction.getSuccessors().clear();
+            instruction.getPredecessors().clear();
+        }
+
+        method.buildCFG();
+
+        // The begin and end nodes keep the edges to the previous instructions, which are rebuilt here
+        var begin = method.getBeginNode();
+        var end = method.getEndNode();
+        var instructions = method.getInstructions();
+
+        begin.getSuccessors().clear();
+        end.getPredecessors().clear();
+        begin.addSucc(instructions.isEmpty() ? end : instructions.get(0));
+        if (instructions.isEmpty()) {
+            end.addPred(begin);
+        }
+
+        for (var instruction : instructions) {
+            for (var successor : instruction.getSuccessors()) {
+                if (successor == end) {
+                    end.addPred(instruction);
+                }
+            }
+        }
+    }
+
+    private static void moveLabels(Method method, Instruction from, Instruction to) {
+        for (var entry : method.getLabels().entrySet()) {
+            if (entry.getValue() == from) {
+                entry.setValue(to);
+            }
+        }
+    }
+
+    private static void addUses(Instruction instruction, List<Operand> uses) {
+        if (instruction instanceof AssignInstruction assign) {
+            // Storing into an array element reads the array reference and the index
+            if (assign.getDest() instanceof ArrayOperand) {
+                addUse(assign.getDest(), uses);
+            }
+
+            addUses(assign.getRhs(), uses);
+        } else if (instruction instanceof SingleOpInstruction singleOp) {
+            addUse(singleOp.getSingleOperand(), uses);
+        } else if (instruction instanceof BinaryOpInstruction binaryOp) {
+            addUse(binaryOp.getLeftOperand(), uses);
+            addUse(binaryOp.getRightOperand(), uses);
+        } else if (instruction instanceof UnaryOpInstruction unaryOp) {
+            addUse(unaryOp.getOperand(), uses);
+        } else if (instruction instanceof CallInstruction call) {
+            // The caller of a 'new' is the class name or 'array'
+            if (call.getInvocationType() != CallType.NEW) {
+                addUse(call.getCaller(), uses);
+            }
+
+            for (var argument : call.getArguments()) {
+                addUse(argument, uses);
+            }
+        } else if (instruction instanceof ReturnInstruction returnInst) {
+            if (returnInst.hasReturnValue()) {
+                addUse(returnInst.getOperand(), uses);
+            }
+        } else if (instruction instanceof CondBranchInstruction branch) {
+            for (var operand : branch.getOperands()) {
+                addUse(operand, uses);
+            }
+        } else if (instruction instanceof PutFieldInstruction putField) {
+            addUse(putField.getObject(), uses);
+            addUse(putField.getValue(), uses);
+        } else if (instruction instanceof GetFieldInstruction getField) {
+            addUse(getField.getObject(), uses);
+        }
+    }
+
+    private static void addUse(Element element, List<Operand> uses) {
+        if (element == null || !isVariable(element)) {
+            return;
+        }
+
+        uses.add((Operand) element);
+
+        if (element instanceof ArrayOperand arrayOperand) {
+            for (var index : arrayOperand.getIndexOperands()) {
+                addUse(index, uses);
+            }
+        }
+    }
+}
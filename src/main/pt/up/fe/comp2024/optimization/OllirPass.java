@@ -0,0 +1,18 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.specs.comp.ollir.Method;
+
+/**
+ * Represents an optimization pass over the instructions of an OLLIR method.
+ */
+public interface OllirPass {
+
+    /**
+     * Optimizes the given method, whose CFG is up-to-date with its instructions.
+     *
+     * @param method the method to optimize
+     * @return the number of changes made to the method
+     */
+    int apply(Method method);
+
+}
@@ -0,0 +1,85 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.specs.comp.ollir.ClassUnit;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.Operand;
+import org.specs.comp.ollir.VarScope;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a list of OLLIR passes over each method of a class, repeating them until none of them changes the method,
+ * since each pass may create opportunities for the others.
+ * <p>
+ * Passes edit the {@link ClassUnit} in place and leave the OLLIR code of the result as it was generated, use
+ * {@link OllirPrinter} for the code of the optimized class.
+ */
+public class OllirPassManager {
+
+    private static final int MAX_ROUNDS = 10;
+
+    private final List<OllirPass> passes;
+
+    public OllirPassManager() {
+        this.passes = new ArrayList<>();
+    }
+
+    public OllirPassManager add(OllirPass pass) {
+        passes.add(pass);
+        return this;
+    }
+
+    /**
+     * Optimizes all the methods of the class.
+     *
+     * @return the number of changes made by each pass, by pass name
+     */
+    public Map<String, Integer> run(ClassUnit ollirClass) {
+        var changes = new LinkedHashMap<String, Integer>();
+        for (var pass : passes) {
+            changes.put(pass.getClass().getSimpleName(), 0);
+        }
+
+        for (var method : ollirClass.getMethods()) {
+            for (int round = 0; round < MAX_ROUNDS; round++) {
+                int roundChanges = 0;
+
+                for (var pass : passes) {
+                    OllirInstructions.buildCFG(method);
+                    var passChanges = pass.apply(method);
+                    changes.merge(pass.getClass().getSimpleName(), passChanges, Integer::sum);
+                    roundChanges += passChanges;
+                }
+
+                if (roundChanges == 0) {
+                    break;
+                }
+            }
+
+            removeUnusedLocals(method);
+            OllirInstructions.buildCFG(method);
+        }
+
+        return changes;
+    }
+
+    /**
+     * Removes from the var table the locals that no instruction mentions anymore, so that they do not count for the
+     * locals of the method.
+     */
+    private static void removeUnusedLocals(Method method) {
+        var mentioned = new HashSet<String>();
+        for (var instruction : method.getInstructions()) {
+            instruction.getDescendantsAndSelfStream()
+                    .filter(Operand.class::isInstance)
+                    .forEach(node -> mentioned.add(((Operand) node).getName()));
+        }
+
+        method.getVarTable().entrySet().removeIf(entry -> entry.getValue().getScope() == VarScope.LOCAL
+                && !entry.getKey().equals("this") && !mentioned.contains(entry.getKey()));
+    }
+}
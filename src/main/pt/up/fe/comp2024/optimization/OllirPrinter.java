@@ -0,0 +1,251 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.specs.comp.ollir.*;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2024.CompilerConfig;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a {@link ClassUnit} back as OLLIR code.
+ * <p>
+ * The OLLIR passes edit the class unit in place, so after them the code the class was parsed from no longer describes
+ * it. This is the code that does, which parses back into an equivalent class unit.
+ */
+public class OllirPrinter {
+
+    private static final String NL = "\n";
+    private static final String END_STMT = ";\n";
+
+    private static final Map<OperationType, String> OPERATORS = Map.ofEntries(
+            Map.entry(OperationType.ADD, "+"), Map.entry(OperationType.SUB, "-"),
+            Map.entry(OperationType.MUL, "*"), Map.entry(OperationType.DIV, "/"),
+            Map.entry(OperationType.AND, "&"), Map.entry(OperationType.OR, "|"),
+            Map.entry(OperationType.XOR, "^"), Map.entry(OperationType.ANDB, "&&"),
+            Map.entry(OperationType.ORB, "||"), Map.entry(OperationType.NOTB, "!"),
+            Map.entry(OperationType.NOT, "~"), Map.entry(OperationType.LTH, "<"),
+            Map.entry(OperationType.LTE, "<="), Map.entry(OperationType.GTH, ">"),
+            Map.entry(OperationType.GTE, ">="), Map.entry(OperationType.EQ, "=="),
+            Map.entry(OperationType.NEQ, "!="));
+
+    private final StringBuilder code;
+
+    private OllirPrinter() {
+        this.code = new StringBuilder();
+    }
+
+    /**
+     * The OLLIR code of the result as its class unit is now: the code it was generated with, unless the OLLIR passes
+     * changed the class unit.
+     */
+    public static String getOllirCode(OllirResult ollirResult) {
+        if (!CompilerConfig.getOptimize(ollirResult.getConfig())) {
+            return ollirResult.getOllirCode();
+        }
+
+        return print(ollirResult.getOllirClass());
+    }
+
+    public static String print(ClassUnit classUnit) {
+        var printer = new OllirPrinter();
+        printer.printClass(classUnit);
+        return printer.code.toString();
+    }
+
+    private void printClass(ClassUnit classUnit) {
+        for (var importName : classUnit.getImports()) {
+            code.append("import ").append(importName).append(END_STMT);
+        }
+
+        code.append(NL);
+        printModifiers(classUnit.getClassAccessModifier(), classUnit.isStaticClass(), classUnit.isFinalClass());
+        code.append(classUnit.getClassName());
+        if (classUnit.getSuperClass() != null) {
+            code.append(" extends ").append(classUnit.getSuperClass());
+        }
+        code.append(" {").append(NL);
+
+        for (var field : classUnit.getFields()) {
+            code.append(NL).append(".field ");
+            printModifiers(field.getFieldAccessModifier(), field.isStaticField(), field.isFinalField());
+            code.append(field.getFieldName()).append(toString(field.getFieldType()));
+            if (field.isInitialized()) {
+                code.append(" = ").append(field.getInitialValue());
+            }
+            code.append(END_STMT);
+        }
+
+        for (var method : classUnit.getMethods()) {
+            code.append(NL);
+            printMethod(classUnit, method);
+        }
+
+        code.append("}").append(NL);
+    }
+
+    private void printModifiers(AccessModifier accessModifier, boolean isStatic, boolean isFinal) {
+        if (accessModifier != AccessModifier.DEFAULT) {
+            code.append(accessModifier.name().toLowerCase()).append(" ");
+        }
+
+        if (isStatic) {
+            code.append("static ");
+        }
+
+        if (isFinal) {
+            code.append("final ");
+        }
+    }
+
+    private void printMethod(ClassUnit classUnit, Method method) {
+        if (method.isConstructMethod()) {
+            code.append(".construct ").append(classUnit.getClassName());
+        } else {
+            code.append(".method ");
+            printModifiers(method.getMethodAccessModifier(), method.isStaticMethod(), method.isFinalMethod());
+            if (method.isVarargs()) {
+                code.append("varargs ");
+            }
+            code.append(method.getMethodName());
+        }
+
+        var params = method.getParams().stream().map(this::toString).collect(Collectors.joining(", "));
+        code.append("(").append(params).append(")").append(toString(method.getReturnType())).append(" {").append(NL);
+
+        // Built here, since Method caches the labels of each instruction the first time they are asked for
+        Map<Instruction, List<String>> labels = new HashMap<>();
+        for (var entry : method.getLabels().entrySet()) {
+            labels.computeIfAbsent(entry.getValue(), instruction -> new ArrayList<>()).add(entry.getKey());
+        }
+        labels.values().forEach(instructionLabels -> instructionLabels.sort(null));
+
+        for (var instruction : method.getInstructions()) {
+            for (var label : labels.getOrDefault(instruction, List.of())) {
+                code.append(label).append(":").append(NL);
+            }
+
+            code.append(toString(instruction)).append(END_STMT);
+        }
+
+        code.append("}").append(NL);
+    }
+
+    private String toString(Instruction instruction) {
+        if (instruction instanceof AssignInstruction assign) {
+            return toString(assign.getDest()) + " :=" + toString(assign.getTypeOfAssign()) + " "
+                    + toString(assign.getRhs());
+        }
+
+        if (instruction instanceof SingleOpInstruction singleOp) {
+            return toString(singleOp.getSingleOperand());
+        }
+
+        if (instruction instanceof BinaryOpInstruction binaryOp) {
+            return toString(binaryOp.getLeftOperand()) + " " + toString(binaryOp.getOperation()) + " "
+                    + toString(binaryOp.getRightOperand());
+        }
+
+        if (instruction instanceof UnaryOpInstruction unaryOp) {
+            return toString(unaryOp.getOperation()) + " " + toString(unaryOp.getOperand());
+        }
+
+        if (instruction instanceof CallInstruction call) {
+            return toString(call);
+        }
+
+        if (instruction instanceof GetFieldInstruction getField) {
+            return "getfield(" + toString(getField.getObject()) + ", " + toString(getField.getField()) + ")"
+                    + toString(getField.getFieldType());
+        }
+
+        if (instruction instanceof PutFieldInstruction putField) {
+            return "putfield(" + toString(putField.getObject()) + ", " + toString(putField.getField()) + ", "
+                    + toString(putField.getValue()) + ").V";
+        }
+
+        if (instruction instanceof GotoInstruction gotoInst) {
+            return "goto " + gotoInst.getLabel();
+        }
+
+        if (instruction instanceof CondBranchInstruction branch) {
+            return "if (" + toString(branch.getCondition()) + ") goto " + branch.getLabel();
+        }
+
+        if (instruction instanceof ReturnInstruction returnInst) {
+            if (!returnInst.hasReturnValue()) {
+                return "ret.V";
+            }
+
+            return "ret" + toString(returnInst.getOperand().getType()) + " " + toString(returnInst.getOperand());
+        }
+
+        throw new RuntimeException("Cannot print OLLIR instruction " + instruction.getClass().getSimpleName());
+    }
+
+    private String toString(CallInstruction call) {
+        var invocation = call.getInvocationType();
+        var arguments = new StringBuilder();
+        for (var argument : call.getArguments()) {
+            arguments.append(", ").append(toString(argument));
+        }
+
+        var returnType = toString(call.getReturnType());
+        var caller = call.getCaller();
+
+        return switch (invocation) {
+            case NEW -> {
+                var name = caller.getType().getTypeOfElement() == ElementType.ARRAYREF
+                        ? "array"
+                        : ((Operand) caller).getName();
+                yield "new(" + name + arguments + ")" + returnType;
+            }
+            case arraylength -> "arraylength(" + toString(caller) + ")" + returnType;
+            case ldc -> "ldc(" + ((LiteralElement) caller).getLiteral() + ").String";
+            default -> {
+                // The class of a static call is written by name only
+                var target = invocation == CallType.invokestatic ? ((Operand) caller).getName() : toString(caller);
+                var methodName = ((LiteralElement) call.getMethodName()).getLiteral();
+                yield invocation.name() + "(" + target + ", " + methodName + arguments + ")" + returnType;
+            }
+        };
+    }
+
+    private String toString(Element element) {
+        if (element instanceof LiteralElement literal) {
+            return literal.getLiteral() + toString(literal.getType());
+        }
+
+        var operand = (Operand) element;
+        if (operand.getType().getTypeOfElement() == ElementType.THIS) {
+            return operand.getName();
+        }
+
+        if (operand instanceof ArrayOperand arrayOperand) {
+            var indexes = arrayOperand.getIndexOperands().stream().map(this::toString)
+                    .collect(Collectors.joining("]["));
+            return operand.getName() + "[" + indexes + "]" + toString(operand.getType());
+        }
+
+        return operand.getName() + toString(operand.getType());
+    }
+
+    private String toString(Operation operation) {
+        return OPERATORS.get(operation.getOpType()) + toString(operation.getTypeInfo());
+    }
+
+    private String toString(Type type) {
+        return switch (type.getTypeOfElement()) {
+            case INT32 -> ".i32";
+            case BOOLEAN -> ".bool";
+            case STRING -> ".String";
+            case VOID -> ".V";
+            case ARRAYREF -> ".array".repeat(Math.max(1, ((ArrayType) type).getNumDimensions()))
+                    + toString(((ArrayType) type).getElementType());
+            case OBJECTREF, CLASS, THIS -> "." + ((ClassType) type).getName();
+        };
+    }
+}
@@ -17,24 +17,6 @@ import static pt.up.fe.comp2024.ast.Kind.TYPE;
 import static pt.up.fe.comp2024.ast.Kind.*;
 
 public class OptUtils {
-    private static int tempNumber = -1;
-
-    public static String getTemp() {
-
-        return getTemp("tmp");
-    }
-
-    public static String getTemp(String prefix) {
-
-        return prefix + getNextTempNum();
-    }
-
-    public static int getNextTempNum() {
-
-        tempNumber += 1;
-        return tempNumber;
-    }
-
     public static String toOllirType(JmmNode typeNode) {
 
         String typeName = "";
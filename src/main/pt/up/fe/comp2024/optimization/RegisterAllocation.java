@@ -0,0 +1,151 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.specs.comp.ollir.ClassUnit;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.VarScope;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.Stage;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Reassigns the virtual registers of the variables of each method, by coloring their interference graph
+ * (Chaitin-style simplify and select, with Briggs' optimistic coloring of spill candidates).
+ * <p>
+ * 'this' and the parameters keep the registers where the JVM places them, but their registers may be reused once
+ * they are dead. The smallest number of registers for which the coloring succeeds is used; if a maximum was requested
+ * and the method needs more, an error is reported with the number it needs and its registers are left unchanged.
+ */
+public class RegisterAllocation {
+
+    private final int maxRegisters;
+    private final List<Report> reports;
+
+    /**
+     * @param maxRegisters the maximum number of registers of each method, or 0 to only minimize them
+     * @param reports      where errors of methods that do not fit are added
+     */
+    public RegisterAllocation(int maxRegisters, List<Report> reports) {
+        this.maxRegisters = maxRegisters;
+        this.reports = reports;
+    }
+
+    public void apply(ClassUnit ollirClass) {
+        for (var method : ollirClass.getMethods()) {
+            OllirInstructions.buildCFG(method);
+            allocate(method);
+        }
+    }
+
+    private void allocate(Method method) {
+        var liveness = new LivenessAnalysis(method);
+        liveness.analyze();
+        var graph = new InterferenceGraph(liveness);
+
+        var variables = liveness.getVariables();
+        var precolored = new int[variables.size()];
+        int minRegisters = 0;
+        for (int i = 0; i < variables.size(); i++) {
+            var name = variables.get(i);
+            var descriptor = method.getVarTable().get(name);
+
+            boolean fixed = descriptor.getScope() == VarScope.PARAMETER
+                    || (name.equals("this") && !method.isStaticMethod());
+            precolored[i] = fixed ? descriptor.getVirtualReg() : -1;
+            minRegisters = Math.max(minRegisters, precolored[i] + 1);
+        }
+
+        // Coloring always succeeds with a register per variable
+        int[] colors = null;
+        int registers = minRegisters;
+        while (colors == null) {
+            colors = color(graph, precolored, registers);
+            if (colors == null) {
+                registers++;
+            }
+        }
+
+        if (maxRegisters > 0 && registers > maxRegisters) {
+            reports.add(Report.newError(Stage.OPTIMIZATION, -1, -1,
+                    "Method '" + method.getMethodName() + "' needs at least " + registers
+                            + " registers, but only " + maxRegisters + " were allowed", null));
+            return;
+        }
+
+        for (int i = 0; i < variables.size(); i++) {
+            method.getVarTable().get(variables.get(i)).setVirtualReg(colors[i]);
+        }
+    }
+
+    /**
+     * Colors the graph with the given number of registers.
+     *
+     * @return the register of each variable, or null if the variables do not fit
+     */
+    private static int[] color(InterferenceGraph graph, int[] precolored, int registers) {
+        var size = graph.size();
+        var degrees = new int[size];
+        var removed = new BitSet(size);
+        var stack = new ArrayDeque<Integer>();
+
+        for (int i = 0; i < size; i++) {
+            degrees[i] = graph.getNeighbours(i).cardinality();
+
+            // Precolored variables stay in the graph
+            if (precolored[i] >= 0) {
+                if (precolored[i] >= registers) {
+                    return null;
+                }
+                removed.set(i);
+            }
+        }
+
+        // Simplify, removing the variables with less neighbours than registers first
+        while (removed.cardinality() < size) {
+            int next = -1;
+            for (int i = removed.nextClearBit(0); i < size; i = removed.nextClearBit(i + 1)) {
+                if (degrees[i] < registers) {
+                    next = i;
+                    break;
+                }
+
+                // Spill candidate, which may still be colored when selected
+                if (next < 0 || degrees[i] > degrees[next]) {
+                    next = i;
+                }
+            }
+
+            removed.set(next);
+            stack.push(next);
+            var neighbours = graph.getNeighbours(next);
+            for (int n = neighbours.nextSetBit(0); n >= 0; n = neighbours.nextSetBit(n + 1)) {
+                degrees[n]--;
+            }
+        }
+
+        // Select, giving each variable the lowest register not taken by its neighbours
+        var colors = Arrays.copyOf(precolored, size);
+        while (!stack.isEmpty()) {
+            var variable = stack.pop();
+
+            var taken = new BitSet(registers);
+            var neighbours = graph.getNeighbours(variable);
+            for (int n = neighbours.nextSetBit(0); n >= 0; n = neighbours.nextSetBit(n + 1)) {
+                if (colors[n] >= 0) {
+                    taken.set(colors[n]);
+                }
+            }
+
+            var color = taken.nextClearBit(0);
+            if (color >= registers) {
+                return null;
+            }
+            colors[variable] = color;
+        }
+
+        return colors;
+    }
+}
@@ -0,0 +1,106 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import org.specs.comp.ollir.*;
+import pt.up.fe.comp2024.optimization.OllirInstructions;
+import pt.up.fe.comp2024.optimization.OllirPass;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replaces 'x := a op b' by 'x := t' when 't' already holds 'a op b', by local value numbering inside basic blocks.
+ * <p>
+ * Only arithmetic and logic operations over variables and literals are considered, whose value depends on nothing
+ * but their operands. The copies that replace them are left for {@link CopyPropagation}.
+ */
+public class CommonSubexpressionElimination implements OllirPass {
+
+    private static final Set<OperationType> COMMUTATIVE = Set.of(OperationType.ADD, OperationType.MUL,
+            OperationType.AND, OperationType.ANDB, OperationType.OR, OperationType.ORB, OperationType.EQ,
+            OperationType.NEQ);
+
+    /**
+     * An expression available in a variable, and the variables it reads.
+     */
+    private record Available(String holder, List<String> operands) {
+    }
+
+    @Override
+    public int apply(Method method) {
+        int changes = 0;
+        Map<String, Available> available = new HashMap<>();
+
+        var instructions = method.getInstructions();
+        for (int i = 0; i < instructions.size(); i++) {
+            var instruction = instructions.get(i);
+            if (OllirInstructions.hasLabels(method, instruction)) {
+                available.clear();
+            }
+
+            var def = OllirInstructions.getDef(instruction);
+            if (def.isPresent()) {
+                var dest = def.get();
+                var assign = (AssignInstruction) instruction;
+                var key = getKey(assign.getRhs());
+
+                var previous = key == null ? null : available.get(key);
+                if (previous != null && !previous.holder().equals(dest.getName())) {
+                    var copy = new SingleOpInstruction(new Operand(previous.holder(), dest.getType()));
+                    OllirInstructions.replace(method, i, new AssignInstruction(dest, assign.getTypeOfAssign(), copy));
+                    changes++;
+                }
+
+                // Expressions that read or are held by the redefined variable are no longer available
+                available.values().removeIf(expr -> expr.holder().equals(dest.getName())
+                        || expr.operands().contains(dest.getName()));
+
+                if (key != null && previous == null) {
+                    var operands = getOperandNames(assign.getRhs());
+                    if (!operands.contains(dest.getName())) {
+                        available.put(key, new Available(dest.getName(), operands));
+                    }
+                }
+            }
+
+            if (OllirInstructions.isUnconditionalExit(instruction) || instruction instanceof CondBranchInstruction) {
+                available.clear();
+            }
+        }
+
+        return changes;
+    }
+
+    /**
+     * A key identifying the value of the expression, or null if it is not a candidate.
+     */
+    private static String getKey(Instruction rhs) {
+        if (!(rhs instanceof OpInstruction op)) {
+            return null;
+        }
+
+        var operands = new ArrayList<String>();
+        for (var operand : op.getOperands()) {
+            if (operand instanceof ArrayOperand) {
+                return null;
+            }
+
+            operands.add(operand.isLiteral()
+                    ? ((LiteralElement) operand).getLiteral() + "." + operand.getType()
+                    : ((Operand) operand).getName());
+        }
+
+        var opType = op.getOperation().getOpType();
+        if (COMMUTATIVE.contains(opType)) {
+            operands.sort(null);
+        }
+
+        return opType + "." + op.getOperation().getTypeInfo() + " " + String.join(" ", operands);
+    }
+
+    private static List<String> getOperandNames(Instruction rhs) {
+        return OllirInstructions.getUses(rhs).stream().map(Operand::getName).toList();
+    }
+}
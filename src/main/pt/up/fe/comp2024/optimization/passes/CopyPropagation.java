@@ -0,0 +1,57 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import org.specs.comp.ollir.CondBranchInstruction;
+import org.specs.comp.ollir.Method;
+import pt.up.fe.comp2024.optimization.OllirInstructions;
+import pt.up.fe.comp2024.optimization.OllirPass;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Replaces the uses of a variable copied with 'x := y' by the original variable, while neither is reassigned.
+ * <p>
+ * Works inside basic blocks, so the copies are forgotten at labels and jumps. The copies themselves are left for
+ * {@link DeadCodeElimination}.
+ */
+public class CopyPropagation implements OllirPass {
+
+    @Override
+    public int apply(Method method) {
+        int changes = 0;
+
+        // Copied variable -> original variable
+        Map<String, String> copies = new HashMap<>();
+
+        for (var instruction : method.getInstructions()) {
+            if (OllirInstructions.hasLabels(method, instruction)) {
+                copies.clear();
+            }
+
+            for (var use : OllirInstructions.getUses(instruction)) {
+                var original = copies.get(use.getName());
+                if (original != null) {
+                    use.setName(original);
+                    changes++;
+                }
+            }
+
+            var def = OllirInstructions.getDef(instruction);
+            if (def.isPresent()) {
+                var dest = def.get().getName();
+                copies.remove(dest);
+                copies.values().removeIf(original -> original.equals(dest));
+
+                OllirInstructions.getCopySource(instruction)
+                        .filter(source -> !source.getName().equals(dest) && !source.getName().equals("this"))
+                        .ifPresent(source -> copies.put(dest, source.getName()));
+            }
+
+            if (OllirInstructions.isUnconditionalExit(instruction) || instruction instanceof CondBranchInstruction) {
+                copies.clear();
+            }
+        }
+
+        return changes;
+    }
+}
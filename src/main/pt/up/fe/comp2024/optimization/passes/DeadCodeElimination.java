@@ -0,0 +1,103 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import org.specs.comp.ollir.AssignInstruction;
+import org.specs.comp.ollir.GotoInstruction;
+import org.specs.comp.ollir.Instruction;
+import org.specs.comp.ollir.Method;
+import pt.up.fe.comp2024.optimization.LivenessAnalysis;
+import pt.up.fe.comp2024.optimization.OllirInstructions;
+import pt.up.fe.comp2024.optimization.OllirPass;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Removes instructions that cannot change the behaviour of the method: unreachable instructions, assignments of
+ * values that are never read (when computing them has no side effects), copies of a variable to itself, and jumps to
+ * the instruction that follows them.
+ */
+public class DeadCodeElimination implements OllirPass {
+
+    @Override
+    public int apply(Method method) {
+        var instructions = method.getInstructions();
+        if (instructions.isEmpty()) {
+            return 0;
+        }
+
+        var dead = findUnreachable(method);
+
+        var liveness = new LivenessAnalysis(method);
+        liveness.analyze();
+
+        for (int i = 0; i < instructions.size(); i++) {
+            var instruction = instructions.get(i);
+            var def = OllirInstructions.getDef(instruction);
+            if (def.isEmpty()) {
+                continue;
+            }
+
+            var name = def.get().getName();
+            var isSelfCopy = OllirInstructions.getCopySource(instruction)
+                    .filter(source -> source.getName().equals(name))
+                    .isPresent();
+
+            var index = liveness.getIndex(name);
+            var isDeadStore = index >= 0 && !liveness.getLiveOut(i).get(index)
+                    && OllirInstructions.isPure(((AssignInstruction) instruction).getRhs());
+
+            if (isSelfCopy || isDeadStore) {
+                dead.set(i);
+            }
+        }
+
+        int changes = dead.cardinality();
+
+        // Removed from the end, so that the indexes of the remaining ones do not change
+        for (int i = dead.previousSetBit(instructions.size() - 1); i >= 0; i = dead.previousSetBit(i - 1)) {
+            OllirInstructions.remove(method, i);
+        }
+
+        for (int i = 0; i + 1 < instructions.size(); i++) {
+            if (instructions.get(i) instanceof GotoInstruction jump
+                    && method.getLabels().get(jump.getLabel()) == instructions.get(i + 1)) {
+                OllirInstructions.remove(method, i);
+                changes++;
+                i--;
+            }
+        }
+
+        return changes;
+    }
+
+    private static BitSet findUnreachable(Method method) {
+        var instructions = method.getInstructions();
+
+        Map<Instruction, Integer> positions = new HashMap<>();
+        for (int i = 0; i < instructions.size(); i++) {
+            positions.put(instructions.get(i), i);
+        }
+
+        var reached = new BitSet(instructions.size());
+        var worklist = new ArrayDeque<Integer>();
+        reached.set(0);
+        worklist.add(0);
+
+        while (!worklist.isEmpty()) {
+            for (var successor : instructions.get(worklist.poll()).getSuccessors()) {
+                var position = positions.get(successor);
+                if (position != null && !reached.get(position)) {
+                    reached.set(position);
+                    worklist.add(position);
+                }
+            }
+        }
+
+        var unreachable = new BitSet(instructions.size());
+        unreachable.set(0, instructions.size());
+        unreachable.andNot(reached);
+        return unreachable;
+    }
+}
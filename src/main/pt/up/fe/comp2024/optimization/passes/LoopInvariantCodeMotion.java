@@ -0,0 +1,214 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import org.specs.comp.ollir.*;
+import pt.up.fe.comp2024.optimization.LivenessAnalysis;
+import pt.up.fe.comp2024.optimization.LoopAnalysis;
+import pt.up.fe.comp2024.optimization.OllirInstructions;
+import pt.up.fe.comp2024.optimization.OllirPass;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moves the assignments whose value does not change inside a loop to the preheader of the loop, so they run once
+ * each time the loop is entered instead of once per iteration.
+ * <p>
+ * An assignment 'x := expr' is invariant when the variables expr reads are not assigned in the loop, or only by
+ * invariant assignments. It is moved when it is the only assignment of 'x' in the loop, 'x' is not read in the loop
+ * before it, and 'x' is not read after the loop unless the assignment runs before every exit. Only expressions
+ * without side effects are moved: arithmetic that cannot throw, field reads when the loop stores no such field and
+ * calls no method, and array lengths at the start of the header, which run at least once anyway.
+ */
+public class LoopInvariantCodeMotion implements OllirPass {
+
+    @Override
+    public int apply(Method method) {
+        int changes = 0;
+
+        // Moving code changes the positions of the instructions, so loops are found again after each move
+        boolean moved = true;
+        while (moved) {
+            moved = false;
+
+            var liveness = new LivenessAnalysis(method);
+            liveness.analyze();
+            var loops = new LoopAnalysis(method);
+            loops.analyze();
+
+            for (var loop : loops.getLoops()) {
+                var entry = loops.getEntry(loop);
+                if (entry.isEmpty()) {
+                    continue;
+                }
+
+                var invariant = findInvariant(method, loop, loops, liveness);
+                if (invariant.isEmpty()) {
+                    continue;
+                }
+
+                var instructions = method.getInstructions();
+                var hoisted = new ArrayList<Instruction>();
+                for (var position : invariant) {
+                    hoisted.add(instructions.get(position));
+                }
+
+                // Removed from the end, so that the positions of the remaining ones do not change
+                invariant.sort(null);
+                for (int i = invariant.size() - 1; i >= 0; i--) {
+                    OllirInstructions.remove(method, invariant.get(i));
+                }
+
+                LoopAnalysis.insertInPreheader(method, entry.get(), hoisted);
+                OllirInstructions.buildCFG(method);
+
+                changes += hoisted.size();
+                moved = true;
+                break;
+            }
+        }
+
+        return changes;
+    }
+
+    /**
+     * The positions of the assignments that can be moved out of the loop, in an order where each one comes after the
+     * ones that assign the variables it reads.
+     */
+    private static List<Integer> findInvariant(Method method, LoopAnalysis.Loop loop, LoopAnalysis loops,
+                                               LivenessAnalysis liveness) {
+        var instructions = method.getInstructions();
+        var body = loop.getBody();
+
+        var assignments = loops.getAssignments(loop);
+        Set<String> storedFields = new HashSet<>();
+        boolean hasCalls = false;
+        for (int i = body.nextSetBit(0); i >= 0; i = body.nextSetBit(i + 1)) {
+            var instruction = instructions.get(i);
+            if (instruction instanceof PutFieldInstruction putField) {
+                storedFields.add(putField.getField().getName());
+            }
+
+            var value = instruction instanceof AssignInstruction assign ? assign.getRhs() : instruction;
+            hasCalls |= value instanceof CallInstruction call && call.getInvocationType() != CallType.arraylength;
+        }
+
+        var exits = loops.getExits(loop);
+        var invariant = new ArrayList<Integer>();
+        var marked = new BitSet();
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (int i = body.nextSetBit(0); i >= 0; i = body.nextSetBit(i + 1)) {
+                if (marked.get(i) || !isInvariant(method, i, loop, loops, liveness, assignments, marked, exits)) {
+                    continue;
+                }
+
+                var rhs = ((AssignInstruction) instructions.get(i)).getRhs();
+                if (rhs instanceof GetFieldInstruction getField
+                        && (hasCalls || storedFields.contains(getField.getField().getName()))) {
+                    continue;
+                }
+
+                marked.set(i);
+                invariant.add(i);
+                changed = true;
+            }
+        }
+
+        return invariant;
+    }
+
+    private static boolean isInvariant(Method method, int position, LoopAnalysis.Loop loop, LoopAnalysis loops,
+                                       LivenessAnalysis liveness, Map<String, Integer> assignments, BitSet marked,
+                                       List<Integer> exits) {
+        var instruction = method.getInstructions().get(position);
+        var def = OllirInstructions.getDef(instruction);
+        if (def.isEmpty()) {
+            return false;
+        }
+
+        var rhs = ((AssignInstruction) instruction).getRhs();
+        var isArrayLength = rhs instanceof CallInstruction call && call.getInvocationType() == CallType.arraylength;
+        if (!isArrayLength && !isSafe(rhs)) {
+            return false;
+        }
+
+        // Array lengths throw if the array is null, so they are only moved if they already run before anything else
+        if (isArrayLength && !startsHeader(method, position, loop, marked)) {
+            return false;
+        }
+
+        var name = def.get().getName();
+        var variable = liveness.getIndex(name);
+        if (variable < 0 || assignments.get(name) != position || liveness.getLiveIn(loop.getHeader()).get(variable)) {
+            return false;
+        }
+
+        for (var use : OllirInstructions.getUses(rhs)) {
+            var assignment = assignments.get(use.getName());
+            if (assignment != null && (assignment < 0 || !marked.get(assignment))) {
+                return false;
+            }
+        }
+
+        // If the loop may exit before the assignment, the variable must not be read after the loop
+        for (var exit : exits) {
+            if (loops.dominates(position, exit)) {
+                continue;
+            }
+
+            for (var successor : loops.getSuccessors(exit)) {
+                if (!loop.contains(successor) && liveness.getLiveIn(successor).get(variable)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * If the expression has no side effects, cannot throw and does not read array elements, which the loop may change.
+     */
+    private static boolean isSafe(Instruction rhs) {
+        if (rhs instanceof GetFieldInstruction getField) {
+            return getField.getObject().getName().equals("this");
+        }
+
+        return OllirInstructions.isPure(rhs)
+                && OllirInstructions.getUses(rhs).stream().noneMatch(ArrayOperand.class::isInstance);
+    }
+
+    /**
+     * If the instruction is in the straight-line code that starts the header of the loop, and everything before it
+     * there is either moved too or has no side effects.
+     */
+    private static boolean startsHeader(Method method, int position, LoopAnalysis.Loop loop, BitSet marked) {
+        var instructions = method.getInstructions();
+
+        for (int i = loop.getHeader(); i < position; i++) {
+            var instruction = instructions.get(i);
+            if (!loop.contains(i) || (i > loop.getHeader() && OllirInstructions.hasLabels(method, instruction))) {
+                return false;
+            }
+
+            if (marked.get(i)) {
+                continue;
+            }
+
+            var def = OllirInstructions.getDef(instruction);
+            if (def.isEmpty() || !isSafe(((AssignInstruction) instruction).getRhs())) {
+                return false;
+            }
+        }
+
+        return position >= loop.getHeader() && (position == loop.getHeader()
+                || !OllirInstructions.hasLabels(method, instructions.get(position)));
+    }
+}
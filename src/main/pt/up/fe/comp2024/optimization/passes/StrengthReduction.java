@@ -0,0 +1,263 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import org.specs.comp.ollir.*;
+import pt.up.fe.comp2024.optimization.LoopAnalysis;
+import pt.up.fe.comp2024.optimization.OllirInstructions;
+import pt.up.fe.comp2024.optimization.OllirPass;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Replaces the multiplications of the induction variables of a loop by additions.
+ * <p>
+ * A basic induction variable 'i' is assigned only once in the loop, by 'i := i + c' or 'i := i - c' with a constant
+ * c, in code that runs in every iteration. An assignment 't := i * k', with k a constant or a variable not assigned in the loop, gives a derived induction
+ * variable, which changes by c * k each time i changes. It is kept in a new variable 's', set to 'i * k' before the
+ * loop and increased by c * k right after 'i' is, so the multiplication becomes the copy 't := s'. The copy is left
+ * to {@link CopyPropagation} and {@link DeadCodeElimination}.
+ */
+public class StrengthReduction implements OllirPass {
+
+    /**
+     * An assignment 'i := i + step' in a loop, where i is assigned nowhere else in the loop.
+     */
+    private record BasicVariable(String name, int position, int step) {
+    }
+
+    /**
+     * The multiplications in a loop of a basic induction variable by the same factor.
+     */
+    private record DerivedVariable(BasicVariable basic, Element factor, List<Integer> positions) {
+    }
+
+    private static final Type INT = new Type(ElementType.INT32);
+
+    @Override
+    public int apply(Method method) {
+        int changes = 0;
+
+        // Changing the loop changes the positions of the instructions, so loops are found again after each change
+        boolean reduced = true;
+        while (reduced) {
+            reduced = false;
+
+            var loops = new LoopAnalysis(method);
+            loops.analyze();
+
+            for (var loop : loops.getLoops()) {
+                var entry = loops.getEntry(loop);
+                if (entry.isEmpty()) {
+                    continue;
+                }
+
+                var derived = findDerived(method, loop, loops);
+                if (derived.isEmpty()) {
+                    continue;
+                }
+
+                reduce(method, entry.get(), derived.get());
+                OllirInstructions.buildCFG(method);
+
+                changes += derived.get().positions().size();
+                reduced = true;
+                break;
+            }
+        }
+
+        return changes;
+    }
+
+    private static Optional<DerivedVariable> findDerived(Method method, LoopAnalysis.Loop loop, LoopAnalysis loops) {
+        var instructions = method.getInstructions();
+        var body = loop.getBody();
+        var assignments = loops.getAssignments(loop);
+
+        // Multiplications grouped by variable and factor, in the order they are found
+        Map<String, DerivedVariable> derived = new HashMap<>();
+        DerivedVariable first = null;
+
+        for (int i = body.nextSetBit(0); i >= 0; i = body.nextSetBit(i + 1)) {
+            var binaryOp = getIntBinaryOp(instructions.get(i));
+            if (binaryOp == null || binaryOp.getOperation().getOpType() != OperationType.MUL) {
+                continue;
+            }
+
+            var left = binaryOp.getLeftOperand();
+            var right = binaryOp.getRightOperand();
+            var basic = getBasicVariable(method, loop, loops, left, assignments);
+            var factor = right;
+            if (basic == null) {
+                basic = getBasicVariable(method, loop, loops, right, assignments);
+                factor = left;
+            }
+
+            if (basic == null || !isIntOperand(factor)
+                    || (factor instanceof Operand operand && assignments.containsKey(operand.getName()))) {
+                continue;
+            }
+
+            var found = basic;
+            var foundFactor = factor;
+            var key = basic.name() + " * " + getName(factor);
+            var group = derived.computeIfAbsent(key,
+                    k -> new DerivedVariable(found, copy(foundFactor), new ArrayList<>()));
+            group.positions().add(i);
+
+            if (first == null) {
+                first = group;
+            }
+        }
+
+        return Optional.ofNullable(first);
+    }
+
+    /**
+     * The basic induction variable read by the given element, if it is one.
+     */
+    private static BasicVariable getBasicVariable(Method method, LoopAnalysis.Loop loop, LoopAnalysis loops,
+                                                  Element element, Map<String, Integer> assignments) {
+        if (!OllirInstructions.isVariable(element) || element instanceof ArrayOperand) {
+            return null;
+        }
+
+        var name = ((Operand) element).getName();
+        var position = assignments.get(name);
+        if (position == null || position < 0 || !loops.runsEveryIteration(loop, position)) {
+            return null;
+        }
+
+        // 'i := i + c', 'i := c + i' or 'i := i - c'
+        var binaryOp = getIntBinaryOp(method.getInstructions().get(position));
+        if (binaryOp == null) {
+            return null;
+        }
+
+        var opType = binaryOp.getOperation().getOpType();
+        var left = binaryOp.getLeftOperand();
+        var right = binaryOp.getRightOperand();
+
+        if ((opType == OperationType.ADD || opType == OperationType.SUB) && isVariable(left, name)
+                && right instanceof LiteralElement literal) {
+            var step = Integer.parseInt(literal.getLiteral());
+            return new BasicVariable(name, position, opType == OperationType.ADD ? step : -step);
+        }
+
+        if (opType == OperationType.ADD && left instanceof LiteralElement literal && isVariable(right, name)) {
+            return new BasicVariable(name, position, Integer.parseInt(literal.getLiteral()));
+        }
+
+        return null;
+    }
+
+    /**
+     * Keeps the product in a new variable: initialized before the loop, increased after the basic variable and copied
+     * where the product was computed.
+     */
+    private static void reduce(Method method, Instruction entry, DerivedVariable derived) {
+        var instructions = method.getInstructions();
+        var basic = derived.basic();
+        var factor = derived.factor();
+        var preheader = new ArrayList<Instruction>();
+        var product = newVariable(method);
+
+        // The product changes by step * factor, computed before the loop if the factor is a variable
+        Element increase;
+        if (factor instanceof LiteralElement literal) {
+            increase = new LiteralElement(Integer.toString(basic.step() * Integer.parseInt(literal.getLiteral())), INT);
+        } else if (basic.step() == 1) {
+            increase = factor;
+        } else {
+            var name = newVariable(method);
+            preheader.add(assign(name, new BinaryOpInstruction(copy(factor), new Operation(OperationType.MUL, INT),
+                    new LiteralElement(Integer.toString(basic.step()), INT))));
+            increase = new Operand(name, INT);
+        }
+
+        preheader.add(assign(product, new BinaryOpInstruction(new Operand(basic.name(), INT),
+                new Operation(OperationType.MUL, INT), copy(factor))));
+
+        for (var position : derived.positions()) {
+            var dest = OllirInstructions.getDef(instructions.get(position)).orElseThrow();
+            OllirInstructions.replace(method, position, new AssignInstruction(dest, INT,
+                    new SingleOpInstruction(new Operand(product, INT))));
+        }
+
+        // Jumps to the instruction after the basic variable do not change it, so they skip the increase too
+        instructions.add(basic.position() + 1, assign(product, new BinaryOpInstruction(new Operand(product, INT),
+                new Operation(OperationType.ADD, INT), copy(increase))));
+
+        LoopAnalysis.insertInPreheader(method, entry, preheader);
+    }
+
+    /**
+     * The integer operation assigned by the given instruction, if it assigns one to a whole variable.
+     *
+     * @return the operation, or null if there is none
+     */
+    private static BinaryOpInstruction getIntBinaryOp(Instruction instruction) {
+        if (OllirInstructions.getDef(instruction).isEmpty()
+                || !(((AssignInstruction) instruction).getRhs() instanceof BinaryOpInstruction binaryOp)
+                || binaryOp.getOperation().getTypeInfo().getTypeOfElement() != ElementType.INT32) {
+            return null;
+        }
+
+        var dest = OllirInstructions.getDef(instruction).get();
+        return dest.getType().getTypeOfElement() == ElementType.INT32 ? binaryOp : null;
+    }
+
+    /**
+     * If the element is an int literal or an int variable.
+     */
+    private static boolean isIntOperand(Element element) {
+        return element.getType().getTypeOfElement() == ElementType.INT32 && !(element instanceof ArrayOperand)
+                && (element instanceof LiteralElement || OllirInstructions.isVariable(element));
+    }
+
+    private static String getName(Element element) {
+        return element instanceof LiteralElement literal ? literal.getLiteral() : ((Operand) element).getName();
+    }
+
+    private static boolean isVariable(Element element, String name) {
+        return OllirInstructions.isVariable(element) && !(element instanceof ArrayOperand)
+                && ((Operand) element).getName().equals(name);
+    }
+
+    private static Instruction assign(String dest, Instruction rhs) {
+        return new AssignInstruction(new Operand(dest, INT), INT, rhs);
+    }
+
+    /**
+     * A copy of an operand or literal, since the passes rename operands in place and must not change two
+     * instructions at once.
+     */
+    private static Element copy(Element element) {
+        return element instanceof LiteralElement literal
+                ? new LiteralElement(literal.getLiteral(), INT)
+                : new Operand(((Operand) element).getName(), INT);
+    }
+
+    /**
+     * Adds a new int variable to the method, in a register of its own.
+     */
+    private static String newVariable(Method method) {
+        var varTable = method.getVarTable();
+
+        int register = 0;
+        for (var descriptor : varTable.values()) {
+            register = Math.max(register, descriptor.getVirtualReg() + 1);
+        }
+
+        int suffix = varTable.size();
+        while (varTable.containsKey("iv" + suffix)) {
+            suffix++;
+        }
+
+        var name = "iv" + suffix;
+        varTable.put(name, new Descriptor(VarScope.LOCAL, register, INT));
+        return name;
+    }
+}
@@ -0,0 +1,52 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import org.specs.comp.ollir.Method;
+import pt.up.fe.comp2024.optimization.OllirInstructions;
+import pt.up.fe.comp2024.optimization.OllirPass;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Merges 't := expr; x := t' into 'x := expr' when the copy is the only use of 't', which is how the OLLIR generator
+ * stores the value of most expressions.
+ */
+public class TempCoalescing implements OllirPass {
+
+    @Override
+    public int apply(Method method) {
+        var instructions = method.getInstructions();
+
+        Map<String, Integer> useCounts = new HashMap<>();
+        for (var instruction : instructions) {
+            for (var use : OllirInstructions.getUses(instruction)) {
+                useCounts.merge(use.getName(), 1, Integer::sum);
+            }
+        }
+
+        int changes = 0;
+        for (int i = 0; i + 1 < instructions.size(); i++) {
+            var temp = OllirInstructions.getDef(instructions.get(i));
+            var copy = instructions.get(i + 1);
+            var source = OllirInstructions.getCopySource(copy);
+
+            if (temp.isEmpty() || source.isEmpty() || OllirInstructions.hasLabels(method, copy)) {
+                continue;
+            }
+
+            var tempName = temp.get().getName();
+            if (!source.get().getName().equals(tempName) || useCounts.getOrDefault(tempName, 0) != 1) {
+                continue;
+            }
+
+            // The expression is now stored directly in the destination of the copy
+            temp.get().setName(OllirInstructions.getDef(copy).orElseThrow().getName());
+            useCounts.remove(tempName);
+
+            OllirInstructions.remove(method, i + 1);
+            changes++;
+        }
+
+        return changes;
+    }
+}
@@ -3,8 +3,6 @@ package pt.up.fe.comp2024.optimization_jasmin;
 import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
 import pt.up.fe.comp.jmm.ast2jasmin.AstToJasmin;
 import pt.up.fe.comp.jmm.jasmin.JasminResult;
-import pt.up.fe.comp2024.optimization.ConstantFoldingVisitor;
-import pt.up.fe.comp2024.optimization.ConstantPropagationVisitor;
 
 import java.util.Collections;
 
@@ -2,14 +2,26 @@ package pt.up.fe.comp2024.parser;
 
 import org.antlr.v4.runtime.ANTLRInputStream;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.tree.ParseTree;
 import pt.up.fe.comp.jmm.ast.antlr.AntlrParser;
+import pt.up.fe.comp.jmm.ast.antlr.JmmErrorListener;
 import pt.up.fe.comp.jmm.parser.JmmParser;
 import pt.up.fe.comp.jmm.parser.JmmParserResult;
 import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
 import pt.up.fe.comp.jmm.report.Stage;
 
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.ast.CompactAst;
+import pt.up.fe.specs.util.SpecsSystem;
+
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Copyright 2022 SPeCS.
@@ -26,6 +38,9 @@ import java.util.Map;
 
 public class JmmParserImpl implements JmmParser {
 
+    // Rules whose method is already in the cache of SpecsSystem, see resolveRule
+    private static final Set<String> RESOLVED_RULES = ConcurrentHashMap.newKeySet();
+
     @Override
     public String getDefaultRule() {
         return "program";
@@ -43,7 +58,12 @@ public class JmmParserImpl implements JmmParser {
             var tokens = new CommonTokenStream(lex);
             // Transforms tokens into a parse tree
             var parser = new pt.up.fe.comp2024.JavammParser(tokens);
+            resolveRule(startingRule);
 
+            // Parsers with nodes to ignore are left to AntlrParser, which removes them
+            if (CompilerConfig.getCompactAst(config) && AntlrParser.getIgnoreList(parser).isEmpty()) {
+                return parseCompact(lex, parser, startingRule, config);
+            }
 
             // Convert ANTLR CST to JmmNode AST
             return AntlrParser.parse(lex, parser, startingRule, config);
@@ -53,4 +73,46 @@ public class JmmParserImpl implements JmmParser {
             return JmmParserResult.newError(Report.newError(Stage.SYNTATIC, -1, -1, "Exception during parsing", e), config);
         }
     }
+
+    /**
+     * Parses as AntlrParser does, but converts the parse tree to a CompactAst.
+     */
+    private static JmmParserResult parseCompact(Lexer lex, Parser parser, String startingRule,
+                                                Map<String, String> config) {
+        lex.removeErrorListeners();
+        var lexerListener = new JmmErrorListener(Stage.LEXICAL);
+        lex.addErrorListener(lexerListener);
+
+        parser.removeErrorListeners();
+        var parserListener = new JmmErrorListener(Stage.SYNTATIC);
+        parser.addErrorListener(parserListener);
+
+        var parseTree = (ParseTree) SpecsSystem.invoke(parser, startingRule);
+
+        var reports = new ArrayList<Report>();
+        reports.addAll(lexerListener.getReports());
+        reports.addAll(parserListener.getReports());
+
+        if (reports.stream().anyMatch(r -> r.getType().equals(ReportType.ERROR))) {
+            return new JmmParserResult(null, reports, config);
+        }
+
+        return new JmmParserResult(CompactAst.build(parseTree, parser).getRoot(), reports, config);
+    }
+
+    /**
+     * AntlrParser calls the starting rule by reflection, through a cache of methods that is not thread-safe. The
+     * method of each rule is added to the cache once, before any unit is parsed with it, so that units parsed
+     * concurrently only read the cache.
+     */
+    private static void resolveRule(String rule) {
+        if (RESOLVED_RULES.contains(rule)) {
+            return;
+        }
+
+        synchronized (RESOLVED_RULES) {
+            SpecsSystem.getMethod(pt.up.fe.comp2024.JavammParser.class, rule);
+            RESOLVED_RULES.add(rule);
+        }
+    }
 }
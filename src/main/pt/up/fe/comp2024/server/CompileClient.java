@@ -0,0 +1,175 @@
+package pt.up.fe.comp2024.server;
+
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.Launcher;
+import pt.up.fe.comp2024.metrics.CompilerMetrics;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Thin command-line front-end that sends compilations to a {@link CompileServer}, starting one in the background if
+ * none is listening, or if the one listening runs another build of the compiler. Accepts the same options as
+ * {@link Launcher} and prints the same outputs, plus '--stop-server'.
+ */
+public class CompileClient {
+
+    private static final String STOP_SERVER = "--stop-server";
+    private static final long START_TIMEOUT_MS = 10_000;
+    private static final long STOP_TIMEOUT_MS = 10_000;
+    private static final long RETRY_INTERVAL_MS = 50;
+
+    public static void main(String[] args) throws IOException {
+        var port = CompileServer.getPort();
+
+        if (args.length == 1 && args[0].equals(STOP_SERVER)) {
+            stopServer(port);
+            return;
+        }
+
+        var config = CompilerConfig.parseArgs(args);
+
+        // Batch mode already amortizes start-up over all the units, and the cache skips unchanged ones
+        if (CompilerConfig.getBatchInput(config).isPresent() || CompilerConfig.getCacheDir(config).isPresent()) {
+            Launcher.main(args);
+            return;
+        }
+
+        var inputFile = CompilerConfig.getInputFile(config).orElseThrow();
+        // The server writes the outputs itself, from wherever it was started
+        var request = CompileRequest.compile(ServerToken.get(port), SpecsIo.read(inputFile),
+                CompilerConfig.withAbsolutePaths(config));
+        var response = send(port, request);
+
+        for (var report : response.getReports()) {
+            System.err.println(report);
+        }
+
+        // The same outputs as the launcher: the tree, the optimized tree and the OLLIR code
+        for (var output : new String[]{response.getParseTree(), response.getOptimizedTree(), response.getOllirCode()}) {
+            if (output != null) {
+                System.out.println(output);
+            }
+        }
+
+        if (response.getMetrics() != null) {
+            CompilerMetrics.emit(response.getMetrics(), config);
+        }
+
+        if (response.hasErrors()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Sends a request to the server listening on the given port, starting the server if needed. A server of another
+     * build shuts down when it gets the request, and is replaced by one of this build.
+     */
+    public static CompileResponse send(int port, CompileRequest request) throws IOException {
+        var response = exchange(port, request);
+        if (response.isOutdated()) {
+            waitForShutdown(port);
+            response = exchange(port, request);
+        }
+
+        return response;
+    }
+
+    private static CompileResponse exchange(int port, CompileRequest request) throws IOException {
+        try (var socket = connect(port);
+             var reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             var writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+
+            writer.write(CompileServer.GSON.toJson(request));
+            writer.newLine();
+            writer.flush();
+
+            var line = reader.readLine();
+            if (line == null) {
+                throw new IOException("Compile server closed the connection without answering");
+            }
+
+            return CompileServer.GSON.fromJson(line, CompileResponse.class);
+        }
+    }
+
+    private static void stopServer(int port) throws IOException {
+        try (var socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             var writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            writer.write(CompileServer.GSON.toJson(CompileRequest.shutdown(ServerToken.get(port))));
+            writer.newLine();
+        } catch (ConnectException e) {
+            System.err.println("No compile server listening on port " + port);
+        }
+    }
+
+    private static Socket connect(int port) throws IOException {
+        try {
+            return new Socket(InetAddress.getLoopbackAddress(), port);
+        } catch (ConnectException e) {
+            startServer(port);
+        }
+
+        // Wait for the new server to start listening
+        var deadline = System.currentTimeMillis() + START_TIMEOUT_MS;
+        while (true) {
+            try {
+                return new Socket(InetAddress.getLoopbackAddress(), port);
+            } catch (ConnectException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IOException("Compile server did not start on port " + port, e);
+                }
+
+                sleep();
+            }
+        }
+    }
+
+    /**
+     * Waits until no server listens on the given port.
+     */
+    private static void waitForShutdown(int port) throws IOException {
+        var deadline = System.currentTimeMillis() + STOP_TIMEOUT_MS;
+        while (true) {
+            try (var socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IOException("Outdated compile server did not stop on port " + port);
+                }
+            } catch (ConnectException e) {
+                return;
+            }
+
+            sleep();
+        }
+    }
+
+    private static void sleep() throws IOException {
+        try {
+            Thread.sleep(RETRY_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the compile server", e);
+        }
+    }
+
+    /**
+     * Starts a server in a detached JVM with the same classpath as the client.
+     */
+    private static void startServer(int port) throws IOException {
+        var java = ProcessHandle.current().info().command().orElse("java");
+
+        new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                CompileServer.class.getName(), Integer.toString(port))
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+    }
+}
@@ -0,0 +1,59 @@
+package pt.up.fe.comp2024.server;
+
+import pt.up.fe.comp2024.BuildFingerprint;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A request sent to the {@link CompileServer}, serialized as one line of JSON.
+ * <p>
+ * Every request carries the {@link ServerToken} of the server and the {@link BuildFingerprint} of the client, so that
+ * a server never compiles for another user or with another build of the compiler.
+ */
+public class CompileRequest {
+
+    private String token;
+    private String fingerprint;
+    private String source;
+    private Map<String, String> config;
+    private boolean shutdown;
+
+    private CompileRequest(String token) {
+        this.token = token;
+        this.fingerprint = BuildFingerprint.get();
+    }
+
+    public static CompileRequest compile(String token, String source, Map<String, String> config) {
+        var request = new CompileRequest(token);
+        request.source = source;
+        request.config = config;
+        return request;
+    }
+
+    public static CompileRequest shutdown(String token) {
+        var request = new CompileRequest(token);
+        request.shutdown = true;
+        return request;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public Map<String, String> getConfig() {
+        return config == null ? new HashMap<>() : config;
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+}
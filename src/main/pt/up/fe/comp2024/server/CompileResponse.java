@@ -0,0 +1,138 @@
+package pt.up.fe.comp2024.server;
+
+import com.google.gson.JsonObject;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.JmmCompiler;
+import pt.up.fe.comp2024.optimization.OllirPrinter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The answer of the {@link CompileServer} to a {@link CompileRequest}, serialized as one line of JSON.
+ */
+public class CompileResponse {
+
+    private boolean outdated;
+    private String parseTree;
+    private String optimizedTree;
+    private String ollirCode;
+    private String jasminCode;
+    private final List<ReportData> reports = new ArrayList<>();
+    private JsonObject metrics;
+
+    public static CompileResponse fromResult(JmmCompiler.Result result) {
+        var response = new CompileResponse();
+
+        // Kept as it was parsed, since the optimizations change the tree in place
+        response.parseTree = result.getParseTree();
+
+        // The tree is optimized in place, once the analysis has no errors
+        if (result.getSemanticsResult() != null && result.getOllirResult() != null) {
+            response.optimizedTree = result.getSemanticsResult().getRootNode().toTree();
+        }
+
+        if (result.getOllirResult() != null) {
+            response.ollirCode = OllirPrinter.getOllirCode(result.getOllirResult());
+        }
+
+        if (result.getJasminResult() != null) {
+            response.jasminCode = result.getJasminResult().getJasminCode();
+        }
+
+        for (var report : result.getReports()) {
+            response.reports.add(new ReportData(report));
+        }
+
+        if (result.getMetrics().isEnabled()) {
+            response.metrics = result.getMetrics().toJson();
+        }
+
+        return response;
+    }
+
+    public static CompileResponse fromError(Report report) {
+        var response = new CompileResponse();
+        response.reports.add(new ReportData(report));
+        return response;
+    }
+
+    /**
+     * The answer of a server running another build of the compiler than the client, which then shuts down.
+     */
+    public static CompileResponse fromOutdated() {
+        var response = new CompileResponse();
+        response.outdated = true;
+        return response;
+    }
+
+    public boolean isOutdated() {
+        return outdated;
+    }
+
+    /**
+     * The parsed tree as printed by {@link pt.up.fe.comp.jmm.ast.JmmNode#toTree()}, or null if parsing failed.
+     */
+    public String getParseTree() {
+        return parseTree;
+    }
+
+    /**
+     * The tree after the AST optimizations, or null if they were not run.
+     */
+    public String getOptimizedTree() {
+        return optimizedTree;
+    }
+
+    public String getOllirCode() {
+        return ollirCode;
+    }
+
+    public String getJasminCode() {
+        return jasminCode;
+    }
+
+    /**
+     * Metrics of the compilation, or null if they were not enabled.
+     */
+    public JsonObject getMetrics() {
+        return metrics;
+    }
+
+    public List<Report> getReports() {
+        return reports.stream().map(ReportData::toReport).toList();
+    }
+
+    public boolean hasErrors() {
+        return reports.stream().anyMatch(report -> report.type == ReportType.ERROR);
+    }
+
+    /**
+     * Serializable form of a {@link Report}. Exceptions do not survive the trip to the client, so their description is
+     * kept in the message instead.
+     */
+    private static class ReportData {
+
+        private final ReportType type;
+        private final Stage stage;
+        private final int line;
+        private final int column;
+        private final String message;
+
+        private ReportData(Report report) {
+            this.type = report.getType();
+            this.stage = report.getStage();
+            this.line = report.getLine();
+            this.column = report.getColumn();
+            this.message = report.getException()
+                    .map(e -> report.getMessage() + " (exception: " + e + ")")
+                    .orElse(report.getMessage());
+        }
+
+        private Report toReport() {
+            return new Report(type, stage, line, column, message);
+        }
+    }
+}
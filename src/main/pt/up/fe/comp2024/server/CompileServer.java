@@ -0,0 +1,170 @@
+package pt.up.fe.comp2024.server;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.BuildFingerprint;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.JmmCompiler;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-lived compiler daemon, so that compilations do not pay for JVM start-up and JIT warm-up every time.
+ * <p>
+ * Listens on a loopback socket. Each line received is a JSON {@link CompileRequest}, answered with one line holding a
+ * JSON {@link CompileResponse}. Connections are served by a pool of workers, each with its own {@link JmmCompiler}.
+ * <p>
+ * Requests without the {@link ServerToken} of the port are refused. A request from another build of the compiler is
+ * answered as outdated and shuts the server down, so that the client can start one of its own build.
+ * <p>
+ * With an output directory in the options of a request, the server writes the outputs of the unit there itself.
+ */
+public class CompileServer {
+
+    public static final int DEFAULT_PORT = 7979;
+    private static final String PORT_VARIABLE = "JMM_SERVER_PORT";
+
+    static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService workers;
+    private final ThreadLocal<JmmCompiler> compilers = ThreadLocal.withInitial(() -> new JmmCompiler(true));
+
+    public CompileServer(int port, int threads) throws IOException {
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.workers = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * The port of the server, taken from the environment variable JMM_SERVER_PORT if set.
+     */
+    public static int getPort() {
+        var port = System.getenv(PORT_VARIABLE);
+        return port == null ? DEFAULT_PORT : Integer.parseInt(port);
+    }
+
+    public int getLocalPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the server is closed.
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                var socket = serverSocket.accept();
+                workers.submit(() -> handle(socket));
+            } catch (IOException e) {
+                // Closed by a shutdown request, any other failure only loses that connection
+                if (serverSocket.isClosed()) {
+                    break;
+                }
+
+                System.err.println("Could not accept connection: " + e.getMessage());
+            }
+        }
+
+        workers.shutdownNow();
+    }
+
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not close compile server", e);
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             var reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             var writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                CompileResponse response;
+                try {
+                    var request = GSON.fromJson(line, CompileRequest.class);
+                    if (!ServerToken.matches(ServerToken.get(getLocalPort()), request.getToken())) {
+                        respond(writer, CompileResponse.fromError(
+                                Report.newError(Stage.OTHER, -1, -1, "Request without the token of the server", null)));
+                        return;
+                    }
+
+                    if (request.isShutdown()) {
+                        close();
+                        return;
+                    }
+
+                    if (!BuildFingerprint.get().equals(request.getFingerprint())) {
+                        respond(writer, CompileResponse.fromOutdated());
+                        close();
+                        return;
+                    }
+
+                    response = compile(request);
+                } catch (JsonParseException e) {
+                    response = CompileResponse.fromError(Report.newError(Stage.OTHER, -1, -1, "Malformed request", e));
+                }
+
+                respond(writer, response);
+            }
+        } catch (IOException e) {
+            System.err.println("Connection failed: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // Workers must survive anything thrown while answering a request
+            System.err.println("Could not answer request: " + e);
+        }
+    }
+
+    private static void respond(BufferedWriter writer, CompileResponse response) throws IOException {
+        writer.write(GSON.toJson(response));
+        writer.newLine();
+        writer.flush();
+    }
+
+    private CompileResponse compile(CompileRequest request) {
+        if (request.getSource() == null) {
+            return CompileResponse.fromError(Report.newError(Stage.OTHER, -1, -1, "Request has no source code", null));
+        }
+
+        var config = request.getConfig();
+        var outputDir = CompilerConfig.getOutputDir(config);
+        var inputFile = CompilerConfig.getInputFile(config);
+        if (outputDir.isEmpty() || inputFile.isEmpty()) {
+            return CompileResponse.fromResult(compilers.get().compile(request.getSource(), config));
+        }
+
+        // Written here, so that the Jasmin code goes to its file as it is generated instead of through the response
+        var outputName = SpecsIo.removeExtension(inputFile.get().getName());
+        return CompileResponse.fromResult(compilers.get().compile(request.getSource(), config, outputDir.get(),
+                outputName));
+    }
+
+    public static void main(String[] args) throws IOException {
+        var port = args.length > 0 ? Integer.parseInt(args[0]) : getPort();
+
+        var server = new CompileServer(port, Runtime.getRuntime().availableProcessors());
+        ServerToken.get(server.getLocalPort());
+
+        // Before any request, since the classes of the compiler may be rebuilt while the server runs
+        BuildFingerprint.get();
+        System.out.println("Compile server listening on port " + server.getLocalPort());
+        server.serve();
+    }
+}
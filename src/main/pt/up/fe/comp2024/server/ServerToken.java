@@ -0,0 +1,102 @@
+package pt.up.fe.comp2024.server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+
+/**
+ * The secret a client must send with every request to the {@link CompileServer} of a port, so that only the user who
+ * runs the server can use it or shut it down.
+ * <p>
+ * The secret is kept in '~/.jmm/server-&lt;port&gt;.token', readable only by its owner, and is created by whichever of
+ * the client or the server needs it first. The server reads it again for each request, so that a deleted secret is
+ * replaced without restarting the server.
+ */
+public class ServerToken {
+
+    private static final String DIRECTORY = ".jmm";
+    private static final int TOKEN_BYTES = 32;
+    private static final int READ_ATTEMPTS = 20;
+    private static final long RETRY_INTERVAL_MS = 10;
+
+    private ServerToken() {
+    }
+
+    /**
+     * The secret of the server of the given port, created if it does not exist yet.
+     */
+    public static String get(int port) {
+        var file = Path.of(System.getProperty("user.home"), DIRECTORY, "server-" + port + ".token");
+
+        try {
+            if (Files.exists(file)) {
+                return read(file);
+            }
+
+            Files.createDirectories(file.getParent(), ownerOnly("rwx------"));
+
+            var bytes = new byte[TOKEN_BYTES];
+            new SecureRandom().nextBytes(bytes);
+            var token = HexFormat.of().formatHex(bytes);
+            try {
+                Files.writeString(Files.createFile(file, ownerOnly("rw-------")), token, StandardCharsets.UTF_8,
+                        StandardOpenOption.WRITE);
+                return token;
+            } catch (FileAlreadyExistsException e) {
+                return read(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not get the compile server token '" + file + "'", e);
+        }
+    }
+
+    /**
+     * Compares two secrets in a time that does not depend on where they differ.
+     */
+    public static boolean matches(String expected, String actual) {
+        return actual != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                actual.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the secret of another process, which may have created the file but not written it yet.
+     */
+    private static String read(Path file) throws IOException {
+        for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+            var token = Files.readString(file, StandardCharsets.UTF_8).strip();
+            if (token.length() == 2 * TOKEN_BYTES) {
+                return token;
+            }
+
+            try {
+                Thread.sleep(RETRY_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        throw new IOException("Compile server token is malformed, delete it to create a new one");
+    }
+
+    /**
+     * File permissions for the owner only, on file systems that support them.
+     */
+    private static FileAttribute<?>[] ownerOnly(String permissions) {
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            return new FileAttribute<?>[0];
+        }
+
+        return new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(permissions))};
+    }
+}
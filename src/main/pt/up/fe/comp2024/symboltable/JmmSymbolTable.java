@@ -3,15 +3,39 @@ package pt.up.fe.comp2024.symboltable;
 import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp2024.ast.TypeUtils;
 import pt.up.fe.specs.util.exceptions.NotImplementedException;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 public class JmmSymbolTable implements SymbolTable {
 
+    /**
+     * Where the symbol a name resolves to was declared.
+     */
+    public enum Origin {
+        LOCAL,
+        PARAM,
+        FIELD,
+        IMPORT
+    }
+
+    /**
+     * The symbol a name resolves to. Imported classes resolve to a symbol with the simple name of the class and the
+     * imported class as type.
+     */
+    public record Resolution(Symbol symbol, Origin origin) {
+    }
+
 
     private final List<String> importDeclaration;
     private final String className;
@@ -21,6 +45,15 @@ public class JmmSymbolTable implements SymbolTable {
     private final Map<String, Type> returnTypes;
     private final Map<String, List<Symbol>> params;
     private final Map<String, List<Symbol>> locals;
+    private final List<Report> duplicateReports;
+
+    // Names visible in the whole class (fields and imported classes) and in each method (locals and params)
+    private final Map<String, Resolution> classScope;
+    private final Map<String, Map<String, Resolution>> methodScopes;
+    private final Set<String> importedNames;
+
+    // Types of the expressions of the unit, see TypeUtils.getExprType. Analysis passes may add to it concurrently.
+    private final Map<JmmNode, Type> exprTypes;
 
     public JmmSymbolTable(
                             List<String> importDeclaration,
@@ -30,15 +63,89 @@ public class JmmSymbolTable implements SymbolTable {
                           List<Symbol> fields,
                           Map<String, Type> returnTypes,
                           Map<String, List<Symbol>> params,
-                          Map<String, List<Symbol>> locals) {
+                          Map<String, List<Symbol>> locals,
+                          List<Report> duplicateReports) {
         this.importDeclaration = importDeclaration;
         this.className = className;
         this.extended = extended;
-        this.methods = methods;
+        this.methods = Collections.unmodifiableList(methods);
         this.fields = fields;
         this.returnTypes = returnTypes;
-        this.params = params;
-        this.locals = locals;
+        this.params = unmodifiableValues(params);
+        this.locals = unmodifiableValues(locals);
+        this.duplicateReports = Collections.unmodifiableList(duplicateReports);
+
+        // When a name is declared more than once, the first declaration is the one used, as in a linear search.
+        // Locals hide params, which hide fields, which hide imported classes.
+        this.importedNames = new HashSet<>();
+        this.classScope = new HashMap<>();
+        for (var field : fields) {
+            classScope.putIfAbsent(field.getName(), new Resolution(field, Origin.FIELD));
+        }
+        for (var importName : importDeclaration) {
+            var simpleName = importName.substring(importName.lastIndexOf('.') + 1);
+            importedNames.add(simpleName);
+            var symbol = new Symbol(new Type(importName, false), simpleName);
+            classScope.putIfAbsent(simpleName, new Resolution(symbol, Origin.IMPORT));
+        }
+
+        this.exprTypes = Collections.synchronizedMap(new IdentityHashMap<>());
+
+        this.methodScopes = new HashMap<>();
+        for (var method : methods) {
+            Map<String, Resolution> scope = new HashMap<>();
+            for (var local : this.locals.getOrDefault(method, List.of())) {
+                scope.putIfAbsent(local.getName(), new Resolution(local, Origin.LOCAL));
+            }
+            for (var param : this.params.getOrDefault(method, List.of())) {
+                scope.putIfAbsent(param.getName(), new Resolution(param, Origin.PARAM));
+            }
+            methodScopes.put(method, scope);
+        }
+    }
+
+    private static Map<String, List<Symbol>> unmodifiableValues(Map<String, List<Symbol>> symbols) {
+        var copy = new HashMap<String, List<Symbol>>();
+        symbols.forEach((method, list) -> copy.put(method, Collections.unmodifiableList(list)));
+        return copy;
+    }
+
+    /**
+     * Errors for the names declared more than once in the same scope, found while the table was built.
+     */
+    public List<Report> getDuplicateReports() {
+        return duplicateReports;
+    }
+
+    /**
+     * Resolves a name used inside the given method to the local, param, field or imported class it refers to.
+     *
+     * @param method the name of the method, or null outside of methods
+     */
+    public Optional<Resolution> resolve(String method, String name) {
+        var methodScope = method == null ? null : methodScopes.get(method);
+        if (methodScope != null) {
+            var resolution = methodScope.get(name);
+            if (resolution != null) {
+                return Optional.of(resolution);
+            }
+        }
+
+        return Optional.ofNullable(classScope.get(name));
+    }
+
+    /**
+     * The types already computed for the expressions of the unit, by node.
+     */
+    public Map<JmmNode, Type> getExprTypes() {
+        return exprTypes;
+    }
+
+    /**
+     * If the given simple name is the one of an imported class.
+     */
+    public boolean isImported(String simpleName) {
+        return importedNames.contains(simpleName);
     }
 
     @Override
@@ -63,7 +170,7 @@ public class JmmSymbolTable implements SymbolTable {
 
     @Override
     public List<String> getMethods() {
-        return Collections.unmodifiableList(methods);
+        return methods;
     }
 
     public String getExtended() {return extended; }
@@ -80,12 +187,12 @@ public class JmmSymbolTable implements SymbolTable {
 
     @Override
     public List<Symbol> getParameters(String methodSignature) {
-        return Collections.unmodifiableList(params.get(methodSignature));
+        return params.get(methodSignature);
     }
 
     @Override
     public List<Symbol> getLocalVariables(String methodSignature) {
-        return Collections.unmodifiableList(locals.get(methodSignature));
+        return locals.get(methodSignature);
     }
 
 
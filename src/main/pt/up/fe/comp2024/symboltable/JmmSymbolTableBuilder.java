@@ -3,8 +3,11 @@ package pt.up.fe.comp2024.symboltable;
 import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.Stage;
 import pt.up.fe.comp2024.ast.Kind;
 import pt.up.fe.comp2024.ast.TypeUtils;
+import pt.up.fe.comp2024.utils.ReportUtils;
 import pt.up.fe.specs.util.SpecsCheck;
 
 import java.sql.Array;
@@ -22,11 +25,11 @@ public class JmmSymbolTableBuilder {
         // Only accepts Imports and goes to the class declaration;
         for(int i = 0; i < root.getNumChildren(); i++)
         {
-            if(root.getChild(i).getKind().equals("ImportDeclaration"))
+            if(IMPORT_DECLARATION.check(root.getChild(i)))
             {
                 continue;
             }
-            else if(root.getChild(i).getKind().equals("ClassDecl"))
+            else if(CLASS_DECL.check(root.getChild(i)))
             {
                 checkImport = root.getChild(i);
                 break;
@@ -48,8 +51,59 @@ public class JmmSymbolTableBuilder {
         var returnTypes = buildReturnTypes(classDecl);
         var params = buildParams(classDecl);
         var locals = buildLocals(classDecl);
+        var duplicates = buildDuplicateReports(root, classDecl);
 
-        return new JmmSymbolTable(imports,className,extended, methods, fields, returnTypes, params, locals);
+        return new JmmSymbolTable(imports,className,extended, methods, fields, returnTypes, params, locals, duplicates);
+    }
+
+    /**
+     * Reports every imported class, method, field, param and local declared more than once in the same scope, at the
+     * declaration that repeats the name. Each scope keeps a set of the names it declared so far.
+     */
+    private static List<Report> buildDuplicateReports(JmmNode root, JmmNode classDecl) {
+        List<Report> reports = new ArrayList<>();
+
+        Set<String> importNames = new HashSet<>();
+        for (var importDecl : root.getChildren(IMPORT_DECLARATION)) {
+            var path = importDecl.getObjectAsList("value", String.class);
+            checkDuplicate(importNames, path.get(path.size() - 1), importDecl, "Import", reports);
+        }
+
+        Set<String> fieldNames = new HashSet<>();
+        Set<String> methodNames = new HashSet<>();
+        for (var child : classDecl.getChildren()) {
+            if (VAR_DECL.check(child)) {
+                checkDuplicate(fieldNames, child.get("name"), child, "Field", reports);
+                continue;
+            }
+
+            if (!METHOD_DECL.check(child)) {
+                continue;
+            }
+
+            checkDuplicate(methodNames, child.get("methodName"), child, "Method", reports);
+
+            Set<String> paramNames = new HashSet<>();
+            for (var param : child.getChildren(PARAM)) {
+                for (var paramName : param.getObjectAsList("paramName", String.class)) {
+                    checkDuplicate(paramNames, paramName, param, "Parameter", reports);
+                }
+            }
+
+            Set<String> localNames = new HashSet<>();
+            for (var varDecl : child.getChildren(VAR_DECL)) {
+                checkDuplicate(localNames, varDecl.get("name"), varDecl, "Local Variable", reports);
+            }
+        }
+
+        return reports;
+    }
+
+    private static void checkDuplicate(Set<String> names, String name, JmmNode node, String description,
+                                       List<Report> reports) {
+        if (!names.add(name)) {
+            reports.add(ReportUtils.buildErrorReport(Stage.SEMANTIC, node, description + " " + name + " is duplicated"));
+        }
     }
 
     private static List<String> buildImports(JmmNode root)
@@ -60,7 +114,7 @@ public class JmmSymbolTableBuilder {
 
         for(int i = 0; i < root.getNumChildren(); i++)
         {
-            if(root.getChild(i).getKind().equals("ImportDeclaration"))
+            if(IMPORT_DECLARATION.check(root.getChild(i)))
             {
                 aux.add(root.getChild(i).get("value"));
                 var k = root.getChild(i).getObjectAsList("value", String.class);
@@ -114,7 +168,7 @@ public class JmmSymbolTableBuilder {
             String varType = "";
             if(!node.get("methodName").equals("main")) {
                 var returnType = node.getChild(0);
-                if (returnType.getKind().equals("ArrayType")) {
+                if (ARRAY_TYPE.check(returnType)) {
                     varType = returnType.getChild(0).get("value");
                     isArray = true;
                 }
@@ -145,15 +199,15 @@ public class JmmSymbolTableBuilder {
                     {
                         paramType = typeNodes.get(i).get("value");
                     }
-                    else if(typeNodes.get(i).getKind().equals("ArrayType"))
+                    else if(ARRAY_TYPE.check(typeNodes.get(i)))
                     {
                         paramType = typeNodes.get(i).getChild(0).get("value");
                     }
-                    else if(typeNodes.get(i).getKind().equals("VarArgsType"))
+                    else if(VAR_ARGS_TYPE.check(typeNodes.get(i)))
                     {
                         paramType = typeNodes.get(i).getChild(0).get("value");
                     }
-                    if(typeNodes.get(i).getKind().equals("ArrayType") || typeNodes.get(i).getKind().equals("VarArgsType"))
+                    if(ARRAY_TYPE.check(typeNodes.get(i)) || VAR_ARGS_TYPE.check(typeNodes.get(i)))
                     {
                         isArray = true;
                     }
@@ -203,14 +257,14 @@ public class JmmSymbolTableBuilder {
             isArray = false;
             JmmNode child = classDecl.getChild(i);
             String varType = "";
-            if(child.getKind().equals("VarDecl"))
+            if(VAR_DECL.check(child))
             {
                 String varName = child.get("name");
                 if(child.getChild(0).hasAttribute("value"))
                 {
                     varType = child.getChild(0).get("value");
                 }
-                else if(child.getChild(0).getKind().equals("ArrayType")) {
+                else if(ARRAY_TYPE.check(child.getChild(0))) {
                     isArray = true;
                     varType = child.getChild(0).getChild(0).get("value");
                 }
@@ -227,7 +281,7 @@ public class JmmSymbolTableBuilder {
         {
             if(varDecl.getChild(0).hasAttribute("value")){
                 varType = varDecl.getChild(0).get("value");}
-            else if(varDecl.getChild(0).getKind().equals("ArrayType"))
+            else if(ARRAY_TYPE.check(varDecl.getChild(0)))
             {
                 varType = varDecl.getChild(0).getChild(0).get("value");
                 isArray = true;
@@ -0,0 +1,148 @@
+package pt.up.fe.comp2024;
+
+import org.junit.Before;
+import org.junit.Test;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchCompilerTest {
+
+    private static final String GOOD = """
+            class Good {
+                public int f(int a) {
+                    return a + 1;
+                }
+
+                public static void main(String[] args) {
+                }
+            }
+            """;
+
+    private static final String BAD = """
+            class Bad {
+                public int f(int a) {
+                    return a + true;
+                }
+            }
+            """;
+
+    // Deep enough to overflow the stack of the compiler
+    private static final int DEPTH = 5000;
+
+    private File inputDir;
+    private File outputDir;
+
+    @Before
+    public void setUp() {
+        var directory = SpecsIo.getTempFolder("batch_compiler");
+        SpecsIo.deleteFolderContents(directory);
+
+        inputDir = new File(directory, "in");
+        outputDir = new File(directory, "out");
+    }
+
+    private static String getDeepCode() {
+        return "class Deep {\n public int f() {\n  return " + "(".repeat(DEPTH) + "1" + ")".repeat(DEPTH) + ";\n }\n}\n";
+    }
+
+    private File write(File directory, String path, String code) {
+        var file = new File(directory, path);
+        SpecsIo.write(file, code);
+        return file;
+    }
+
+    private Map<String, String> getConfig(File batchInput) {
+        Map<String, String> config = new HashMap<>();
+        config.put("batch", batchInput.getAbsolutePath());
+        config.put("outputDir", outputDir.getAbsolutePath());
+        config.put("threads", "2");
+        return config;
+    }
+
+    /**
+     * Compiles the units of the batch input, checking if the batch succeeds, and returns what it printed.
+     */
+    private static String compile(File batchInput, Map<String, String> config, boolean succeeds) {
+        var output = new ByteArrayOutputStream();
+        var out = System.out;
+        System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+        try {
+            var units = BatchCompiler.getUnits(batchInput);
+            assertEquals(succeeds, new BatchCompiler(config).compile(units));
+        } finally {
+            System.setOut(out);
+        }
+
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void assertLine(String output, String line) {
+        assertTrue(output, output.lines().anyMatch(line::equals));
+    }
+
+    @Test
+    public void failedUnitsDoNotStopBatch() {
+        var bad = write(inputDir, "Bad.jmm", BAD);
+        var deep = write(inputDir, "Deep.jmm", getDeepCode());
+        var good = write(inputDir, "Good.jmm", GOOD);
+
+        var output = compile(inputDir, getConfig(inputDir), false);
+
+        assertLine(output, "[FAIL] " + bad.getPath());
+        assertLine(output, "[FAIL] " + deep.getPath());
+        assertLine(output, "[OK]   " + good.getPath());
+        assertLine(output, "Compiled 3 units, 2 failed");
+    }
+
+    @Test
+    public void goodUnitsSucceed() {
+        var good = write(inputDir, "Good.jmm", GOOD);
+
+        var output = compile(inputDir, getConfig(inputDir), true);
+
+        assertLine(output, "[OK]   " + good.getPath());
+        assertLine(output, "Compiled 1 units, 0 failed");
+    }
+
+    @Test
+    public void outputsMirrorInputs() {
+        write(inputDir, "Good.jmm", GOOD);
+        write(inputDir, "sub/Good.jmm", GOOD);
+        write(inputDir, "Bad.jmm", BAD);
+
+        compile(inputDir, getConfig(inputDir), false);
+
+        for (var path : List.of("Good", "sub/Good")) {
+            assertTrue(path, new File(outputDir, path + ".ollir").isFile());
+            assertTrue(path, new File(outputDir, path + ".j").isFile());
+            assertTrue(path, new File(outputDir, path + ".class").isFile());
+        }
+        assertFalse(new File(outputDir, "Bad.ollir").exists());
+    }
+
+    @Test
+    public void duplicateOutputPathIsReported() {
+        var good = write(inputDir, "Good.jmm", GOOD);
+        // Not under the directory of the list, so its outputs are named after the file alone
+        var other = write(inputDir.getParentFile(), "other/Good.jmm", GOOD);
+        var list = write(inputDir, "units.txt", "Good.jmm\n" + other.getAbsolutePath() + "\n");
+
+        var output = compile(list, getConfig(list), false);
+
+        assertLine(output, "[OK]   " + good.getPath());
+        assertLine(output, "[FAIL] " + other.getPath());
+        assertTrue(output, output.contains("Outputs not written, another unit of the batch has the same output path"));
+        assertTrue(new File(outputDir, "Good.ollir").isFile());
+    }
+}
@@ -0,0 +1,111 @@
+package pt.up.fe.comp2024.analysis;
+
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.comp2024.analysis.passes.InvalidTypes;
+import pt.up.fe.comp2024.ast.Kind;
+import pt.up.fe.comp2024.ast.TypeUtils;
+import pt.up.fe.comp2024.symboltable.JmmSymbolTableBuilder;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FusedAnalysisTest {
+
+    private static final String MISTYPED = """
+            class Mistyped {
+                public int f(int a) {
+                    int b;
+                    b = a + c;
+                    return d;
+                }
+            }
+            """;
+
+    /**
+     * A pass that throws the first time it visits a variable reference.
+     */
+    private static class ThrowingPass extends AnalysisVisitor {
+
+        private int visits;
+
+        @Override
+        public void buildVisitor() {
+            addVisit(Kind.VAR_REF, this::visitVarRef);
+        }
+
+        private Void visitVarRef(JmmNode varRef, SymbolTable table) {
+            visits++;
+            throw new IllegalStateException("Cannot visit " + varRef.get("value"));
+        }
+    }
+
+    private static List<String> analyse(String code, boolean fused) {
+        Map<String, String> config = new HashMap<>();
+        config.put("fusedAnalysis", String.valueOf(fused));
+
+        return toStrings(TestUtils.analyse(code, config).getReports());
+    }
+
+    /**
+     * What the reports say, since reports are not comparable.
+     */
+    private static List<String> toStrings(List<Report> reports) {
+        return reports.stream()
+                .map(report -> report.getType() + " " + report.getStage() + "@" + report.getLine() + ":"
+                        + report.getColumn() + " " + report.getMessage())
+                .toList();
+    }
+
+    @Test
+    public void sameReportsOverCorpus() {
+        int withErrors = 0;
+        for (var file : SpecsIo.getFilesRecursive(new File("test"), "jmm")) {
+            var code = SpecsIo.read(file);
+            if (!TestUtils.parse(code).getReports().isEmpty()) {
+                continue;
+            }
+
+            var reports = analyse(code, false);
+            assertEquals(file.getPath(), reports, analyse(code, true));
+            if (!reports.isEmpty()) {
+                withErrors++;
+            }
+        }
+
+        assertTrue("Only " + withErrors + " inputs had semantic errors", withErrors > 10);
+    }
+
+    @Test
+    public void throwingPassDoesNotStopOthers() {
+        var root = TestUtils.parse(MISTYPED).getRootNode();
+        var table = JmmSymbolTableBuilder.build(root);
+        TypeUtils.annotateTypes(root, table);
+
+        var expected = toStrings(new InvalidTypes().analyze(root, table));
+        assertFalse(expected.isEmpty());
+
+        var throwingPass = new ThrowingPass();
+        var reports = new FusedAnalysis(List.of(throwingPass, new InvalidTypes())).analyze(root, table);
+
+        assertEquals(1, throwingPass.visits);
+        assertEquals(1, reports.get(0).size());
+        var error = reports.get(0).get(0);
+        assertEquals(ReportType.ERROR, error.getType());
+        assertTrue(error.getMessage(), error.getMessage().contains(ThrowingPass.class.getName()));
+        assertTrue(error.getException().orElseThrow() instanceof IllegalStateException);
+
+        assertEquals(expected, toStrings(reports.get(1)));
+    }
+}
@@ -0,0 +1,174 @@
+package pt.up.fe.comp2024.ast;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp.jmm.ast.JmmSerializer;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CompactAstTest {
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(JmmNode.class, new JmmSerializer())
+            .create();
+
+    private static final String CODE = """
+            class Mutated {
+                public int f(int a) {
+                    int b;
+                    b = 2 + 3;
+                    a = b * a;
+                    return a;
+                }
+            }
+            """;
+
+    private static JmmNode parse(String code, boolean compact) {
+        Map<String, String> config = new HashMap<>();
+        config.put("compactAst", String.valueOf(compact));
+
+        var parserResult = TestUtils.parse(code, config);
+        TestUtils.noErrors(parserResult);
+        return parserResult.getRootNode();
+    }
+
+    private static String toJson(JmmNode root) {
+        return GSON.toJson(root, JmmNode.class);
+    }
+
+    /**
+     * The first node of the given kind, in preorder.
+     */
+    private static JmmNode find(JmmNode root, Kind kind) {
+        return root.getDescendantsAndSelfStream().filter(kind::check).findFirst().orElseThrow();
+    }
+
+    @Test
+    public void sameTreesOverCorpus() {
+        int compared = 0;
+        for (var file : SpecsIo.getFilesRecursive(new File("test"), "jmm")) {
+            var code = SpecsIo.read(file);
+            Map<String, String> config = new HashMap<>();
+            if (!TestUtils.parse(code, config).getReports().isEmpty()) {
+                continue;
+            }
+
+            var tree = parse(code, false);
+            var compact = parse(code, true);
+            assertTrue(file.getPath(), compact instanceof CompactNode);
+            assertEquals(file.getPath(), tree.toTree(), compact.toTree());
+            assertEquals(file.getPath(), toJson(tree), toJson(compact));
+            compared++;
+        }
+
+        assertTrue("Only " + compared + " inputs were compared", compared > 50);
+    }
+
+    /**
+     * Changes a tree as constant folding does: replaces an expression by a new literal and moves nodes around.
+     */
+    private static void mutate(JmmNode root) {
+        var binaryExpr = find(root, Kind.BINARY_EXPR);
+        var literal = new JmmNodeImpl(Kind.INTEGER_LITERAL.toString());
+        literal.put("value", "5");
+        binaryExpr.getParent().setChild(literal, binaryExpr.getIndexOfSelf());
+
+        var method = find(root, Kind.METHOD_DECL);
+        var returnStmt = find(root, Kind.RETURN_STMT);
+        var statement = returnStmt.getParent().getChild(returnStmt.getIndexOfSelf() - 1);
+        method.removeChild(statement);
+        method.add(statement, 1);
+
+        var param = find(root, Kind.PARAM);
+        param.putObject("name", "c");
+    }
+
+    @Test
+    public void mutatorsMatchJmmNodeImpl() {
+        var tree = parse(CODE, false);
+        var compact = parse(CODE, true);
+
+        mutate(tree);
+        mutate(compact);
+
+        assertEquals(tree.toTree(), compact.toTree());
+        assertEquals(toJson(tree), toJson(compact));
+    }
+
+    @Test
+    public void setChildUpdatesParents() {
+        var root = parse(CODE, true);
+        var binaryExpr = find(root, Kind.BINARY_EXPR);
+        var parent = binaryExpr.getParent();
+        var index = binaryExpr.getIndexOfSelf();
+
+        var literal = new JmmNodeImpl(Kind.INTEGER_LITERAL.toString());
+        literal.put("value", "5");
+        parent.setChild(literal, index);
+
+        assertSame(literal, parent.getChild(index));
+        assertSame(parent, literal.getParent());
+        assertNull(binaryExpr.getParent());
+    }
+
+    @Test
+    public void removeChildShiftsSiblings() {
+        var root = parse(CODE, true);
+        var method = find(root, Kind.METHOD_DECL);
+        var numChildren = method.getNumChildren();
+        var first = method.getChild(0);
+        var second = method.getChild(1);
+
+        assertEquals(0, method.removeChild(first));
+        assertEquals(numChildren - 1, method.getNumChildren());
+        assertSame(second, method.getChild(0));
+        assertNull(first.getParent());
+    }
+
+    @Test
+    public void putObjectIsSeenByLaterReads() {
+        var root = parse(CODE, true);
+        var param = find(root, Kind.PARAM);
+
+        param.putObject("name", "c");
+        param.put("type", "int");
+
+        assertEquals("c", param.get("name"));
+        assertEquals("int", param.get("type"));
+        assertSame(param, find(root, Kind.PARAM));
+        assertEquals("c", find(root, Kind.PARAM).get("name"));
+    }
+
+    @Test
+    public void sameViewForEachNode() {
+        var root = parse(CODE, true);
+        var method = find(root, Kind.METHOD_DECL);
+
+        // The types of expressions are memoized by node identity, so each node must have a single view
+        var child = method.getChild(1);
+        assertSame(child, method.getChild(1));
+        assertSame(child, method.getChildren().get(1));
+        assertSame(method, child.getParent());
+
+        for (var node : root.getDescendants()) {
+            var parent = node.getParent();
+            assertSame(node, parent.getChild(node.getIndexOfSelf()));
+        }
+
+        // Also once the children of the parent were changed
+        method.add(new JmmNodeImpl(Kind.INTEGER_LITERAL.toString()), 0);
+        assertSame(child, method.getChild(2));
+    }
+}
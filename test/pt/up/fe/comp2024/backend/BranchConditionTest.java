@@ -0,0 +1,82 @@
+package pt.up.fe.comp2024.backend;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BranchConditionTest {
+
+    private static final String RESOURCES = "pt/up/fe/comp2024/backend/branches/";
+
+    private static JasminResult compile(String filename) {
+        var jasminResult = TestUtils.backend(SpecsIo.getResource(RESOURCES + filename));
+        TestUtils.noErrors(jasminResult.getReports());
+        return jasminResult;
+    }
+
+    /**
+     * The branches of the method, e.g. 'if_icmpge if_then_0', in the order they appear.
+     */
+    private static List<String> getBranches(String method) {
+        return Pattern.compile(CpUtils.IF_REGEX).matcher(method).results().map(result -> result.group()).toList();
+    }
+
+    @Test
+    public void not() {
+        var jasminResult = compile("Not.jmm");
+        var method = CpUtils.getJasminMethod(jasminResult, "test");
+
+        // The negation swaps the targets instead of computing the boolean
+        assertEquals(method, List.of("if_icmpge if_then_0"), getBranches(method));
+        assertFalse(method, method.contains("ixor"));
+
+        CpUtils.runJasmin(jasminResult, "0\n1");
+    }
+
+    @Test
+    public void nestedAnd() {
+        var jasminResult = compile("NestedAnd.jmm");
+        var method = CpUtils.getJasminMethod(jasminResult, "test");
+
+        var branches = getBranches(method);
+        assertEquals(method, 3, branches.size());
+        assertTrue(method, branches.stream().allMatch(branch -> branch.startsWith("if_icmp")));
+        assertFalse(method, method.contains("iand"));
+
+        CpUtils.runJasmin(jasminResult, "1\n0\n0");
+    }
+
+    @Test
+    public void zeroOnTheLeft() {
+        var jasminResult = compile("ZeroLeft.jmm");
+        var method = CpUtils.getJasminMethod(jasminResult, "test");
+
+        // '0 < x' is tested as 'x > 0', against zero
+        assertEquals(method, List.of("ifgt if_then_0"), getBranches(method));
+
+        CpUtils.runJasmin(jasminResult, "1\n0\n0");
+    }
+
+    @Test
+    public void shortCircuitCall() {
+        var jasminResult = compile("ShortCircuit.jmm");
+        var method = CpUtils.getJasminMethod(jasminResult, "test");
+
+        // The left side jumps over the call
+        var branches = getBranches(method);
+        assertEquals(method, 2, branches.size());
+        assertTrue(method, branches.get(0).startsWith("ifge"));
+        assertTrue(method, method.indexOf(branches.get(0)) < method.indexOf("invokevirtual ShortCircuit/count"));
+
+        CpUtils.runJasmin(jasminResult, "0\n0\n1\n1");
+    }
+}
@@ -0,0 +1,181 @@
+package pt.up.fe.comp2024.backend;
+
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.specs.util.SpecsIo;
+import pt.up.fe.specs.util.SpecsStrings;
+import pt.up.fe.specs.util.SpecsSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ClassFileGeneratorTest {
+
+    private static final String RESOURCES = "pt/up/fe/comp2024/backend/class_file/";
+
+    private static Map<String, String> getConfig(boolean optimize) {
+        Map<String, String> config = new HashMap<>();
+        config.put("optimize", String.valueOf(optimize));
+        return config;
+    }
+
+    /**
+     * Writes the class file of each of the given units to the directory.
+     */
+    private static void writeClassFiles(File directory, boolean optimize, String... filenames) {
+        for (var filename : filenames) {
+            var ollirResult = TestUtils.optimize(SpecsIo.getResource(RESOURCES + filename), getConfig(optimize));
+            TestUtils.noErrors(ollirResult);
+
+            var classFile = new File(directory, ollirResult.getOllirClass().getClassName() + ".class");
+            try {
+                Files.write(classFile.toPath(), new ClassFileGenerator(ollirResult).build());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static String run(File directory, String className) {
+        var classpath = directory.getAbsolutePath() + File.pathSeparator + TestUtils.getLibsClasspath();
+        var output = SpecsSystem.runProcess(List.of("java", "-cp", classpath, className), SpecsIo.getWorkingDir(),
+                true, false);
+
+        assertEquals("Error while running " + className + ": " + output.getOutput(), 0, output.getReturnValue());
+        return SpecsStrings.normalizeFileContents(output.getStdOut(), true);
+    }
+
+    private static void assertInheritance(boolean optimize) {
+        var directory = SpecsIo.getTempFolder("class_file");
+        SpecsIo.deleteFolderContents(directory);
+
+        writeClassFiles(directory, optimize, "InheritParent.jmm", "InheritChild.jmm");
+
+        // A variable of the superclass holds both classes where the branches meet
+        assertEquals("2\n1", run(directory, "InheritChild"));
+    }
+
+    @Test
+    public void inheritance() {
+        assertInheritance(false);
+    }
+
+    @Test
+    public void inheritanceOptimized() {
+        assertInheritance(true);
+    }
+
+    /**
+     * The number of instructions of the method in the Jasmin code, without labels and directives.
+     */
+    private static int countJasminInstructions(String jasminCode, String methodName) {
+        var lines = jasminCode.lines().map(String::strip).toList();
+
+        int start = 0;
+        while (!(lines.get(start).startsWith(".method ") && lines.get(start).contains(" " + methodName + "("))) {
+            start++;
+        }
+
+        int count = 0;
+        for (int i = start + 1; !lines.get(i).equals(".end method"); i++) {
+            var line = lines.get(i);
+            if (!line.isEmpty() && !line.startsWith(".") && !line.endsWith(":")) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * The number of instructions of the method in the class file.
+     */
+    private static int countClassInstructions(byte[] classFile, String methodName) {
+        var count = new int[1];
+        var counter = new MethodVisitor(Opcodes.ASM9) {
+
+            @Override
+            public void visitInsn(int opcode) {
+                count[0]++;
+            }
+
+            @Override
+            public void visitIntInsn(int opcode, int operand) {
+                count[0]++;
+            }
+
+            @Override
+            public void visitVarInsn(int opcode, int varIndex) {
+                count[0]++;
+            }
+
+            @Override
+            public void visitTypeInsn(int opcode, String type) {
+                count[0]++;
+            }
+
+            @Override
+            public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+                count[0]++;
+            }
+
+            @Override
+            public void visitMethodInsn(int opcode, String owner, String name, String descriptor,
+                                        boolean isInterface) {
+                count[0]++;
+            }
+
+            @Override
+            public void visitJumpInsn(int opcode, Label label) {
+                count[0]++;
+            }
+
+            @Override
+            public void visitLdcInsn(Object value) {
+                count[0]++;
+            }
+
+            @Override
+            public void visitIincInsn(int varIndex, int increment) {
+                count[0]++;
+            }
+        };
+
+        new ClassReader(classFile).accept(new ClassVisitor(Opcodes.ASM9) {
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                             String[] exceptions) {
+                return name.equals(methodName) ? counter : null;
+            }
+        }, 0);
+
+        return count[0];
+    }
+
+    @Test
+    public void peepholeRules() {
+        var code = SpecsIo.getResource(RESOURCES + "InheritChild.jmm");
+        var generated = TestUtils.optimize(code, getConfig(false));
+        var optimized = TestUtils.optimize(code, getConfig(true));
+        TestUtils.noErrors(optimized);
+
+        // The class file has the instructions of the Jasmin code, after the same rewrites
+        var jasminCount = countJasminInstructions(new JasminGenerator(optimized).build(), "main");
+        assertEquals(jasminCount, countClassInstructions(new ClassFileGenerator(optimized).build(), "main"));
+        assertTrue(jasminCount < countClassInstructions(new ClassFileGenerator(generated).build(), "main"));
+    }
+}
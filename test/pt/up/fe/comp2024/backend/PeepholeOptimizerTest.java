@@ -0,0 +1,123 @@
+package pt.up.fe.comp2024.backend;
+
+import org.junit.Test;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class PeepholeOptimizerTest {
+
+    private static final String RESOURCES = "pt/up/fe/comp2024/backend/peephole/";
+
+    /**
+     * The body of the given file, one instruction or label per line, after the peephole optimizations.
+     */
+    private static List<String> optimize(String filename) {
+        var body = new MethodBody();
+        SpecsIo.getResource(RESOURCES + filename).lines().forEach(line -> parse(line, body));
+
+        new PeepholeOptimizer(body.getInstructions()).optimize();
+
+        var code = new StringWriter();
+        body.emit(new JasminWriter(code));
+        return code.toString().lines().map(String::strip).toList();
+    }
+
+    /**
+     * Emits a line of the Jasmin code of a fixture, with the kinds of operands the generator emits.
+     */
+    private static void parse(String line, InstructionEmitter out) {
+        if (line.endsWith(":")) {
+            out.label(line.substring(0, line.length() - 1));
+            return;
+        }
+
+        var parts = line.split(" ", 2);
+        var name = parts[0];
+        var argument = parts.length > 1 ? parts[1] : "";
+
+        // Short forms of loads and stores, e.g. 'iload_1'
+        var underscore = name.indexOf('_');
+        if (underscore > 0 && !name.startsWith("iconst")) {
+            out.varInsn(Opcode.valueOf(name.substring(0, underscore).toUpperCase()),
+                    Integer.parseInt(name.substring(underscore + 1)));
+            return;
+        }
+
+        var opcode = Opcode.valueOf(name.toUpperCase());
+        if (opcode.isLoad() || opcode.isStore()) {
+            out.varInsn(opcode, Integer.parseInt(argument));
+        } else if (opcode.isJump()) {
+            out.jumpInsn(opcode, argument);
+        } else if (opcode == Opcode.BIPUSH || opcode == Opcode.SIPUSH) {
+            out.intInsn(opcode, Integer.parseInt(argument));
+        } else if (opcode == Opcode.LDC) {
+            out.ldc(Integer.parseInt(argument));
+        } else if (opcode == Opcode.INVOKESTATIC || opcode == Opcode.INVOKEVIRTUAL) {
+            var method = argument.substring(0, argument.indexOf('('));
+            var slash = method.lastIndexOf('/');
+            out.methodInsn(opcode, method.substring(0, slash), method.substring(slash + 1),
+                    argument.substring(method.length()));
+        } else {
+            out.insn(opcode);
+        }
+    }
+
+    @Test
+    public void storeLoad() {
+        assertEquals(List.of("iload_1", "iconst_2", "imul", "ireturn"), optimize("StoreLoad.j"));
+    }
+
+    @Test
+    public void dupStoreLoad() {
+        // Register 2 is read again, so the store stays
+        assertEquals(List.of("iload_1", "dup", "istore_2", "invokestatic io/println(I)V", "iload_2", "ireturn"),
+                optimize("DupStoreLoad.j"));
+    }
+
+    @Test
+    public void negatedBranch() {
+        assertEquals(List.of("iload_1", "ifne else", "iconst_1", "ireturn", "else:", "iconst_0", "ireturn"),
+                optimize("NegatedBranch.j"));
+    }
+
+    @Test
+    public void branchOverGoto() {
+        assertEquals(List.of("iload_1", "ifne else", "iconst_1", "ireturn", "else:", "iconst_0", "ireturn"),
+                optimize("BranchOverGoto.j"));
+    }
+
+    @Test
+    public void jumpThreading() {
+        // The goto is then unreachable
+        assertEquals(List.of("iload_1", "ifeq second", "iload_2", "ireturn", "second:", "iconst_0", "ireturn"),
+                optimize("JumpThreading.j"));
+    }
+
+    @Test
+    public void unreachable() {
+        assertEquals(List.of("iload_1", "ifeq zero", "iconst_1", "ireturn", "zero:", "iconst_0", "ireturn"),
+                optimize("Unreachable.j"));
+    }
+
+    @Test
+    public void deadDupStoreBeforeReturn() {
+        assertEquals(List.of("iload 4", "iconst_2", "iadd", "ireturn"), optimize("DeadDupStoreReturn.j"));
+    }
+
+    @Test
+    public void deadDupStoreOverwritten() {
+        assertEquals(List.of("aload_0", "iload_2", "iaload", "invokestatic io/println(I)V", "iconst_0", "istore_1",
+                "iload_2", "iload_1", "iadd", "ireturn"), optimize("DeadDupStoreOverwritten.j"));
+    }
+
+    @Test
+    public void dupStoreReadAfterBranch() {
+        // Register 1 is read when the branch is not taken
+        assertEquals(List.of("iload_2", "dup", "istore_1", "ifeq zero", "iload_1", "ireturn", "zero:", "iconst_0",
+                "ireturn"), optimize("DupStoreRead.j"));
+    }
+}
@@ -0,0 +1,76 @@
+package pt.up.fe.comp2024.backend;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.specs.util.SpecsIo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StackSimulatorTest {
+
+    private static int getMaxStack(MethodBody body) {
+        return new StackSimulator(body.getInstructions()).getMaxStack();
+    }
+
+    @Test
+    public void callWithReceiver() {
+        var body = new MethodBody();
+        body.varInsn(Opcode.ALOAD, 0);
+        body.varInsn(Opcode.ILOAD, 1);
+        body.varInsn(Opcode.ALOAD, 2);
+        body.varInsn(Opcode.ILOAD, 3);
+        body.methodInsn(Opcode.INVOKEVIRTUAL, "Calls", "f", "(I[ILjava/lang/String;)I");
+        body.insn(Opcode.IRETURN);
+
+        // The receiver and the three arguments, replaced by the result
+        assertEquals(4, getMaxStack(body));
+    }
+
+    @Test
+    public void comparisonMerge() {
+        var body = new MethodBody();
+        body.varInsn(Opcode.ALOAD, 0);
+        body.varInsn(Opcode.ILOAD, 1);
+        body.varInsn(Opcode.ILOAD, 2);
+        body.jumpInsn(Opcode.IF_ICMPLT, "cmp_true_0");
+        body.insn(Opcode.ICONST_0);
+        body.jumpInsn(Opcode.GOTO, "cmp_end_0");
+        body.label("cmp_true_0");
+        body.insn(Opcode.ICONST_1);
+        body.label("cmp_end_0");
+        body.methodInsn(Opcode.INVOKEVIRTUAL, "Calls", "g", "(Z)V");
+        body.insn(Opcode.RETURN);
+
+        // Both paths reach 'cmp_end_0' with the receiver and the boolean
+        assertEquals(3, getMaxStack(body));
+    }
+
+    @Test
+    public void inconsistentDepth() {
+        var body = new MethodBody();
+        body.varInsn(Opcode.ILOAD, 1);
+        body.jumpInsn(Opcode.IFEQ, "end");
+        body.insn(Opcode.ICONST_0);
+        body.label("end");
+        body.insn(Opcode.RETURN);
+
+        try {
+            getMaxStack(body);
+            fail("Expected the depths at 'end' to differ");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("is both"));
+        }
+    }
+
+    @Test
+    public void generatedLimit() {
+        var jasminResult = TestUtils.backend(SpecsIo.getResource("pt/up/fe/comp2024/backend/branches/Not.jmm"));
+        TestUtils.noErrors(jasminResult.getReports());
+
+        // The two operands of the comparison, and no more
+        CpUtils.matches(CpUtils.getJasminMethod(jasminResult, "test"), "\\.limit stack 2\\b");
+    }
+}
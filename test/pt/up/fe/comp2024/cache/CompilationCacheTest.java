@@ -0,0 +1,151 @@
+package pt.up.fe.comp2024.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp2024.Launcher;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompilationCacheTest {
+
+    private static final String RESOURCE = "pt/up/fe/comp2024/cache/CacheUnit.jmm";
+
+    private File unitFile;
+    private File cacheDir;
+    private String code;
+
+    @Before
+    public void setUp() {
+        var directory = SpecsIo.getTempFolder("compilation_cache");
+        SpecsIo.deleteFolderContents(directory);
+
+        code = SpecsIo.getResource(RESOURCE);
+        unitFile = new File(directory, "CacheUnit.jmm");
+        SpecsIo.write(unitFile, code);
+        cacheDir = new File(directory, "cache");
+    }
+
+    private static Map<String, String> getConfig(boolean optimize, int registerAllocation) {
+        Map<String, String> config = new HashMap<>();
+        config.put("optimize", String.valueOf(optimize));
+        config.put("registerAllocation", String.valueOf(registerAllocation));
+        return config;
+    }
+
+    /**
+     * Stores the unit as compiled with the given options, with its trees as analysed.
+     */
+    private void store(CompilationCache cache, Map<String, String> config) {
+        var semanticsResult = TestUtils.analyse(code);
+        TestUtils.noErrors(semanticsResult);
+
+        var tree = CompilationCache.serialize(semanticsResult.getRootNode());
+        cache.store(unitFile, code, config, tree, tree, semanticsResult.getSymbolTable(), "ollir code");
+    }
+
+    /**
+     * Runs the launcher over the unit with the cache and metrics, returning what it printed.
+     */
+    private String launch(File metricsFile) {
+        var output = new ByteArrayOutputStream();
+        var out = System.out;
+        System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+        try {
+            Launcher.main(new String[]{"-i=" + unitFile.getAbsolutePath(), "-c=" + cacheDir.getAbsolutePath(),
+                    "-m=" + metricsFile.getAbsolutePath()});
+        } finally {
+            System.setOut(out);
+        }
+
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void hitPrintsSameOutput() {
+        var metricsFile = new File(cacheDir.getParentFile(), "metrics.json");
+
+        var compiled = launch(metricsFile);
+        assertTrue(SpecsIo.read(metricsFile).contains("\"parse\""));
+
+        // Only the lookup runs the second time, and the metrics are still written
+        var cached = launch(metricsFile);
+        assertEquals(compiled, cached);
+        var metrics = SpecsIo.read(metricsFile);
+        assertTrue(metrics, metrics.contains("\"cache\""));
+        assertFalse(metrics, metrics.contains("\"parse\""));
+    }
+
+    @Test
+    public void optionsChangeMisses() {
+        var cache = new CompilationCache(cacheDir);
+        store(cache, getConfig(false, -1));
+
+        var entry = cache.lookup(unitFile, code, getConfig(false, -1));
+        assertTrue(entry.isPresent());
+        assertEquals("ollir code", entry.get().getOllirCode());
+
+        assertFalse(cache.lookup(unitFile, code, getConfig(true, -1)).isPresent());
+        assertFalse(cache.lookup(unitFile, code, getConfig(false, 0)).isPresent());
+    }
+
+    @Test
+    public void codeChangeMisses() {
+        var cache = new CompilationCache(cacheDir);
+        store(cache, getConfig(false, -1));
+
+        assertFalse(cache.lookup(unitFile, code + "\n", getConfig(false, -1)).isPresent());
+    }
+
+    @Test
+    public void importedSourceInvalidates() {
+        var cache = new CompilationCache(cacheDir);
+        var config = getConfig(false, -1);
+        store(cache, config);
+        assertTrue(cache.lookup(unitFile, code, config).isPresent());
+
+        // The imported class gets a source next to the unit
+        var helper = new File(unitFile.getParentFile(), "CacheHelper.jmm");
+        SpecsIo.write(helper, "class CacheHelper {\n}\n");
+        assertFalse(cache.lookup(unitFile, code, config).isPresent());
+
+        store(cache, config);
+        assertTrue(cache.lookup(unitFile, code, config).isPresent());
+
+        // And then the source changes
+        SpecsIo.write(helper, "class CacheHelper {\n    int value;\n}\n");
+        assertFalse(cache.lookup(unitFile, code, config).isPresent());
+    }
+
+    @Test
+    public void corruptedEntryMisses() {
+        var cache = new CompilationCache(cacheDir);
+        var config = getConfig(false, -1);
+        store(cache, config);
+
+        var entries = cacheDir.listFiles((dir, name) -> name.endsWith(".json"));
+        assertEquals(1, entries.length);
+        var contents = SpecsIo.read(entries[0]);
+
+        // Cut short, as by a full disk
+        SpecsIo.write(entries[0], contents.substring(0, contents.length() / 2));
+        assertFalse(cache.lookup(unitFile, code, config).isPresent());
+
+        SpecsIo.write(entries[0], "not an entry");
+        assertFalse(cache.lookup(unitFile, code, config).isPresent());
+
+        // Compiling the unit again replaces it
+        store(cache, config);
+        assertTrue(cache.lookup(unitFile, code, config).isPresent());
+    }
+}
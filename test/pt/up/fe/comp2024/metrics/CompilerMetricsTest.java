@@ -0,0 +1,156 @@
+package pt.up.fe.comp2024.metrics;
+
+import com.google.gson.JsonObject;
+import org.junit.Test;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.JmmCompiler;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompilerMetricsTest {
+
+    private static final String CODE = """
+            class Small {
+                public int f(int a) {
+                    int b;
+                    b = 2 + 3;
+                    return b;
+                }
+            }
+            """;
+
+    /**
+     * The options of a compilation of the program, with the given options besides '-i'.
+     */
+    private static Map<String, String> parseArgs(String... options) {
+        var inputFile = new File(SpecsIo.getTempFolder("compiler_metrics"), "Small.jmm");
+        SpecsIo.write(inputFile, CODE);
+
+        var args = new ArrayList<String>();
+        args.add("-i=" + inputFile.getPath());
+        args.addAll(List.of(options));
+        return CompilerConfig.parseArgs(args.toArray(String[]::new));
+    }
+
+    private static CompilerMetrics enabled() {
+        return CompilerMetrics.create(parseArgs("-m"));
+    }
+
+    private static List<JsonObject> getStages(CompilerMetrics metrics) {
+        var stages = new ArrayList<JsonObject>();
+        metrics.toJson().getAsJsonArray("stages").forEach(stage -> stages.add(stage.getAsJsonObject()));
+        return stages;
+    }
+
+    private static List<String> getNames(List<JsonObject> stages) {
+        return stages.stream().map(stage -> stage.get("name").getAsString()).toList();
+    }
+
+    private static JsonObject getStage(List<JsonObject> stages, String name) {
+        return stages.stream().filter(stage -> stage.get("name").getAsString().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    public void measureRecordsStages() {
+        var metrics = enabled();
+        assertTrue(metrics.isEnabled());
+
+        assertEquals("result", metrics.measure("first", () -> "result"));
+        metrics.measure("second", () -> {
+        });
+        metrics.count("second", "items", 3);
+        metrics.count("third", "items", 4);
+
+        var stages = getStages(metrics);
+        assertEquals(List.of("first", "second", "third"), getNames(stages));
+
+        var second = getStage(stages, "second");
+        assertTrue(second.get("wallNanos").getAsLong() >= 0);
+        assertTrue(second.has("cpuNanos"));
+        assertTrue(second.has("allocatedBytes"));
+        assertEquals(3, second.getAsJsonObject("counters").get("items").getAsLong());
+
+        // Counted without being measured
+        assertEquals(4, getStage(stages, "third").getAsJsonObject("counters").get("items").getAsLong());
+    }
+
+    @Test
+    public void measureRecordsFailedStage() {
+        var metrics = enabled();
+
+        try {
+            metrics.measure("failed", () -> {
+                throw new IllegalStateException("failure");
+            });
+        } catch (IllegalStateException e) {
+            assertEquals(List.of("failed"), getNames(getStages(metrics)));
+            return;
+        }
+
+        throw new AssertionError("Exception of the stage was not thrown");
+    }
+
+    @Test
+    public void disabledRecordsNothing() {
+        var metrics = CompilerMetrics.disabled();
+        assertFalse(metrics.isEnabled());
+
+        assertEquals("result", metrics.measure("first", () -> "result"));
+        metrics.count("first", "items", 3);
+
+        assertTrue(getStages(metrics).isEmpty());
+    }
+
+    @Test
+    public void compilationStages() {
+        var config = parseArgs("-m", "-o");
+        var result = new JmmCompiler().compile(CODE, config);
+        assertFalse(result.getReports().toString(), result.hasErrors());
+
+        var stages = getStages(result.getMetrics());
+        var names = getNames(stages);
+        for (var name : List.of("parse", "analysis", "analysis/symbolTable", "analysis/types",
+                "analysis/UndeclaredVariable", "analysis/InvalidDuplicates", "analysis/InvalidOperations",
+                "analysis/InvalidTypes", "optimization", "ollir", "ollirOptimization", "jasmin")) {
+            assertTrue(name + " in " + names, names.contains(name));
+        }
+
+        // The passes run in parallel, the stages of the pipeline are listed in order
+        var pipeline = names.stream().filter(name -> !name.contains("/")).toList();
+        assertEquals(List.of("parse", "analysis", "optimization", "ollir", "ollirOptimization", "jasmin"), pipeline);
+
+        // Folding '2 + 3' replaces three nodes by one
+        assertEquals(14, getStage(stages, "parse").getAsJsonObject("counters").get("astNodes").getAsLong());
+        var optimization = getStage(stages, "optimization").getAsJsonObject("counters");
+        assertEquals(12, optimization.get("astNodes").getAsLong());
+        assertTrue(optimization.get("rewrites").getAsLong() > 0);
+    }
+
+    @Test
+    public void metricsFile() {
+        var config = parseArgs();
+        assertFalse(CompilerConfig.getMetrics(config));
+        assertEquals(Optional.empty(), CompilerConfig.getMetricsFile(config));
+
+        config = parseArgs("-m");
+        assertTrue(CompilerConfig.getMetrics(config));
+        assertEquals(Optional.empty(), CompilerConfig.getMetricsFile(config));
+
+        config = parseArgs("-m=metrics.json");
+        assertTrue(CompilerConfig.getMetrics(config));
+        assertEquals(Optional.of(new File("metrics.json")), CompilerConfig.getMetricsFile(config));
+
+        config = parseArgs("-m=false");
+        assertFalse(CompilerConfig.getMetrics(config));
+        assertEquals(Optional.empty(), CompilerConfig.getMetricsFile(config));
+    }
+}
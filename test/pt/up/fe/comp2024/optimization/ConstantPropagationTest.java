@@ -0,0 +1,132 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static pt.up.fe.comp2024.ast.Kind.*;
+
+public class ConstantPropagationTest {
+
+    private static final String RESOURCES = "pt/up/fe/comp2024/optimization/const_prop/";
+
+    private static Map<String, String> getConfig() {
+        Map<String, String> config = new HashMap<>();
+        config.put("optimize", "true");
+        return config;
+    }
+
+    /**
+     * The AST of the given file after constant propagation.
+     */
+    private static JmmNode getOptimizedAst(String filename) {
+        var semanticsResult = TestUtils.analyse(SpecsIo.getResource(RESOURCES + filename), getConfig());
+        TestUtils.noErrors(semanticsResult);
+
+        return new JmmOptimizationImpl().optimize(semanticsResult).getRootNode();
+    }
+
+    private static void assertOutput(String filename, String expected) {
+        var jasminResult = TestUtils.backend(SpecsIo.getResource(RESOURCES + filename), getConfig());
+        TestUtils.noErrors(jasminResult);
+        CpUtils.runJasmin(jasminResult, expected);
+    }
+
+    private static JmmNode getMethod(JmmNode root, String methodName) {
+        return root.getDescendants(METHOD_DECL).stream()
+                .filter(method -> method.get("methodName").equals(methodName))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /**
+     * The value assigned to the given variable by each assignment to it in the method.
+     */
+    private static List<JmmNode> getAssigned(JmmNode method, String name) {
+        return method.getDescendants(ASSIGN_STMT).stream()
+                .filter(assign -> assign.get("value").equals(name))
+                .map(assign -> assign.getJmmChild(0))
+                .toList();
+    }
+
+    private static JmmNode getReturned(JmmNode method) {
+        return method.getDescendants(RETURN_STMT).get(0).getJmmChild(0);
+    }
+
+    private static void assertLiteral(String expected, JmmNode node) {
+        assertTrue("Expected a literal, got " + node, INTEGER_LITERAL.check(node) || BOOLEAN_LITERAL.check(node));
+        assertEquals(expected, node.get("value"));
+    }
+
+    @Test
+    public void loopCarriedConstant() {
+        var same = getMethod(getOptimizedAst("PropLoopCarried.jmm"), "same");
+
+        // 'a' is 3 when the loop is entered and after every iteration
+        assertLiteral("6", getAssigned(same, "b").get(1));
+        var returned = getReturned(same);
+        assertTrue(BINARY_EXPR.check(returned));
+        assertLiteral("3", returned.getJmmChild(0));
+        // 'b' is 0 if the loop is not entered and 6 otherwise
+        assertTrue(VAR_REF.check(returned.getJmmChild(1)));
+    }
+
+    @Test
+    public void loopCarriedChange() {
+        var counter = getMethod(getOptimizedAst("PropLoopCarried.jmm"), "counter");
+
+        // 'c' changes in each iteration, so it is constant only before the loop
+        assertLiteral("0", getAssigned(counter, "c").get(0));
+        assertTrue(BINARY_EXPR.check(getAssigned(counter, "c").get(1)));
+        assertTrue(VAR_REF.check(getReturned(counter)));
+    }
+
+    @Test
+    public void loopCarriedOutput() {
+        assertOutput("PropLoopCarried.jmm", "9\n10");
+    }
+
+    @Test
+    public void divisionByZeroNotFolded() {
+        var divide = getMethod(getOptimizedAst("PropDivisionByZero.jmm"), "divide");
+
+        var assigned = getAssigned(divide, "x");
+        assertLiteral("3", assigned.get(0));
+
+        // Must still throw at run time
+        var division = assigned.get(1);
+        assertTrue(BINARY_EXPR.check(division));
+        assertEquals("/", division.get("op"));
+        assertLiteral("0", division.getJmmChild(1));
+
+        assertTrue(VAR_REF.check(getReturned(divide)));
+    }
+
+    @Test
+    public void divisionByZeroOutput() {
+        assertOutput("PropDivisionByZero.jmm", "3");
+    }
+
+    @Test
+    public void branchesNeverExecuted() {
+        var dead = getMethod(getOptimizedAst("PropDeadBranches.jmm"), "dead");
+
+        // The assignments in the branches that are never taken do not reach the return
+        assertFalse(dead.getDescendants().stream().anyMatch(node -> IF_STMT.check(node) || WHILE_STMT.check(node)));
+        assertLiteral("1", getReturned(dead));
+    }
+
+    @Test
+    public void branchesNeverExecutedOutput() {
+        assertOutput("PropDeadBranches.jmm", "1");
+    }
+}
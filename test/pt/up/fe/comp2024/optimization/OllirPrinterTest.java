@@ -0,0 +1,47 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class OllirPrinterTest {
+
+    private static final String RESOURCE = "pt/up/fe/comp2024/optimization/const_prop/PropLoopCarried.jmm";
+
+    private static Map<String, String> getConfig(boolean optimize) {
+        Map<String, String> config = new HashMap<>();
+        config.put("optimize", String.valueOf(optimize));
+        return config;
+    }
+
+    @Test
+    public void optimizedCode() {
+        var ollirResult = TestUtils.optimize(SpecsIo.getResource(RESOURCE), getConfig(true));
+        TestUtils.noErrors(ollirResult);
+
+        // The passes removed instructions of the generated code
+        var code = OllirPrinter.getOllirCode(ollirResult);
+        assertNotEquals(ollirResult.getOllirCode(), code);
+
+        // Parsed again, it is the same class
+        var reparsed = new OllirResult(code, ollirResult.getConfig());
+        assertEquals(code, OllirPrinter.print(reparsed.getOllirClass()));
+        CpUtils.runJasmin(TestUtils.backend(reparsed), "9\n10");
+    }
+
+    @Test
+    public void generatedCode() {
+        var ollirResult = TestUtils.optimize(SpecsIo.getResource(RESOURCE), getConfig(false));
+        TestUtils.noErrors(ollirResult);
+
+        assertEquals(ollirResult.getOllirCode(), OllirPrinter.getOllirCode(ollirResult));
+    }
+}
@@ -0,0 +1,74 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.junit.Test;
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RegisterAllocationTest {
+
+    private static final String RESOURCES = "pt/up/fe/comp2024/optimization/reg_alloc/";
+    private static final Pattern LIMIT_LOCALS = Pattern.compile("\\.limit\\s+locals\\s+(\\d+)");
+
+    private static Map<String, String> getConfig(int registers) {
+        Map<String, String> config = new HashMap<>();
+        config.put("registerAllocation", String.valueOf(registers));
+        return config;
+    }
+
+    private static JasminResult getJasminResult(String filename, int registers) {
+        var jasminResult = TestUtils.backend(SpecsIo.getResource(RESOURCES + filename), getConfig(registers));
+        TestUtils.noErrors(jasminResult);
+        return jasminResult;
+    }
+
+    private static int getLimitLocals(JasminResult jasminResult, String methodName) {
+        var matcher = LIMIT_LOCALS.matcher(CpUtils.getJasminMethod(jasminResult, methodName));
+        assertTrue("Expected a .limit locals directive in '" + methodName + "'", matcher.find());
+        return Integer.parseInt(matcher.group(1));
+    }
+
+    /**
+     * 'this' is never read, so its register is reused. Three variables live at once with the parameter need four
+     * registers, three that never are live at once share one.
+     */
+    @Test
+    public void minimumRegisters() {
+        var jasminResult = getJasminResult("RegLifetimes.jmm", 0);
+
+        assertEquals(4, getLimitLocals(jasminResult, "overlapping"));
+        assertEquals(2, getLimitLocals(jasminResult, "disjoint"));
+        CpUtils.runJasmin(jasminResult, "10\n2\n3\n4\n1");
+    }
+
+    @Test
+    public void enoughRegisters() {
+        var jasminResult = getJasminResult("RegLifetimes.jmm", 4);
+
+        assertEquals(4, getLimitLocals(jasminResult, "overlapping"));
+        CpUtils.runJasmin(jasminResult, "10\n2\n3\n4\n1");
+    }
+
+    @Test
+    public void tooFewRegisters() {
+        var ollirResult = TestUtils.optimize(SpecsIo.getResource(RESOURCES + "RegLifetimes.jmm"), getConfig(3));
+
+        var errors = ollirResult.getReports().stream()
+                .filter(report -> report.getType() == ReportType.ERROR)
+                .toList();
+
+        // Only the method that does not fit is reported
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).getMessage(),
+                errors.get(0).getMessage().contains("'overlapping' needs at least 4 registers"));
+    }
+}
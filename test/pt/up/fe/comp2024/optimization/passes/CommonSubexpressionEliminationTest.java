@@ -0,0 +1,47 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static pt.up.fe.comp2024.optimization.passes.PassTestUtils.*;
+
+public class CommonSubexpressionEliminationTest {
+
+    @Test
+    public void commutedOperands() {
+        var code = getCode(apply(new CommonSubexpressionElimination(), "CommonSubexpressions.ollir"), "commuted");
+
+        assertTrue(code.toString(), code.contains("y.i32 :=.i32 x.i32"));
+    }
+
+    @Test
+    public void swappedOperandsNotCommutative() {
+        var code = getCode(apply(new CommonSubexpressionElimination(), "CommonSubexpressions.ollir"), "swapped");
+
+        assertTrue(code.toString(), code.contains("y.i32 :=.i32 b.i32 -.i32 a.i32"));
+    }
+
+    @Test
+    public void operandRedefined() {
+        var code = getCode(apply(new CommonSubexpressionElimination(), "CommonSubexpressions.ollir"), "redefined");
+
+        assertTrue(code.toString(), code.contains("y.i32 :=.i32 a.i32 +.i32 b.i32"));
+    }
+
+    @Test
+    public void otherBasicBlock() {
+        var code = getCode(apply(new CommonSubexpressionElimination(), "CommonSubexpressions.ollir"), "otherBlock");
+
+        // 'x' may not hold the product when the branch is taken
+        assertTrue(code.toString(), code.contains("y.i32 :=.i32 a.i32 *.i32 b.i32"));
+    }
+
+    @Test
+    public void output() {
+        var ollirResult = apply(new CommonSubexpressionElimination(), "CommonSubexpressions.ollir");
+
+        assertEquals(1, getCode(ollirResult, "commuted").stream().filter(line -> line.contains("+.i32")).count());
+        assertOutput(ollirResult, "49\n-1\n35\n24");
+    }
+}
@@ -0,0 +1,38 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static pt.up.fe.comp2024.optimization.passes.PassTestUtils.*;
+
+public class CopyPropagationTest {
+
+    @Test
+    public void copyReplaced() {
+        var code = getCode(apply(new CopyPropagation(), "CopyPropagation.ollir"), "copied");
+
+        assertTrue(code.toString(), code.contains("y.i32 :=.i32 a.i32 +.i32 1.i32"));
+    }
+
+    @Test
+    public void originalReassigned() {
+        var code = getCode(apply(new CopyPropagation(), "CopyPropagation.ollir"), "originalReassigned");
+
+        assertTrue(code.toString(), code.contains("y.i32 :=.i32 x.i32 +.i32 a.i32"));
+    }
+
+    @Test
+    public void copyForgottenAtLabels() {
+        var code = getCode(apply(new CopyPropagation(), "CopyPropagation.ollir"), "loop");
+
+        // 'x' is only a copy of 'a' in the first iteration
+        assertTrue(code.toString(), code.contains("x.i32 :=.i32 x.i32 +.i32 1.i32"));
+        assertEquals("ret.i32 x.i32", code.get(code.size() - 1));
+    }
+
+    @Test
+    public void output() {
+        assertOutput(apply(new CopyPropagation(), "CopyPropagation.ollir"), "4\n8\n7");
+    }
+}
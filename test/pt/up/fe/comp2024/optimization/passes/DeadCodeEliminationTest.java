@@ -0,0 +1,41 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static pt.up.fe.comp2024.optimization.passes.PassTestUtils.*;
+
+public class DeadCodeEliminationTest {
+
+    @Test
+    public void deadStoreAndSelfCopy() {
+        var code = getCode(apply(new DeadCodeElimination(), "DeadCode.ollir"), "deadStore");
+
+        assertEquals(List.of("y.i32 :=.i32 a.i32 +.i32 1.i32", "ret.i32 y.i32"), code);
+    }
+
+    @Test
+    public void sideEffectsKept() {
+        var code = getCode(apply(new DeadCodeElimination(), "DeadCode.ollir"), "sideEffects");
+
+        // Neither the call nor the division, which may throw, can be dropped
+        assertTrue(code.toString(), code.stream().anyMatch(line -> line.contains("invokevirtual")));
+        assertTrue(code.toString(), code.stream().anyMatch(line -> line.contains("/.i32")));
+    }
+
+    @Test
+    public void unreachableCode() {
+        var code = getCode(apply(new DeadCodeElimination(), "DeadCode.ollir"), "unreachable");
+
+        // Without the unreachable assignment, the jump goes to the instruction after it
+        assertEquals(List.of("end:", "ret.i32 a.i32"), code);
+    }
+
+    @Test
+    public void output() {
+        assertOutput(apply(new DeadCodeElimination(), "DeadCode.ollir"), "4\n3\n3\n3");
+    }
+}
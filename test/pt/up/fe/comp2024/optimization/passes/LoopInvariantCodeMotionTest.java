@@ -0,0 +1,65 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static pt.up.fe.comp2024.optimization.passes.PassTestUtils.*;
+
+public class LoopInvariantCodeMotionTest {
+
+    private static List<String> getMethodCode(String methodName) {
+        return getCode(apply(new LoopInvariantCodeMotion(), "LoopInvariant.ollir"), methodName);
+    }
+
+    private static boolean isHoisted(List<String> code, String line) {
+        var position = code.indexOf(line);
+        assertTrue(code.toString(), position >= 0);
+
+        return position < code.indexOf("loop:");
+    }
+
+    @Test
+    public void arithmeticHoisted() {
+        var code = getMethodCode("arithmetic");
+
+        assertTrue(code.toString(), isHoisted(code, "c.i32 :=.i32 k.i32 *.i32 7.i32"));
+    }
+
+    @Test
+    public void liveAfterLoopNotHoisted() {
+        var code = getMethodCode("liveAfter");
+
+        // The loop may not run, and then 'c' keeps its value from before the loop
+        assertFalse(code.toString(), isHoisted(code, "c.i32 :=.i32 k.i32 *.i32 7.i32"));
+    }
+
+    @Test
+    public void fieldHoisted() {
+        var code = getMethodCode("field");
+
+        assertTrue(code.toString(), isHoisted(code, "f.i32 :=.i32 getfield(this, x.i32).i32"));
+    }
+
+    @Test
+    public void fieldNotHoistedWithCall() {
+        var code = getMethodCode("fieldWithCall");
+
+        // The call may store the field
+        assertFalse(code.toString(), isHoisted(code, "f.i32 :=.i32 getfield(this, x.i32).i32"));
+    }
+
+    @Test
+    public void arrayLengthHoisted() {
+        var code = getMethodCode("arrayLength");
+
+        assertTrue(code.toString(), isHoisted(code, "length.i32 :=.i32 arraylength(a.array.i32).i32"));
+    }
+
+    @Test
+    public void output() {
+        assertOutput(apply(new LoopInvariantCodeMotion(), "LoopInvariant.ollir"), "84\n1\n21\n3\n6\n10");
+    }
+}
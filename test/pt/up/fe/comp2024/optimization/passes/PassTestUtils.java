@@ -0,0 +1,62 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import pt.up.fe.comp.CpUtils;
+import pt.up.fe.comp.TestUtils;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2024.optimization.OllirPass;
+import pt.up.fe.comp2024.optimization.OllirPassManager;
+import pt.up.fe.comp2024.optimization.OllirPrinter;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs a single OLLIR pass over the classes of the OLLIR files of this package.
+ */
+class PassTestUtils {
+
+    private static final String RESOURCES = "pt/up/fe/comp2024/optimization/passes/";
+
+    private PassTestUtils() {
+    }
+
+    /**
+     * The class of the given file, after running the pass over each of its methods until it changes nothing.
+     */
+    static OllirResult apply(OllirPass pass, String filename) {
+        var ollirResult = new OllirResult(SpecsIo.getResource(RESOURCES + filename), Collections.emptyMap());
+        new OllirPassManager().add(pass).run(ollirResult.getOllirClass());
+        return ollirResult;
+    }
+
+    /**
+     * The lines of the given method, as printed by {@link OllirPrinter} and without the ';' that ends them.
+     */
+    static List<String> getCode(OllirResult ollirResult, String methodName) {
+        var lines = OllirPrinter.print(ollirResult.getOllirClass()).lines().toList();
+
+        var start = -1;
+        for (int i = 0; i < lines.size() && start < 0; i++) {
+            if (lines.get(i).startsWith(".method ") && lines.get(i).contains(" " + methodName + "(")) {
+                start = i + 1;
+            }
+        }
+        assertTrue("Could not find method '" + methodName + "'", start >= 0);
+
+        var code = new ArrayList<String>();
+        for (int i = start; !lines.get(i).equals("}"); i++) {
+            var line = lines.get(i);
+            code.add(line.endsWith(";") ? line.substring(0, line.length() - 1) : line);
+        }
+
+        return code;
+    }
+
+    static void assertOutput(OllirResult ollirResult, String expected) {
+        CpUtils.runJasmin(TestUtils.backend(ollirResult), expected);
+    }
+}
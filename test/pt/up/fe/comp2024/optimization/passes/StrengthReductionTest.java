@@ -0,0 +1,77 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static pt.up.fe.comp2024.optimization.passes.PassTestUtils.*;
+
+public class StrengthReductionTest {
+
+    private static List<String> getMethodCode(String methodName) {
+        return getCode(apply(new StrengthReduction(), "StrengthReduction.ollir"), methodName);
+    }
+
+    /**
+     * The name of the variable that keeps the product, from the copy that replaced the multiplication.
+     */
+    private static String getProduct(List<String> code) {
+        var copy = code.stream().filter(line -> line.startsWith("j.i32 :=.i32 ")).findFirst().orElseThrow();
+        var product = copy.substring("j.i32 :=.i32 ".length());
+
+        assertTrue(code.toString(), product.matches("iv\\d+\\.i32"));
+        return product;
+    }
+
+    @Test
+    public void step() {
+        var code = getMethodCode("step");
+        var product = getProduct(code);
+
+        // Increased by 2 * 4 after the counter
+        var update = code.indexOf("i.i32 :=.i32 i.i32 +.i32 2.i32");
+        assertEquals(product + " :=.i32 " + product + " +.i32 8.i32", code.get(update + 1));
+    }
+
+    @Test
+    public void negativeStep() {
+        var code = getMethodCode("negativeStep");
+        var product = getProduct(code);
+
+        var update = code.indexOf("i.i32 :=.i32 i.i32 -.i32 1.i32");
+        assertEquals(product + " :=.i32 " + product + " +.i32 -3.i32", code.get(update + 1));
+    }
+
+    @Test
+    public void variableFactor() {
+        var code = getMethodCode("variableFactor");
+        var product = getProduct(code);
+
+        // The increase is computed once, before the loop
+        var loop = code.indexOf("loop:");
+        var increase = code.subList(0, loop).stream()
+                .filter(line -> line.endsWith(" :=.i32 k.i32 *.i32 3.i32"))
+                .findFirst().orElseThrow();
+        var increaseName = increase.substring(0, increase.indexOf(' '));
+
+        var update = code.indexOf("i.i32 :=.i32 i.i32 +.i32 3.i32");
+        assertEquals(product + " :=.i32 " + product + " +.i32 " + increaseName, code.get(update + 1));
+    }
+
+    @Test
+    public void conditionalCounterNotReduced() {
+        var code = getMethodCode("conditional");
+
+        // 'i' does not change in every iteration
+        assertTrue(code.toString(), code.contains("j.i32 :=.i32 i.i32 *.i32 4.i32"));
+        assertFalse(code.toString(), code.stream().anyMatch(line -> line.startsWith("iv")));
+    }
+
+    @Test
+    public void output() {
+        assertOutput(apply(new StrengthReduction(), "StrengthReduction.ollir"), "48\n30\n45\n28");
+    }
+}
@@ -0,0 +1,32 @@
+package pt.up.fe.comp2024.optimization.passes;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static pt.up.fe.comp2024.optimization.passes.PassTestUtils.*;
+
+public class TempCoalescingTest {
+
+    @Test
+    public void singleUse() {
+        var code = getCode(apply(new TempCoalescing(), "TempCoalescing.ollir"), "coalesced");
+
+        assertEquals(List.of("x.i32 :=.i32 a.i32 +.i32 1.i32", "ret.i32 x.i32"), code);
+    }
+
+    @Test
+    public void readTwice() {
+        var code = getCode(apply(new TempCoalescing(), "TempCoalescing.ollir"), "readTwice");
+
+        assertTrue(code.toString(), code.contains("t.i32 :=.i32 a.i32 +.i32 1.i32"));
+        assertTrue(code.toString(), code.contains("x.i32 :=.i32 t.i32"));
+    }
+
+    @Test
+    public void output() {
+        assertOutput(apply(new TempCoalescing(), "TempCoalescing.ollir"), "4\n16");
+    }
+}
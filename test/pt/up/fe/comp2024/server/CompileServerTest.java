@@ -0,0 +1,129 @@
+package pt.up.fe.comp2024.server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pt.up.fe.comp2024.JmmCompiler;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CompileServerTest {
+
+    private static final String CODE = """
+            class Served {
+                public int f(int a) {
+                    return a + 1;
+                }
+
+                public static void main(String[] args) {
+                }
+            }
+            """;
+
+    private static final long JOIN_TIMEOUT_MS = 10_000;
+
+    private String userHome;
+    private CompileServer server;
+    private Thread serverThread;
+    private String token;
+
+    @Before
+    public void setUp() throws IOException {
+        // The token of the server is kept under the home of the user
+        userHome = System.getProperty("user.home");
+        var home = SpecsIo.getTempFolder("compile_server");
+        SpecsIo.deleteFolderContents(home);
+        System.setProperty("user.home", home.getAbsolutePath());
+
+        server = new CompileServer(0, 2);
+        token = ServerToken.get(server.getLocalPort());
+        serverThread = new Thread(server::serve);
+        serverThread.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        server.close();
+        serverThread.join(JOIN_TIMEOUT_MS);
+        System.setProperty("user.home", userHome);
+    }
+
+    /**
+     * Sends a request as one line of JSON and reads the line of the answer.
+     */
+    private CompileResponse exchange(String request) throws IOException {
+        try (var socket = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+             var reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             var writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+
+            writer.write(request);
+            writer.newLine();
+            writer.flush();
+
+            var line = reader.readLine();
+            assertNotNull("Compile server closed the connection without answering", line);
+            return CompileServer.GSON.fromJson(line, CompileResponse.class);
+        }
+    }
+
+    private CompileResponse exchange(CompileRequest request) throws IOException {
+        return exchange(CompileServer.GSON.toJson(request));
+    }
+
+    @Test
+    public void compileRoundTrip() throws IOException {
+        var config = new HashMap<String, String>();
+        var response = exchange(CompileRequest.compile(token, CODE, config));
+
+        assertFalse(response.getReports().toString(), response.hasErrors());
+        assertFalse(response.isOutdated());
+
+        var expected = CompileResponse.fromResult(new JmmCompiler(true).compile(CODE, config));
+        assertEquals(expected.getParseTree(), response.getParseTree());
+        assertEquals(expected.getOptimizedTree(), response.getOptimizedTree());
+        assertEquals(expected.getOllirCode(), response.getOllirCode());
+        assertEquals(expected.getJasminCode(), response.getJasminCode());
+    }
+
+    @Test
+    public void requestWithoutTokenIsRefused() throws IOException {
+        var response = exchange(CompileRequest.compile("not the token", CODE, new HashMap<>()));
+
+        assertTrue(response.hasErrors());
+        assertEquals("Request without the token of the server", response.getReports().get(0).getMessage());
+        assertNull(response.getOllirCode());
+
+        // The server keeps serving the requests with the token
+        assertFalse(exchange(CompileRequest.compile(token, CODE, new HashMap<>())).hasErrors());
+    }
+
+    @Test
+    public void otherBuildIsOutdated() throws IOException, InterruptedException {
+        var request = CompileServer.GSON.toJsonTree(CompileRequest.compile(token, CODE, new HashMap<>()))
+                .getAsJsonObject();
+        request.addProperty("fingerprint", "another build");
+
+        var response = exchange(CompileServer.GSON.toJson(request));
+        assertTrue(response.isOutdated());
+        assertNull(response.getOllirCode());
+
+        // The outdated server shuts down, so that the client can start its own
+        serverThread.join(JOIN_TIMEOUT_MS);
+        assertFalse(serverThread.isAlive());
+    }
+}